@@ -1,14 +1,13 @@
 package com.mojang.minecraft;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 
 import com.mojang.minecraft.level.BlockMap;
 import com.mojang.minecraft.level.Level;
 import com.mojang.minecraft.level.liquid.LiquidType;
 import com.mojang.minecraft.level.tile.Block;
-import com.mojang.minecraft.net.PositionUpdate;
 import com.mojang.minecraft.physics.AABB;
+import com.mojang.minecraft.physics.AABBBuffer;
 import com.mojang.minecraft.player.Player;
 import com.mojang.minecraft.render.TextureManager;
 import com.mojang.minecraft.sound.StepSound;
@@ -49,6 +48,8 @@ public abstract class Entity implements Serializable {
     public boolean makeStepSound = true;
     public float fallDistance = 0F;
     public BlockMap blockMap;
+    // This entity's slot in blockMap; maintained by BlockMap
+    public int blockMapSlot = -1;
     public float xOld;
     public float yOld;
     public float zOld;
@@ -64,6 +65,12 @@ public abstract class Entity implements Serializable {
     public float distanceWalkedOnStepModified;
     private int nextStep = 1;
     private int nextStepDistance;
+    // Scratch space for collision checks, so that moving allocates nothing.
+    // Created on first use, since deserialized entities skip initializers.
+    private transient AABBBuffer collisionBoxes;
+    private transient AABB collisionBounds;
+    private transient AABB moveStart;
+    private transient AABB moveResult;
 
     public Entity(Level entityLevel) {
         level = entityLevel;
@@ -175,15 +182,27 @@ public abstract class Entity implements Serializable {
         return false;
     }
 
+    private void initCollisionScratch() {
+        if (collisionBoxes == null) {
+            collisionBoxes = new AABBBuffer();
+            collisionBounds = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+            moveStart = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+            moveResult = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+        }
+    }
+
     public boolean isFree(float x, float y, float z) {
-        AABB bounds = boundingBox.cloneMove(x, y, z);
-        return level.getCubes(bounds).size() <= 0 && !level.containsAnyLiquid(bounds);
+        initCollisionScratch();
+        AABB bounds = boundingBox.cloneMove(x, y, z, collisionBounds);
+        return level.getCubes(bounds, collisionBoxes).isEmpty() && !level.containsAnyLiquid(bounds);
     }
 
     // TODO - growAmount may not be an accurate interpretation
     public boolean isFree(float x, float y, float z, float growAmount) {
-        AABB bounds = boundingBox.grow(growAmount, growAmount, growAmount).cloneMove(x, y, z);
-        return level.getCubes(bounds).size() <= 0 && !level.containsAnyLiquid(bounds);
+        initCollisionScratch();
+        AABB bounds = boundingBox.grow(growAmount, growAmount, growAmount, collisionBounds)
+                .cloneMove(x, y, z, collisionBounds);
+        return level.getCubes(bounds, collisionBoxes).isEmpty() && !level.containsAnyLiquid(bounds);
     }
 
     public boolean isInLava() {
@@ -205,6 +224,16 @@ public abstract class Entity implements Serializable {
         return level.isLit(iX, iY, iZ);
     }
 
+    /**
+     * Whether this entity may be ticked on a worker thread, alongside others
+     * (see BlockMap.tickAll). Such an entity must only change itself and
+     * entities close to it; other side effects have to go through Level (or
+     * ParticleManager), which defers them while ticking in parallel.
+     */
+    public boolean isParallelTickSafe() {
+        return false;
+    }
+
     public boolean isPickable() {
         return false;
     }
@@ -235,11 +264,13 @@ public abstract class Entity implements Serializable {
             float var6 = xMove;
             float var7 = yMove;
             float var8 = zMove;
-            AABB bbCopy = boundingBox.copy();
-            ArrayList<AABB> cubes = level.getCubes(boundingBox.expand(xMove, yMove, zMove));
+            initCollisionScratch();
+            moveStart.set(boundingBox);
+            AABBBuffer cubes = level.getCubes(boundingBox.expand(xMove, yMove, zMove, collisionBounds),
+                    collisionBoxes);
 
-            for (AABB cube5 : cubes) {
-                yMove = cube5.clipYCollide(boundingBox, yMove);
+            for (int i = 0; i < cubes.size(); ++i) {
+                yMove = cubes.get(i).clipYCollide(boundingBox, yMove);
             }
 
             boundingBox.move(0F, yMove, 0F);
@@ -251,8 +282,8 @@ public abstract class Entity implements Serializable {
 
             boolean var16 = onGround || var7 != yMove && var7 < 0F;
 
-            for (AABB cube4 : cubes) {
-                xMove = cube4.clipXCollide(boundingBox, xMove);
+            for (int i = 0; i < cubes.size(); ++i) {
+                xMove = cubes.get(i).clipXCollide(boundingBox, xMove);
             }
 
             boundingBox.move(xMove, 0F, 0F);
@@ -262,8 +293,8 @@ public abstract class Entity implements Serializable {
                 xMove = 0F;
             }
 
-            for (AABB cube3 : cubes) {
-                zMove = cube3.clipZCollide(boundingBox, zMove);
+            for (int i = 0; i < cubes.size(); ++i) {
+                zMove = cubes.get(i).clipZCollide(boundingBox, zMove);
             }
 
             boundingBox.move(0F, 0F, zMove);
@@ -282,12 +313,13 @@ public abstract class Entity implements Serializable {
                 xMove = var6;
                 yMove = footSize;
                 zMove = var8;
-                AABB var14 = boundingBox.copy();
-                boundingBox = bbCopy.copy();
-                cubes = level.getCubes(boundingBox.expand(var6, yMove, var8));
+                moveResult.set(boundingBox);
+                boundingBox.set(moveStart);
+                cubes = level.getCubes(boundingBox.expand(var6, yMove, var8, collisionBounds),
+                        collisionBoxes);
 
-                for (AABB cube2 : cubes) {
-                    yMove = cube2.clipYCollide(boundingBox, yMove);
+                for (int i = 0; i < cubes.size(); ++i) {
+                    yMove = cubes.get(i).clipYCollide(boundingBox, yMove);
                 }
 
                 boundingBox.move(0F, yMove, 0F);
@@ -297,8 +329,8 @@ public abstract class Entity implements Serializable {
                     xMove = 0F;
                 }
 
-                for (AABB cube1 : cubes) {
-                    xMove = cube1.clipXCollide(boundingBox, xMove);
+                for (int i = 0; i < cubes.size(); ++i) {
+                    xMove = cubes.get(i).clipXCollide(boundingBox, xMove);
                 }
 
                 boundingBox.move(xMove, 0F, 0F);
@@ -308,8 +340,8 @@ public abstract class Entity implements Serializable {
                     xMove = 0F;
                 }
 
-                for (AABB cube : cubes) {
-                    zMove = cube.clipZCollide(boundingBox, zMove);
+                for (int i = 0; i < cubes.size(); ++i) {
+                    zMove = cubes.get(i).clipZCollide(boundingBox, zMove);
                 }
 
                 boundingBox.move(0F, 0F, zMove);
@@ -323,7 +355,7 @@ public abstract class Entity implements Serializable {
                     xMove = var18;
                     yMove = var17;
                     zMove = var13;
-                    boundingBox = var14.copy();
+                    boundingBox.set(moveResult);
                 } else {
                     ySlideOffset = (float) (ySlideOffset + 0.5D);
                 }
@@ -477,11 +509,12 @@ public abstract class Entity implements Serializable {
         if (level != null) {
             float xSpawn = level.xSpawn + 0.5F;
             float ySpawn = level.ySpawn;
+            initCollisionScratch();
 
             for (double zSpawn = level.zSpawn + 0.5F; ySpawn > 0F; ++ySpawn) {
                 this.setPos(xSpawn, ySpawn, (float) zSpawn);
                 if (level.isInBounds((int) xSpawn, (int) ySpawn, (int) zSpawn)) {
-                    if (level.getCubes(boundingBox).isEmpty()) {
+                    if (level.getCubes(boundingBox, collisionBoxes).isEmpty()) {
                         break;
                     }
                 } else {
@@ -504,21 +537,12 @@ public abstract class Entity implements Serializable {
         this.z = z;
         float middleWidth = bbWidth / 2F;
         float middleHeight = bbHeight / 2F;
-        boundingBox = new AABB(x - middleWidth, y - middleHeight, z - middleWidth, x + middleWidth,
-                y + middleHeight, z + middleWidth);
-    }
-
-    public void setPos(PositionUpdate update) {
-        if (update.position) {
-            this.setPos(update.x, update.y, update.z);
-        } else {
-            this.setPos(x, y, z);
-        }
-
-        if (update.rotation) {
-            setRot(update.yaw, update.pitch);
+        if (boundingBox == null) {
+            boundingBox = new AABB(x - middleWidth, y - middleHeight, z - middleWidth,
+                    x + middleWidth, y + middleHeight, z + middleWidth);
         } else {
-            setRot(yRot, xRot);
+            boundingBox.set(x - middleWidth, y - middleHeight, z - middleWidth, x + middleWidth,
+                    y + middleHeight, z + middleWidth);
         }
     }
 
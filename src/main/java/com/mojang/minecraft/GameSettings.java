@@ -52,6 +52,10 @@ public final class GameSettings {
             SCALE_MAX = 1.2f;
     // min valid value for anisotropy. Max is set by TextureManager.
     public static final int ANISOTROPY_OFF = 0;
+    // valid range of values for networkDelay
+    public static final int NETWORKDELAY_MIN = 0,
+            NETWORKDELAY_DEFAULT = 100,
+            NETWORKDELAY_MAX = 1000;
     public static String StatusString = "";
     public static String PercentString = "";
     public static boolean CanReplaceSlot = true;
@@ -105,6 +109,12 @@ public final class GameSettings {
     public boolean invertMouse = false;
     public boolean canServerChangeTextures = true;
     public boolean showDebug = false;
+    // Merge runs of identical cube faces into larger quads (buffer object renderer only)
+    public boolean greedyMeshing = false;
+    // Tick mobs on all cores; see Level.tickEntities
+    public boolean parallelEntityTicks = false;
+    // How far behind the server other players are drawn, in milliseconds (options file only)
+    public int networkDelay = NETWORKDELAY_DEFAULT;
 
     public GameSettings(Minecraft minecraft, File minecraftFolder) {
         bindings = new KeyBinding[]{
@@ -140,6 +150,10 @@ public final class GameSettings {
                 return "Invert mouse: " + toOnOff(invertMouse);
             case SHOW_DEBUG:
                 return "Show Debug: " + toOnOff(showDebug);
+            case GREEDY_MESHING:
+                return "Greedy meshing: " + toOnOff(greedyMeshing);
+            case PARALLEL_ENTITY_TICKS:
+                return "Parallel mobs: " + toOnOff(parallelEntityTicks);
             case VIEW_DISTANCE:
                 return "View distance: " + viewDistanceOptions[viewDistance];
             case VIEW_BOBBING:
@@ -207,6 +221,16 @@ public final class GameSettings {
             case "showdebug":
                 showDebug = isTrue;
                 break;
+            case "greedymeshing":
+                greedyMeshing = isTrue;
+                break;
+            case "parallelentityticks":
+                parallelEntityTicks = isTrue;
+                break;
+            case "networkdelay":
+                networkDelay = Math.min(Math.max(Integer.parseInt(value),
+                        NETWORKDELAY_MIN), NETWORKDELAY_MAX);
+                break;
             case "viewdistance":
                 viewDistance = Math.min(Math.max(Byte.parseByte(value),
                         VIEWDISTANCE_MIN), VIEWDISTANCE_MAX);
@@ -281,6 +305,9 @@ public final class GameSettings {
                 writer.println("sound:" + sound);
                 writer.println("invertYMouse:" + invertMouse);
                 writer.println("showDebug:" + showDebug);
+                writer.println("greedyMeshing:" + greedyMeshing);
+                writer.println("parallelEntityTicks:" + parallelEntityTicks);
+                writer.println("networkDelay:" + networkDelay);
                 writer.println("viewDistance:" + viewDistance);
                 writer.println("bobView:" + viewBobbing);
                 writer.println("framerateLimit:" + framerateLimit);
@@ -327,6 +354,16 @@ public final class GameSettings {
             case SHOW_DEBUG:
                 showDebug = !showDebug;
                 break;
+            case GREEDY_MESHING:
+                greedyMeshing = !greedyMeshing;
+                // Rebuild all chunks with the new mesher
+                if (minecraft.levelRenderer != null && minecraft.levelRenderer.level != null) {
+                    minecraft.levelRenderer.refresh();
+                }
+                break;
+            case PARALLEL_ENTITY_TICKS:
+                parallelEntityTicks = !parallelEntityTicks;
+                break;
             case VIEW_DISTANCE:
                 int newViewDist = viewDistance + fogValue;
                 if (newViewDist < VIEWDISTANCE_MIN) {
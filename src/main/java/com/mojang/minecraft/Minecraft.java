@@ -19,7 +19,6 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -66,17 +65,13 @@ import com.mojang.minecraft.model.ModelPart;
 import com.mojang.minecraft.net.NetworkManager;
 import com.mojang.minecraft.net.NetworkPlayer;
 import com.mojang.minecraft.net.PacketHandler;
-import com.mojang.minecraft.net.PacketType;
 import com.mojang.minecraft.net.ProtocolExtension;
 import com.mojang.minecraft.net.WOMConfig;
-import com.mojang.minecraft.particle.Particle;
 import com.mojang.minecraft.particle.ParticleManager;
-import com.mojang.minecraft.particle.WaterDropParticle;
 import com.mojang.minecraft.physics.AABB;
 import com.mojang.minecraft.player.InputHandlerImpl;
 import com.mojang.minecraft.player.Player;
 import com.mojang.minecraft.render.Chunk;
-import com.mojang.minecraft.render.ChunkDirtyDistanceComparator;
 import com.mojang.minecraft.render.Frustum;
 import com.mojang.minecraft.render.FrustumImpl;
 import com.mojang.minecraft.render.HeldBlock;
@@ -665,6 +660,7 @@ public final class Minecraft implements Runnable {
         // if LWJGL dependencies are missing, NoClassDefFoundError or UnsatisfiedLinkError will be thrown here
         LogUtil.logInfo("LWJGL version: " + Sys.getVersion());
 
+        sound.setCacheDirectory(new File(mcDir, "cache/sounds"));
         resourceThread = new ResourceDownloadThread(mcDir, this);
         resourceThread.run(); // TODO: run asynchronously
 
@@ -778,6 +774,11 @@ public final class Minecraft implements Runnable {
         }
 
         particleManager = new ParticleManager();
+        // The first level was set before the particle manager existed
+        particleManager.setLevel(level);
+        if (level != null) {
+            level.particleEngine = particleManager;
+        }
         if (isLevelLoaded) {
             try {
                 cursor = new Cursor(16, 16, 0, 0, 1, BufferUtils.createIntBuffer(256), null);
@@ -1079,14 +1080,16 @@ public final class Minecraft implements Runnable {
 
                         renderer.setCamera(delta, selected);
 
+                        // Compile chunk meshes that were built since the last frame
+                        levelRenderer.chunkUpdater.uploadFinished();
+
                         Frustum frustum = FrustumImpl.getInstance();
                         // Check visibility of chunks
                         for (int i = 0; i < levelRenderer.chunkCache.length; ++i) {
                             levelRenderer.chunkCache[i].clip(frustum);
                         }
 
-                        Collections.sort(levelRenderer.chunksToUpdate,
-                                new ChunkDirtyDistanceComparator(player));
+                        levelRenderer.sortChunksToUpdate(player);
                         int chunkUpdates = levelRenderer.chunksToUpdate.size();
 
                         if (chunkUpdates > 0) {
@@ -1102,10 +1105,11 @@ public final class Minecraft implements Runnable {
                             }
                             chunkUpdates = Math.min(chunkUpdates, maxUpdates);
 
-                            // Actually update the chunks. Measure how long it takes.
+                            // Hand the chunks to the mesh workers. They are snapshotted here,
+                            // so later block changes will queue them up again.
                             for (int i = 0; i < chunkUpdates; ++i) {
                                 Chunk chunk = levelRenderer.chunksToUpdate.remove(lastChunkId - i);
-                                chunk.update();
+                                levelRenderer.chunkUpdater.submit(chunk);
                                 chunk.loaded = false;
                             }
 
@@ -1136,10 +1140,10 @@ public final class Minecraft implements Runnable {
                             for (Chunk aChunkCache : levelRenderer.chunkCache) {
                                 if (Math.sqrt(aChunkCache.distanceSquared(player)) - 32 > renderer.fogEnd) {
                                     aChunkCache.visible = false;
-                                } else {
-                                    aChunkCache.visible = true;
                                 }
                             }
+                            // ...and those hidden behind solid terrain
+                            levelRenderer.cullOccluded(player);
                         }
 
                         // Set fog color/density/etc
@@ -1202,9 +1206,7 @@ public final class Minecraft implements Runnable {
                         var69 = MathHelper.cos(player.xRot * (float) Math.PI / 180F);
 
                         for (int pass = 0; pass < 2; ++pass) {
-                            List<Particle> particles = (pass == 0 ? particleManager.particles0 : particleManager.particles1);
-
-                            if (!particles.isEmpty()) {
+                            if (particleManager.hasParticles(pass)) {
                                 int textureId = 0;
                                 if (pass == 0) {
                                     textureId = textureManager.load(Textures.PARTICLES);
@@ -1215,11 +1217,8 @@ public final class Minecraft implements Runnable {
                                 GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
                                 shapeRenderer.begin();
 
-                                for (Particle particle : particles) {
-                                    particle.render(
-                                            shapeRenderer, delta, var123, var69, newYRot, var117,
-                                            var32);
-                                }
+                                particleManager.render(pass, shapeRenderer, delta, var123, var69,
+                                        newYRot, var117, var32);
 
                                 shapeRenderer.end();
                             }
@@ -1304,9 +1303,7 @@ public final class Minecraft implements Runnable {
                         GL11.glColorMask(true, true, true, true);
 
                         if (chunksRemaining > 0) {
-                            GL11.glBindTexture(GL11.GL_TEXTURE_2D,
-                                    levelRenderer.textureManager.load(Textures.TERRAIN));
-                            GL11.glCallLists(levelRenderer.buffer);
+                            levelRenderer.renderChunks();
                         }
 
                         GL11.glDepthMask(true);
@@ -1585,7 +1582,7 @@ public final class Minecraft implements Runnable {
             if (newLevel != null) {
                 newLevel.particleEngine = particleManager;
             }
-            particleManager.clear();
+            particleManager.setLevel(newLevel);
         }
 
         if (inventoryCache != null) {
@@ -1606,6 +1603,10 @@ public final class Minecraft implements Runnable {
             if (resourceThread != null) {
                 resourceThread.running = true;
             }
+
+            if (levelRenderer != null) {
+                levelRenderer.chunkUpdater.shutdown();
+            }
         } catch (Exception ex) {
             LogUtil.logError("Error shutting down threads.", ex);
         }
@@ -1765,9 +1766,8 @@ public final class Minecraft implements Runnable {
                     if (groundLevel <= playerY + 4 && groundLevel >= playerY - 4) {
                         float offsetX = renderer.random.nextFloat();
                         float offsetZ = renderer.random.nextFloat();
-                        particleManager.spawnParticle(
-                                new WaterDropParticle(level, raindropBlockX + offsetX,
-                                        groundLevel + 0.1F, raindropBlockY + offsetZ));
+                        particleManager.spawnWaterDropParticle(raindropBlockX + offsetX,
+                                groundLevel + 0.1F, raindropBlockY + offsetZ);
                     }
                 }
             }
@@ -1781,7 +1781,7 @@ public final class Minecraft implements Runnable {
 
             ++levelRenderer.ticks;
             if (level.blockMap != null) {
-                level.tickEntities();
+                level.tickEntities(settings.parallelEntityTicks);
             }
             if (!isOnline()) {
                 level.tick();
@@ -1814,23 +1814,13 @@ public final class Minecraft implements Runnable {
         // Do network communication
         try {
             if (!networkManager.handshakeSent) {
-                networkManager.send(
-                        PacketType.IDENTIFICATION,
-                        Constants.PROTOCOL_VERSION, session.username, session.mppass,
-                        (int) Constants.CLIENT_TYPE);
+                networkManager.sendIdentification(Constants.PROTOCOL_VERSION,
+                        session.username, session.mppass, Constants.CLIENT_TYPE);
                 networkManager.handshakeSent = true;
             }
 
             do {
-                networkManager.channel.read(networkManager.in);
-                for (int packetsReceived = 0;
-                        packetsReceived < NetworkManager.MAX_PACKETS_PER_TICK
-                        && networkManager.in.position() > 0;
-                        packetsReceived++) {
-                    if (!packetHandler.handlePacket(networkManager)) {
-                        break;
-                    }
-                }
+                packetHandler.handlePackets(networkManager, NetworkManager.PACKET_TIME_BUDGET_NANOS);
                 networkManager.writeOut();
 
                 if (packetHandler.isLoadingLevel) {
@@ -1851,11 +1841,10 @@ public final class Minecraft implements Runnable {
             int playerZUnits = (int) (player.z * 32F);
             int playerYRotation = (int) (player.yRot * 256F / 360F) & 255;
             int playerXRotation = (int) (player.xRot * 256F / 360F) & 255;
-            networkManager.send(
-                    PacketType.POSITION_ROTATION,
-                    networkManager.isExtEnabled(ProtocolExtension.HELD_BLOCK) ? player.inventory.getSelected() : -1,
-                    playerXUnits, playerYUnits, playerZUnits,
-                    playerYRotation, playerXRotation);
+            networkManager.sendPositionRotation(
+                    (byte) (networkManager.isExtEnabled(ProtocolExtension.HELD_BLOCK) ? player.inventory.getSelected() : -1),
+                    (short) playerXUnits, (short) playerYUnits, (short) playerZUnits,
+                    (byte) playerYRotation, (byte) playerXRotation);
         } catch (Exception ex) {
             LogUtil.logWarning("Error in network handling code.", ex);
             setCurrentScreen(new ErrorScreen("Disconnected!",
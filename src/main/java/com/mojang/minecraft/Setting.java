@@ -7,5 +7,6 @@ public enum Setting {
     FRAMERATE_LIMIT,    SMOOTHING,
     ANISOTROPIC,        ALLOW_SERVER_TEXTURES,
     SPEEDHACK_TYPE,     FONT_SCALE,
-    ENABLE_HACKS,       SHOW_NAMES
+    ENABLE_HACKS,       SHOW_NAMES,
+    GREEDY_MESHING,     PARALLEL_ENTITY_TICKS
 }
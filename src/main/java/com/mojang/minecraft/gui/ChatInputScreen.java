@@ -18,7 +18,6 @@ import com.mojang.minecraft.ChatClickData;
 import com.mojang.minecraft.ChatClickData.LinkData;
 import com.mojang.minecraft.ChatLine;
 import com.mojang.util.LogUtil;
-import com.mojang.minecraft.net.PacketType;
 
 public class ChatInputScreen extends GuiScreen {
 
@@ -152,7 +151,7 @@ public class ChatInputScreen extends GuiScreen {
                 minecraft.hud.addChat("&f" + message);
             } else if (message.length() > 0) {
                 if ((message = message.trim()).length() > 0) {
-                    minecraft.networkManager.send(PacketType.CHAT_MESSAGE, -1, message);
+                    minecraft.networkManager.sendChatMessage((byte) -1, message);
                 }
             }
             history.add(message);
@@ -7,8 +7,6 @@ import org.lwjgl.opengl.GL11;
 import com.mojang.minecraft.Entity;
 import com.mojang.minecraft.level.Level;
 import com.mojang.minecraft.level.tile.Block;
-import com.mojang.minecraft.particle.SmokeParticle;
-import com.mojang.minecraft.particle.TerrainParticle;
 import com.mojang.minecraft.player.Player;
 import com.mojang.minecraft.render.ShapeRenderer;
 import com.mojang.minecraft.render.TextureManager;
@@ -144,8 +142,7 @@ public class PrimedTnt extends Entity {
 
         if (!defused) {
             if (life-- > 0) {
-                SmokeParticle smokeParticle = new SmokeParticle(level, x, y + 0.6F, z);
-                level.particleEngine.spawnParticle(smokeParticle);
+                level.particleEngine.spawnSmokeParticle(x, y + 0.6F, z);
             } else {
                 remove();
 
@@ -164,9 +161,8 @@ public class PrimedTnt extends Entity {
 
                     unknown3 = unknown2 / unknown3 / unknown3;
 
-                    TerrainParticle terrainParticle = new TerrainParticle(level, x + unknown0, y
-                            + unknown1, z + unknown2, unknown4, unknown5, unknown3, Block.TNT);
-                    level.particleEngine.spawnParticle(terrainParticle);
+                    level.particleEngine.spawnTerrainParticle(x + unknown0, y + unknown1,
+                            z + unknown2, unknown4, unknown5, unknown3, Block.TNT);
                 }
             }
         }
@@ -2,6 +2,7 @@ package com.mojang.minecraft.level;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.mojang.minecraft.Entity;
@@ -10,72 +11,143 @@ import com.mojang.minecraft.render.Frustum;
 import com.mojang.minecraft.render.TextureManager;
 import com.mojang.util.Vec3D;
 
+/**
+ * Spatial index of the entities in a level, bucketed into 16x16x16 cells.
+ *
+ * Entities live in a dense array of slots, so ticking them is a plain array
+ * walk. Each slot is linked into a list for its cell through int next/prev
+ * arrays, and each entity remembers its slot (Entity.blockMapSlot), so
+ * inserting, moving and removing are all O(1); removal moves the last slot
+ * into the hole. Cells that hold at least one entity are tracked separately,
+ * so rendering never visits empty cells.
+ */
 public class BlockMap implements Serializable {
 
-    public List<Entity>[] entityGrid;
-    public List<Entity> all = new ArrayList<>();
+    private static final int NONE = -1;
+
+    // Number of cells along x, y and z
     private int width;
     private int depth;
     private int height;
-    private final BlockMapSlot slot = new BlockMapSlot(this);
-    private final BlockMapSlot slot2 = new BlockMapSlot(this);
+
+    // Slots [0, count) hold entities
+    private Entity[] entities = new Entity[64];
+    private int[] slotCells = new int[64];
+    private int[] nextInCell = new int[64];
+    private int[] prevInCell = new int[64];
+    private int count;
+
+    // First slot in each cell, or NONE if the cell is empty
+    private final int[] cellHeads;
+    // The non-empty cells, and each cell's position in that list
+    private final int[] occupiedCells;
+    private final int[] occupiedIndices;
+    private int occupiedCount;
+
     private final List<Entity> tmp = new ArrayList<>();
+    private transient ParallelEntityTicker ticker;
+    // The entities as they were when tickAll started
+    private transient Entity[] tickOrder;
 
-    @SuppressWarnings("unchecked")
     public BlockMap(int x, int y, int z) {
-        width = x / 16;
-        depth = y / 16;
-        height = z / 16;
-        if (width == 0) {
-            width = 1;
-        }
+        width = Math.max(x / 16, 1);
+        depth = Math.max(y / 16, 1);
+        height = Math.max(z / 16, 1);
+
+        int cells = width * depth * height;
+        cellHeads = new int[cells];
+        Arrays.fill(cellHeads, NONE);
+        occupiedCells = new int[cells];
+        occupiedIndices = new int[cells];
+    }
 
-        if (depth == 0) {
-            depth = 1;
-        }
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : value >= max ? max - 1 : value;
+    }
 
-        if (height == 0) {
-            height = 1;
-        }
+    private int cellX(float x) {
+        return clamp((int) (x / 16F), width);
+    }
 
-        entityGrid = new ArrayList[width * depth * height];
+    private int cellY(float y) {
+        return clamp((int) (y / 16F), depth);
+    }
 
-        for (x = 0; x < width; ++x) {
-            for (y = 0; y < depth; ++y) {
-                for (z = 0; z < height; ++z) {
-                    entityGrid[(z * depth + y) * width + x] = new ArrayList<>();
-                }
-            }
-        }
+    private int cellZ(float z) {
+        return clamp((int) (z / 16F), height);
+    }
 
+    private int cellAt(float x, float y, float z) {
+        return (cellZ(z) * depth + cellY(y)) * width + cellX(x);
     }
 
-    // $FF: synthetic method
-    static int getDepth(BlockMap blockMap) {
-        return blockMap.depth;
+    // Returns the slot holding the given entity, or NONE if it is not in this map.
+    private int slotOf(Entity entity) {
+        int slot = entity.blockMapSlot;
+        return slot >= 0 && slot < count && entities[slot] == entity ? slot : NONE;
     }
 
-    // $FF: synthetic method
-    static int getHeight(BlockMap blockMap) {
-        return blockMap.height;
+    private void link(int slot, int cell) {
+        int head = cellHeads[cell];
+        slotCells[slot] = cell;
+        nextInCell[slot] = head;
+        prevInCell[slot] = NONE;
+        if (head != NONE) {
+            prevInCell[head] = slot;
+        } else {
+            occupiedIndices[cell] = occupiedCount;
+            occupiedCells[occupiedCount++] = cell;
+        }
+        cellHeads[cell] = slot;
     }
 
-    // $FF: synthetic method
-    static int getWidth(BlockMap blockMap) {
-        return blockMap.width;
+    private void unlink(int slot) {
+        int cell = slotCells[slot];
+        int prev = prevInCell[slot];
+        int next = nextInCell[slot];
+        if (prev != NONE) {
+            nextInCell[prev] = next;
+        } else {
+            cellHeads[cell] = next;
+        }
+        if (next != NONE) {
+            prevInCell[next] = prev;
+        }
+        if (cellHeads[cell] == NONE) {
+            // Swap the last occupied cell into this one's place
+            int last = occupiedCells[--occupiedCount];
+            int index = occupiedIndices[cell];
+            occupiedCells[index] = last;
+            occupiedIndices[last] = index;
+        }
     }
 
     public void clear() {
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < depth; ++y) {
-                for (int z = 0; z < height; ++z) {
-                    entityGrid[(z * depth + y) * width + x].clear();
-                }
-            }
+        for (int slot = 0; slot < count; ++slot) {
+            entities[slot].blockMapSlot = NONE;
         }
+        Arrays.fill(entities, 0, count, null);
+        count = 0;
+        Arrays.fill(cellHeads, NONE);
+        occupiedCount = 0;
+    }
 
+    /**
+     * Gets the number of entities in the map. Together with get(), this
+     * allows walking every entity without allocating an iterator.
+     */
+    public int size() {
+        return count;
     }
 
+    public Entity get(int index) {
+        return entities[index];
+    }
+
+    /**
+     * Finds the entities intersecting the given bounds. The returned list is
+     * shared and is overwritten by the next call.
+     */
     public List<Entity> getEntities(Entity entitiy, AABB aabb) {
         tmp.clear();
         return this.getEntities(entitiy, aabb.maxX, aabb.maxY, aabb.maxZ, aabb.minX, aabb.minY, aabb.minZ, tmp);
@@ -93,17 +165,21 @@ public class BlockMap implements Serializable {
 
     public List<Entity> getEntities(Entity entity, float x1, float y1, float z1, float x2,
                                     float y2, float z2, List<Entity> entityListToChange) {
-        BlockMapSlot thisSlot = slot.init(x1, y1, z1);
-        BlockMapSlot otherSlot = slot2.init(x2, y2, z2);
-
-        for (int i = BlockMapSlot.getXSlot(thisSlot) - 1; i <= BlockMapSlot.getXSlot(otherSlot) + 1; ++i) {
-            for (int j = BlockMapSlot.getYSlot(thisSlot) - 1; j <= BlockMapSlot.getYSlot(otherSlot) + 1; ++j) {
-                for (int k = BlockMapSlot.getZSlot(thisSlot) - 1; k <= BlockMapSlot.getZSlot(otherSlot) + 1; ++k) {
-                    if (i >= 0 && j >= 0 && k >= 0 && i < width && j < depth && k < height) {
-                        for (Entity theEntity : entityGrid[(k * depth + j) * width + i]) {
-                            if (theEntity != entity && theEntity.intersects(x1, y1, z1, x2, y2, z2)) {
-                                entityListToChange.add(theEntity);
-                            }
+        int cellX1 = Math.max(cellX(x1) - 1, 0);
+        int cellY1 = Math.max(cellY(y1) - 1, 0);
+        int cellZ1 = Math.max(cellZ(z1) - 1, 0);
+        int cellX2 = Math.min(cellX(x2) + 1, width - 1);
+        int cellY2 = Math.min(cellY(y2) + 1, depth - 1);
+        int cellZ2 = Math.min(cellZ(z2) + 1, height - 1);
+
+        for (int i = cellX1; i <= cellX2; ++i) {
+            for (int j = cellY1; j <= cellY2; ++j) {
+                for (int k = cellZ1; k <= cellZ2; ++k) {
+                    int slot = cellHeads[(k * depth + j) * width + i];
+                    for (; slot != NONE; slot = nextInCell[slot]) {
+                        Entity theEntity = entities[slot];
+                        if (theEntity != entity && theEntity.intersects(x1, y1, z1, x2, y2, z2)) {
+                            entityListToChange.add(theEntity);
                         }
                     }
                 }
@@ -113,9 +189,59 @@ public class BlockMap implements Serializable {
         return entityListToChange;
     }
 
+    /**
+     * Finds the entities intersecting the given bounds and copies them into
+     * the given array, without allocating.
+     *
+     * @param entity An entity to leave out of the results, or null.
+     * @return The number of entities found. If this is larger than the array,
+     *         only as many as fit were copied.
+     */
+    public int getEntities(Entity entity, AABB bounds, Entity[] results) {
+        int cellX1 = Math.max(cellX(bounds.maxX) - 1, 0);
+        int cellY1 = Math.max(cellY(bounds.maxY) - 1, 0);
+        int cellZ1 = Math.max(cellZ(bounds.maxZ) - 1, 0);
+        int cellX2 = Math.min(cellX(bounds.minX) + 1, width - 1);
+        int cellY2 = Math.min(cellY(bounds.minY) + 1, depth - 1);
+        int cellZ2 = Math.min(cellZ(bounds.minZ) + 1, height - 1);
+        int found = 0;
+
+        for (int i = cellX1; i <= cellX2; ++i) {
+            for (int j = cellY1; j <= cellY2; ++j) {
+                for (int k = cellZ1; k <= cellZ2; ++k) {
+                    int slot = cellHeads[(k * depth + j) * width + i];
+                    for (; slot != NONE; slot = nextInCell[slot]) {
+                        Entity other = entities[slot];
+                        if (other != entity && other.intersects(bounds.maxX, bounds.maxY, bounds.maxZ,
+                                bounds.minX, bounds.minY, bounds.minZ)) {
+                            if (found < results.length) {
+                                results[found] = other;
+                            }
+                            ++found;
+                        }
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
     public void insert(Entity entity) {
-        all.add(entity);
-        slot.init(entity.x, entity.y, entity.z).add(entity);
+        if (slotOf(entity) != NONE) {
+            return;
+        }
+        if (count == entities.length) {
+            int capacity = count * 2;
+            entities = Arrays.copyOf(entities, capacity);
+            slotCells = Arrays.copyOf(slotCells, capacity);
+            nextInCell = Arrays.copyOf(nextInCell, capacity);
+            prevInCell = Arrays.copyOf(prevInCell, capacity);
+        }
+        int slot = count++;
+        entities[slot] = entity;
+        entity.blockMapSlot = slot;
+        link(slot, cellAt(entity.x, entity.y, entity.z));
         entity.xOld = entity.x;
         entity.yOld = entity.y;
         entity.zOld = entity.z;
@@ -123,11 +249,14 @@ public class BlockMap implements Serializable {
     }
 
     public void moved(Entity entity) {
-        BlockMapSlot var2 = slot.init(entity.xOld, entity.yOld, entity.zOld);
-        BlockMapSlot var3 = slot2.init(entity.x, entity.y, entity.z);
-        if (!var2.equals(var3)) {
-            var2.remove(entity);
-            var3.add(entity);
+        int slot = slotOf(entity);
+        if (slot == NONE) {
+            return;
+        }
+        int cell = cellAt(entity.x, entity.y, entity.z);
+        if (cell != slotCells[slot]) {
+            unlink(slot);
+            link(slot, cell);
             entity.xOld = entity.x;
             entity.yOld = entity.y;
             entity.zOld = entity.z;
@@ -135,134 +264,148 @@ public class BlockMap implements Serializable {
     }
 
     public void remove(Entity entity) {
-        slot.init(entity.xOld, entity.yOld, entity.zOld).remove(entity);
-        all.remove(entity);
+        int slot = slotOf(entity);
+        if (slot == NONE) {
+            return;
+        }
+        unlink(slot);
+        entity.blockMapSlot = NONE;
+
+        int last = --count;
+        if (slot != last) {
+            // Move the last entity into the freed slot, repointing its neighbours
+            Entity moved = entities[last];
+            entities[slot] = moved;
+            moved.blockMapSlot = slot;
+            int cell = slotCells[last];
+            int prev = prevInCell[last];
+            int next = nextInCell[last];
+            slotCells[slot] = cell;
+            prevInCell[slot] = prev;
+            nextInCell[slot] = next;
+            if (prev != NONE) {
+                nextInCell[prev] = slot;
+            } else {
+                cellHeads[cell] = slot;
+            }
+            if (next != NONE) {
+                prevInCell[next] = slot;
+            }
+        }
+        entities[last] = null;
     }
 
     public void removeAllNonCreativeModeEntities() {
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < depth; ++y) {
-                for (int z = 0; z < height; ++z) {
-                    List<?> entitySlotInGrid = entityGrid[(z * depth + y) * width + x];
-
-                    for (int i = 0; i < entitySlotInGrid.size(); ++i) {
-                        if (!((Entity) entitySlotInGrid.get(i)).isCreativeModeAllowed()) {
-                            entitySlotInGrid.remove(i--);
-                        }
-                    }
-                }
+        for (int slot = count - 1; slot >= 0; --slot) {
+            if (!entities[slot].isCreativeModeAllowed()) {
+                remove(entities[slot]);
             }
         }
-
     }
 
     public void render(Vec3D playerVector, Frustum frustum, TextureManager textureManager, float delta) {
-        for (int x = 0; x < width; ++x) {
+        for (int cellIndex = 0; cellIndex < occupiedCount; ++cellIndex) {
+            int cell = occupiedCells[cellIndex];
+            int x = cell % width;
+            int y = cell / width % depth;
+            int z = cell / (width * depth);
+
             float var6 = (x << 4) - 2;
             float var7 = (x + 1 << 4) + 2;
+            float var9 = (y << 4) - 2;
+            float var10 = (y + 1 << 4) + 2;
+            float var13 = (z << 4) - 2;
+            float var14 = (z + 1 << 4) + 2;
+            if (frustum.isBoxInFrustum(var6, var9, var13, var7, var10, var14)) {
+                float var16 = var14;
+                float var17 = var10;
+                float var15 = var7;
+                var14 = var13;
+                var13 = var9;
+                float var18 = var6;
+                Frustum var19 = frustum;
+                int var20 = 0;
+
+                boolean var10000;
+                while (true) {
+                    if (var20 >= 6) {
+                        var10000 = true;
+                        break;
+                    }
 
-            for (int y = 0; y < depth; ++y) {
-                float var9 = (y << 4) - 2;
-                float var10 = (y + 1 << 4) + 2;
-
-                for (int z = 0; z < height; ++z) {
-                    List<?> entitySlotInGrid = entityGrid[(z * depth + y) * width + x];
-                    if (!entitySlotInGrid.isEmpty()) {
-                        float var13 = (z << 4) - 2;
-                        float var14 = (z + 1 << 4) + 2;
-                        if (frustum.isBoxInFrustum(var6, var9, var13, var7, var10, var14)) {
-                            float var16 = var14;
-                            float var17 = var10;
-                            float var15 = var7;
-                            var14 = var13;
-                            var13 = var9;
-                            float var18 = var6;
-                            Frustum var19 = frustum;
-                            int var20 = 0;
-
-                            boolean var10000;
-                            while (true) {
-                                if (var20 >= 6) {
-                                    var10000 = true;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
-                                        * var13 + var19.frustum[var20][2] * var14
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
-                                        * var13 + var19.frustum[var20][2] * var14
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
-                                        * var17 + var19.frustum[var20][2] * var14
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
-                                        * var17 + var19.frustum[var20][2] * var14
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
-                                        * var13 + var19.frustum[var20][2] * var16
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
-                                        * var13 + var19.frustum[var20][2] * var16
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
-                                        * var17 + var19.frustum[var20][2] * var16
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
-                                        * var17 + var19.frustum[var20][2] * var16
-                                        + var19.frustum[var20][3] <= 0F) {
-                                    var10000 = false;
-                                    break;
-                                }
-
-                                ++var20;
-                            }
+                    if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
+                            * var13 + var19.frustum[var20][2] * var14
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
+                            * var13 + var19.frustum[var20][2] * var14
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
+                            * var17 + var19.frustum[var20][2] * var14
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
 
-                            boolean var21 = var10000;
-
-                            for (Object anEntitySlotInGrid : entitySlotInGrid) {
-                                Entity var22 = (Entity) anEntitySlotInGrid;
-                                if (var22.shouldRender(playerVector)) {
-                                    if (!var21) {
-                                        AABB var24 = var22.boundingBox;
-                                        if (!frustum.isBoxInFrustum(var24.maxX, var24.maxY, var24.maxZ,
-                                                var24.minX, var24.minY, var24.minZ)) {
-                                            continue;
-                                        }
-                                    }
-
-                                    var22.render(textureManager, delta);
-                                }
+                    if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
+                            * var17 + var19.frustum[var20][2] * var14
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
+                            * var13 + var19.frustum[var20][2] * var16
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
+                            * var13 + var19.frustum[var20][2] * var16
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    if (var19.frustum[var20][0] * var18 + var19.frustum[var20][1]
+                            * var17 + var19.frustum[var20][2] * var16
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    if (var19.frustum[var20][0] * var15 + var19.frustum[var20][1]
+                            * var17 + var19.frustum[var20][2] * var16
+                            + var19.frustum[var20][3] <= 0F) {
+                        var10000 = false;
+                        break;
+                    }
+
+                    ++var20;
+                }
+
+                boolean var21 = var10000;
+
+                for (int slot = cellHeads[cell]; slot != NONE; slot = nextInCell[slot]) {
+                    Entity var22 = entities[slot];
+                    if (var22.shouldRender(playerVector)) {
+                        if (!var21) {
+                            AABB var24 = var22.boundingBox;
+                            if (!frustum.isBoxInFrustum(var24.maxX, var24.maxY, var24.maxZ,
+                                    var24.minX, var24.minY, var24.minZ)) {
+                                continue;
                             }
                         }
+
+                        var22.render(textureManager, delta);
                     }
                 }
             }
@@ -271,24 +414,55 @@ public class BlockMap implements Serializable {
     }
 
     public void tickAll() {
-        for (int var1 = 0; var1 < all.size(); ++var1) {
-            Entity var2;
-            (var2 = all.get(var1)).tick();
-            if (var2.removed) {
-                all.remove(var1--);
-                slot.init(var2.xOld, var2.yOld, var2.zOld).remove(var2);
-            } else {
-                int var3 = (int) (var2.xOld / 16F);
-                int var4 = (int) (var2.yOld / 16F);
-                int var5 = (int) (var2.zOld / 16F);
-                int var6 = (int) (var2.x / 16F);
-                int var7 = (int) (var2.y / 16F);
-                int var8 = (int) (var2.z / 16F);
-                if (var3 != var6 || var4 != var7 || var5 != var8) {
-                    moved(var2);
+        tickAll(false);
+    }
+
+    /**
+     * Ticks every entity. In parallel mode, entities that allow it (see
+     * Entity.isParallelTickSafe) are ticked on a worker pool after the rest;
+     * see ParallelEntityTicker.
+     *
+     * Entities are ticked in the order they were in when this was called, so
+     * an entity removing another (which moves a third into its slot) skips
+     * nobody. Entities removed during the pass before their turn are not
+     * ticked; entities added during it may wait until the next pass.
+     */
+    public void tickAll(boolean parallel) {
+        int total = count;
+        if (tickOrder == null || tickOrder.length < total) {
+            tickOrder = new Entity[entities.length];
+        }
+        System.arraycopy(entities, 0, tickOrder, 0, total);
+        for (int i = 0; i < total; ++i) {
+            Entity entity = tickOrder[i];
+            if (slotOf(entity) != NONE && (!parallel || !entity.isParallelTickSafe())) {
+                entity.tick();
+                afterTick(entity);
+            }
+        }
+        Arrays.fill(tickOrder, 0, total, null);
+
+        if (parallel) {
+            if (ticker == null) {
+                ticker = new ParallelEntityTicker(width, height);
+            }
+            for (int slot = 0; slot < count; ++slot) {
+                Entity entity = entities[slot];
+                if (entity.isParallelTickSafe()) {
+                    int cell = slotCells[slot];
+                    ticker.add(entity, cell % width, cell / (width * depth));
                 }
             }
+            ticker.tick(this);
         }
+    }
 
+    // Drops an entity that removed itself, or refiles it if it moved.
+    void afterTick(Entity entity) {
+        if (entity.removed) {
+            remove(entity);
+        } else {
+            moved(entity);
+        }
     }
 }
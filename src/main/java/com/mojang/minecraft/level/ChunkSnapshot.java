@@ -0,0 +1,102 @@
+package com.mojang.minecraft.level;
+
+import com.mojang.minecraft.level.tile.Block;
+import com.mojang.util.ColorCache;
+
+/**
+ * A copy of the tiles and light depths around a single 16x16x16 render chunk,
+ * including a one-block border on every side. Chunk meshes are built from
+ * snapshots on worker threads, so the live level can keep changing on the game
+ * thread while meshing is in progress.
+ *
+ * Tiles outside the copied area read as air.
+ */
+public final class ChunkSnapshot implements LevelView {
+
+    public static final int SIZE = 18;
+
+    private final int width;
+    private final int height;
+    private final int length;
+    private final ColorCache customLightColor;
+    private final ColorCache customShadowColor;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    private final byte[] tiles = new byte[SIZE * SIZE * SIZE];
+    private final int[] lightDepths = new int[SIZE * SIZE];
+
+    /**
+     * Copies the neighbourhood of the chunk whose lowest corner is at (x, y, z).
+     * Must be called on the thread that modifies the level.
+     */
+    public ChunkSnapshot(Level level, int x, int y, int z) {
+        width = level.width;
+        height = level.height;
+        length = level.length;
+        customLightColor = level.customLightColor;
+        customShadowColor = level.customShadowColor;
+        originX = x - 1;
+        originY = y - 1;
+        originZ = z - 1;
+
+        for (int dz = 0; dz < SIZE; ++dz) {
+            int lz = originZ + dz;
+            for (int dx = 0; dx < SIZE; ++dx) {
+                int lx = originX + dx;
+                if (lx >= 0 && lz >= 0 && lx < width && lz < length) {
+                    lightDepths[dz * SIZE + dx] = level.getLightDepth(lx, lz);
+                }
+                for (int dy = 0; dy < SIZE; ++dy) {
+                    tiles[(dy * SIZE + dz) * SIZE + dx] = (byte) level.getTile(lx, originY + dy, lz);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getTile(int x, int y, int z) {
+        x -= originX;
+        y -= originY;
+        z -= originZ;
+        return x >= 0 && y >= 0 && z >= 0 && x < SIZE && y < SIZE && z < SIZE
+                ? tiles[(y * SIZE + z) * SIZE + x]
+                : 0;
+    }
+
+    @Override
+    public boolean isLit(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= width || y >= height || z >= length) {
+            return true;
+        }
+        x -= originX;
+        z -= originZ;
+        return x < 0 || z < 0 || x >= SIZE || z >= SIZE || y >= lightDepths[z * SIZE + x];
+    }
+
+    @Override
+    public boolean isSolidTile(int x, int y, int z) {
+        int tile = getTile(x, y, z);
+        return tile > 0 && Block.blocks[tile].isSolid();
+    }
+
+    @Override
+    public ColorCache getBrightnessColor(int x, int y, int z) {
+        return Level.getBrightnessColor(isLit(x, y, z), customLightColor, customShadowColor);
+    }
+}
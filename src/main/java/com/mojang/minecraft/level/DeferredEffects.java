@@ -0,0 +1,44 @@
+package com.mojang.minecraft.level;
+
+import java.util.List;
+
+/**
+ * Lets code running on an entity tick worker (see ParallelEntityTicker) hand
+ * side effects that touch shared state, such as changing tiles, adding
+ * entities or playing sounds, back to the game thread. Level and
+ * ParticleManager check isDeferring() and, on a worker, queue the change
+ * instead of applying it. Queued effects run on the game thread once all
+ * workers are done, in a fixed order.
+ */
+public final class DeferredEffects {
+
+    private static final ThreadLocal<List<Runnable>> current = new ThreadLocal<>();
+
+    private DeferredEffects() {
+    }
+
+    /**
+     * Returns true if the calling thread is ticking entities in parallel, in
+     * which case side effects must be passed to defer() instead of applied.
+     */
+    public static boolean isDeferring() {
+        return current.get() != null;
+    }
+
+    /**
+     * Queues an effect to run on the game thread after the current parallel
+     * tick. Only valid while isDeferring() is true.
+     */
+    public static void defer(Runnable effect) {
+        current.get().add(effect);
+    }
+
+    // Routes effects from the calling thread into the given list until end().
+    static void begin(List<Runnable> effects) {
+        current.set(effects);
+    }
+
+    static void end() {
+        current.remove();
+    }
+}
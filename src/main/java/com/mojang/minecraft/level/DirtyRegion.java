@@ -0,0 +1,93 @@
+package com.mojang.minecraft.level;
+
+import java.util.Arrays;
+
+/**
+ * The 16x16x16 chunks that must be rebuilt after a batch of block edits.
+ * Each chunk is recorded once, however many edits touch it, so a batch
+ * costs one rebuild per chunk.
+ */
+public final class DirtyRegion {
+
+    private final int xChunks;
+    private final int yChunks;
+    private final int zChunks;
+
+    private final boolean[] chunkMarked;
+    private int[] chunks = new int[64];
+    private int chunkCount;
+
+    DirtyRegion(int width, int height, int length) {
+        xChunks = (width + 15) / 16;
+        yChunks = (height + 15) / 16;
+        zChunks = (length + 15) / 16;
+        chunkMarked = new boolean[xChunks * yChunks * zChunks];
+    }
+
+    boolean fits(int width, int height, int length) {
+        return xChunks == (width + 15) / 16 && yChunks == (height + 15) / 16
+                && zChunks == (length + 15) / 16;
+    }
+
+    /**
+     * Marks every chunk overlapping the given box of blocks, bounds inclusive,
+     * as LevelRenderer.queueChunks would.
+     */
+    void addBlocks(int x1, int y1, int z1, int x2, int y2, int z2) {
+        int cx1 = Math.max(0, x1 / 16);
+        int cy1 = Math.max(0, y1 / 16);
+        int cz1 = Math.max(0, z1 / 16);
+        int cx2 = Math.min(xChunks - 1, x2 / 16);
+        int cy2 = Math.min(yChunks - 1, y2 / 16);
+        int cz2 = Math.min(zChunks - 1, z2 / 16);
+        for (int cx = cx1; cx <= cx2; ++cx) {
+            for (int cy = cy1; cy <= cy2; ++cy) {
+                for (int cz = cz1; cz <= cz2; ++cz) {
+                    int chunk = (cz * yChunks + cy) * xChunks + cx;
+                    if (!chunkMarked[chunk]) {
+                        chunkMarked[chunk] = true;
+                        if (chunkCount == chunks.length) {
+                            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                        }
+                        chunks[chunkCount++] = chunk;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of chunks marked
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * @return the x of the ith marked chunk, in chunks
+     */
+    public int getChunkX(int i) {
+        return chunks[i] % xChunks;
+    }
+
+    /**
+     * @return the y of the ith marked chunk, in chunks
+     */
+    public int getChunkY(int i) {
+        return chunks[i] / xChunks % yChunks;
+    }
+
+    /**
+     * @return the z of the ith marked chunk, in chunks
+     */
+    public int getChunkZ(int i) {
+        return chunks[i] / xChunks / yChunks;
+    }
+
+    void clear() {
+        for (int i = 0; i < chunkCount; ++i) {
+            chunkMarked[chunks[i]] = false;
+        }
+        chunkCount = 0;
+    }
+}
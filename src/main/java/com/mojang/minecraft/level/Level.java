@@ -14,15 +14,15 @@ import com.mojang.minecraft.level.liquid.LiquidType;
 import com.mojang.minecraft.level.tile.Block;
 import com.mojang.minecraft.particle.ParticleManager;
 import com.mojang.minecraft.physics.AABB;
+import com.mojang.minecraft.physics.AABBBuffer;
 import com.mojang.minecraft.render.LevelRenderer;
 import com.mojang.minecraft.sound.AudioInfo;
 import com.mojang.minecraft.sound.EntitySoundPos;
 import com.mojang.minecraft.sound.LevelSoundPos;
 import com.mojang.util.MathHelper;
 import com.mojang.util.Vec3D;
-import java.util.ArrayDeque;
 
-public class Level implements Serializable {
+public class Level implements LevelView, Serializable {
 
     public static final int DEFAULT_CLOUD_COLOR = 16777215,
             DEFAULT_FOG_COLOR = 16777215,
@@ -61,9 +61,13 @@ public class Level implements Serializable {
     public short[] desiredSpawn;
     int unprocessed;
     private final ArrayList<LevelRenderer> listeners = new ArrayList<>();
-    private int[] blockers;
+    private transient LightHeights lightHeights;
     private int randId;
-    private final ArrayDeque<NextTickListEntry> tickList = new ArrayDeque<>();
+    private final TickScheduler tickList = new TickScheduler();
+    // Edits made while batchDepth > 0 have their chunk updates collected
+    // here, and applied once the outermost batch ends
+    private transient DirtyRegion dirtyRegion;
+    private transient int batchDepth;
     private boolean networkMode;
     private int tickCount;
 
@@ -75,7 +79,16 @@ public class Level implements Serializable {
         growTrees = false;
     }
 
-    public void addEntity(Entity entity) {
+    public void addEntity(final Entity entity) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    addEntity(entity);
+                }
+            });
+            return;
+        }
         blockMap.insert(entity);
         entity.setLevel(this);
     }
@@ -85,41 +98,66 @@ public class Level implements Serializable {
     }
 
     public void addToTickNextTick(int x, int y, int z, int tile) {
-        if (!networkMode) {
-            NextTickListEntry entry = new NextTickListEntry(x, y, z, tile);
-            if (tile > 0) {
-                z = Block.blocks[tile].getTickDelay();
-                entry.ticks = z;
+        // Updates of air or outside the level would never run
+        if (!networkMode && tile > 0 && isInBounds(x, y, z)) {
+            tickList.schedule((y * length + z) * width + x, tile, Block.blocks[tile].getTickDelay());
+        }
+    }
+
+    /**
+     * Starts a batch of block edits. Until the batch ends, the chunk updates
+     * that edits cause are collected instead of passed on per edit, so many
+     * edits to one area rebuild each chunk only once. Must be paired with
+     * endBatch; batches may nest.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0 && (dirtyRegion == null || !dirtyRegion.fits(width, height, length))) {
+            dirtyRegion = new DirtyRegion(width, height, length);
+        }
+    }
+
+    /**
+     * Ends a batch. Ending the outermost one hands all the chunks to rebuild
+     * to each listener at once.
+     */
+    public void endBatch() {
+        if (batchDepth == 1 && dirtyRegion.getChunkCount() > 0) {
+            for (LevelRenderer listener : listeners) {
+                listener.queueChunks(dirtyRegion);
             }
+            dirtyRegion.clear();
+        }
+        --batchDepth;
+    }
 
-            tickList.add(entry);
+    private void queueChunks(int x1, int y1, int z1, int x2, int y2, int z2) {
+        if (batchDepth > 0) {
+            dirtyRegion.addBlocks(x1, y1, z1, x2, y2, z2);
+        } else {
+            for (int i = 0; i < listeners.size(); ++i) {
+                listeners.get(i).queueChunks(x1, y1, z1, x2, y2, z2);
+            }
         }
     }
 
     public void calcLightDepths(int var1, int var2, int var3, int var4) {
         for (int x = var1; x < var1 + var3; ++x) {
             for (int z = var2; z < var2 + var4; ++z) {
-                int var7 = blockers[x + z * width];
-
-                int y = height - 1;
-                while (y > 0 && !isLightBlocker(x, y, z)) {
-                    --y;
-                }
-
-                blockers[x + z * width] = y;
-                if (var7 != y) {
-                    int var9 = var7 < y ? var7 : y;
-                    var7 = var7 > y ? var7 : y;
-
-                    for (y = 0; y < listeners.size(); ++y) {
-                        listeners.get(y).queueChunks(x - 1, var9 - 1, z - 1, x + 1,
-                                var7 + 1, z + 1);
-                    }
-                }
+                int old = lightHeights.recalculate(x, z);
+                lightChanged(x, z, old);
             }
         }
     }
 
+    // Rebuilds the chunks whose shadows changed when a column's light height
+    // moved from old: those between the old and new heights.
+    private void lightChanged(int x, int z, int old) {
+        int y = lightHeights.get(x, z);
+        if (old != y) {
+            queueChunks(x - 1, Math.min(old, y) - 1, z - 1, x + 1, Math.max(old, y) + 1, z + 1);
+        }
+    }
+
     public MovingObjectPosition clip(Vec3D var1, Vec3D var2) {
         if (!Float.isNaN(var1.x) && !Float.isNaN(var1.y) && !Float.isNaN(var1.z)) {
             if (!Float.isNaN(var2.x) && !Float.isNaN(var2.y) && !Float.isNaN(var2.z)) {
@@ -429,8 +467,8 @@ public class Level implements Serializable {
     public int countInstanceOf(Class<?> var1) {
         int count = 0;
 
-        for (int var3 = 0; var3 < blockMap.all.size(); ++var3) {
-            Entity var4 = blockMap.all.get(var3);
+        for (int var3 = 0; var3 < blockMap.size(); ++var3) {
+            Entity var4 = blockMap.get(var3);
             if (var1.isAssignableFrom(var4.getClass())) {
                 ++count;
             }
@@ -439,7 +477,17 @@ public class Level implements Serializable {
         return count;
     }
 
-    public void explode(Entity var1, float var2, float var3, float var4, float var5) {
+    public void explode(final Entity var1, final float var2, final float var3, final float var4,
+            final float var5) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    explode(var1, var2, var3, var4, var5);
+                }
+            });
+            return;
+        }
         int var6 = (int) (var2 - var5 - 1F);
         int var7 = (int) (var2 + var5 + 1F);
         int var8 = (int) (var3 - var5 - 1F);
@@ -523,8 +571,8 @@ public class Level implements Serializable {
     }
 
     public Entity findSubclassOf(Class<?> var1) {
-        for (int var2 = 0; var2 < blockMap.all.size(); ++var2) {
-            Entity var3 = blockMap.all.get(var2);
+        for (int var2 = 0; var2 < blockMap.size(); ++var2) {
+            Entity var3 = blockMap.get(var2);
             if (var1.isAssignableFrom(var3.getClass())) {
                 return var3;
             }
@@ -537,15 +585,22 @@ public class Level implements Serializable {
         return isLit(x, y, z) ? 1F : 0.6F;
     }
 
+    @Override
     public ColorCache getBrightnessColor(int x, int y, int z) {
-        if (isLit(x, y, z)) {
-            if (customLightColor != null) {
-                return customLightColor;
+        return getBrightnessColor(isLit(x, y, z), customLightColor, customShadowColor);
+    }
+
+    // Shared with ChunkSnapshot, which copies the custom colors.
+    static ColorCache getBrightnessColor(boolean lit, ColorCache customLight,
+            ColorCache customShadow) {
+        if (lit) {
+            if (customLight != null) {
+                return customLight;
             }
             return defaultLightColor;
         } else {
-            if (customShadowColor != null) {
-                return customShadowColor;
+            if (customShadow != null) {
+                return customShadow;
             }
             return defaultShadowColor;
         }
@@ -658,47 +713,63 @@ public class Level implements Serializable {
         }
     }
 
-    public ArrayList<AABB> getCubes(AABB var1) {
-        ArrayList<AABB> var2 = new ArrayList<>();
-        int var3 = (int) var1.maxX;
-        int var4 = (int) var1.minX + 1;
-        int var5 = (int) var1.maxY;
-        int var6 = (int) var1.minY + 1;
-        int var7 = (int) var1.maxZ;
-        int var8 = (int) var1.minZ + 1;
-        if (var1.maxX < 0F) {
-            --var3;
-        }
-
-        if (var1.maxY < 0F) {
-            --var5;
+    public ArrayList<AABB> getCubes(AABB bounds) {
+        AABBBuffer boxes = getCubes(bounds, new AABBBuffer());
+        ArrayList<AABB> cubes = new ArrayList<>(boxes.size());
+        for (int i = 0; i < boxes.size(); ++i) {
+            cubes.add(boxes.get(i));
         }
+        return cubes;
+    }
 
-        if (var1.maxZ < 0F) {
-            --var7;
-        }
-        for (; var3 < var4; ++var3) {
-            for (int var9 = var5; var9 < var6; ++var9) {
-                for (int var10 = var7; var10 < var8; ++var10) {
-                    AABB var11;
-                    if (var3 >= 0 && var9 >= 0 && var10 >= 0 && var3 < width && var9 < height
-                            && var10 < length) {
-                        Block var12 = Block.blocks[getTile(var3, var9, var10)];
-                        if (var12 != null
-                                && (var11 = var12.getCollisionBox(var3, var9, var10)) != null
-                                && var1.intersectsInner(var11)) {
-                            var2.add(var11);
+    /**
+     * Collects the collision boxes of all blocks that intersect the given
+     * bounds, replacing the contents of the given buffer. Out-of-bounds cells
+     * (other than above the map) collide like bedrock.
+     *
+     * @return The buffer, for convenience.
+     */
+    public AABBBuffer getCubes(AABB bounds, AABBBuffer boxes) {
+        boxes.clear();
+        int x0 = (int) bounds.maxX;
+        int x1 = (int) bounds.minX + 1;
+        int y0 = (int) bounds.maxY;
+        int y1 = (int) bounds.minY + 1;
+        int z0 = (int) bounds.maxZ;
+        int z1 = (int) bounds.minZ + 1;
+        if (bounds.maxX < 0F) {
+            --x0;
+        }
+
+        if (bounds.maxY < 0F) {
+            --y0;
+        }
+
+        if (bounds.maxZ < 0F) {
+            --z0;
+        }
+        for (int x = x0; x < x1; ++x) {
+            for (int y = y0; y < y1; ++y) {
+                for (int z = z0; z < z1; ++z) {
+                    Block block;
+                    if (x >= 0 && y >= 0 && z >= 0 && x < width && y < height && z < length) {
+                        block = Block.blocks[getTile(x, y, z)];
+                    } else if (x < 0 || y < 0 || z < 0 || x >= width || z >= length) {
+                        block = Block.BEDROCK;
+                    } else {
+                        continue;
+                    }
+                    if (block != null) {
+                        AABB box = boxes.add();
+                        if (!block.getCollisionBox(x, y, z, box) || !bounds.intersectsInner(box)) {
+                            boxes.removeLast();
                         }
-                    } else if ((var3 < 0 || var9 < 0 || var10 < 0 || var3 >= width || var10 >= length)
-                            && (var11 = Block.BEDROCK.getCollisionBox(var3, var9, var10)) != null
-                            && var1.intersectsInner(var11)) {
-                        var2.add(var11);
                     }
                 }
             }
         }
 
-        return var2;
+        return boxes;
     }
 
     public float getGroundLevel() {
@@ -713,6 +784,12 @@ public class Level implements Serializable {
         return y;
     }
 
+    // Returns the highest light-blocking y in the given column. Blocks at or
+    // above this height are lit.
+    int getLightDepth(int x, int z) {
+        return lightHeights.get(x, z);
+    }
+
     public LiquidType getLiquid(int x, int y, int z) {
         int blockId = getTile(x, y, z);
         return blockId == 0
@@ -724,6 +801,22 @@ public class Level implements Serializable {
         return player;
     }
 
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
     public int getTile(int x, int y, int z) {
         return x >= 0 && y >= 0 && z >= 0 && x < width && y < height && z < length
                 ? blocks[(y * length + z) * width + x]
@@ -739,9 +832,10 @@ public class Level implements Serializable {
             throw new RuntimeException("The level is corrupt!");
         } else {
             listeners.clear();
-            blockers = new int[width * length];
-            Arrays.fill(blockers, height);
-            calcLightDepths(0, 0, width, length);
+            // setData has already computed it, if nothing has changed since
+            if (lightHeights == null || !lightHeights.isFor(blocks, width, height, length)) {
+                lightHeights = new LightHeights(blocks, width, height, length);
+            }
             random = new Random();
             randId = random.nextInt();
             tickList.clear();
@@ -786,9 +880,10 @@ public class Level implements Serializable {
         return block != null && block.isOpaque();
     }
 
+    @Override
     public boolean isLit(int x, int y, int z) {
         return !(x >= 0 && y >= 0 && z >= 0 && x < width && y < height
-                && z < length) || y >= blockers[x + z * width];
+                && z < length) || y >= lightHeights.get(x, z);
     }
 
     private boolean isSolid(float x, float y, float z) {
@@ -808,6 +903,7 @@ public class Level implements Serializable {
                 || this.isSolid(x + side, y + side, z + side)));
     }
 
+    @Override
     public boolean isSolidTile(int x, int y, int z) {
         int tile = getTile(x, y, z);
         return tile > 0
@@ -915,12 +1011,8 @@ public class Level implements Serializable {
                     Block.blocks[tile].onAdded(this, x, y, z);
                 }
 
-                calcLightDepths(x, z, 1, 1);
-
-                for (tile = 0; tile < listeners.size(); ++tile) {
-                    listeners.get(tile).queueChunks(x - 1, y - 1, z - 1, x + 1,
-                            y + 1, z + 1);
-                }
+                lightChanged(x, z, lightHeights.update(x, y, z));
+                queueChunks(x - 1, y - 1, z - 1, x + 1, y + 1, z + 1);
 
                 return true;
             }
@@ -929,7 +1021,17 @@ public class Level implements Serializable {
         }
     }
 
-    public void playSound(String var1, Entity var2, float var3, float var4, boolean footStep) {
+    public void playSound(final String var1, final Entity var2, final float var3,
+            final float var4, final boolean footStep) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    playSound(var1, var2, var3, var4, footStep);
+                }
+            });
+            return;
+        }
         if (minecraft != null) {
             if (minecraft.soundPlayer == null || !minecraft.settings.sound) {
                 return;
@@ -943,7 +1045,17 @@ public class Level implements Serializable {
         }
     }
 
-    public void playSound(String var1, float x, float y, float z, float var5, float var6) {
+    public void playSound(final String var1, final float x, final float y, final float z,
+            final float var5, final float var6) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    playSound(var1, x, y, z, var5, var6);
+                }
+            });
+            return;
+        }
         if (minecraft != null) {
             if (minecraft.soundPlayer == null || !minecraft.settings.sound) {
                 return;
@@ -960,7 +1072,16 @@ public class Level implements Serializable {
         blockMap.removeAllNonCreativeModeEntities();
     }
 
-    public void removeEntity(Entity entity) {
+    public void removeEntity(final Entity entity) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    removeEntity(entity);
+                }
+            });
+            return;
+        }
         blockMap.remove(entity);
     }
 
@@ -973,9 +1094,7 @@ public class Level implements Serializable {
         this.length = length;
         this.height = height;
         blocks = blockArray;
-        blockers = new int[width * length];
-        Arrays.fill(blockers, this.height);
-        calcLightDepths(0, 0, width, length);
+        lightHeights = new LightHeights(blocks, width, height, length);
 
         for (width = 0; width < listeners.size(); ++width) {
             listeners.get(width).refresh();
@@ -998,7 +1117,16 @@ public class Level implements Serializable {
         rotSpawn = rot;
     }
 
-    public boolean setTile(int x, int y, int z, int block) {
+    public boolean setTile(final int x, final int y, final int z, final int block) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    setTile(x, y, z, block);
+                }
+            });
+            return !networkMode && getTile(x, y, z) != block;
+        }
         if (networkMode) {
             return false;
         } else if (setTileNoNeighborChange(x, y, z, block)) {
@@ -1076,25 +1204,33 @@ public class Level implements Serializable {
     }
 
     private void processTickList() {
-        // Do this every 5th tick
-        int tickListSize = tickList.size();
-
-        for (int i = 0; i < tickListSize; ++i) {
-            NextTickListEntry nextEntity = tickList.removeFirst();
-            if (nextEntity.ticks > 0) {
-                --nextEntity.ticks;
-                tickList.add(nextEntity);
-            } else {
-                byte block = blocks[(nextEntity.y * length + nextEntity.z) * width + nextEntity.x];
-                if (isInBounds(nextEntity.x, nextEntity.y, nextEntity.z) && block == nextEntity.block && block > 0) {
-                    Block.blocks[block].update(this, nextEntity.x, nextEntity.y, nextEntity.z, random);
-                }
-            }
+        // Do this every 5th tick. Flowing liquids can change thousands of
+        // blocks in one pass, so queue their chunks for rebuilding once at
+        // the end. The updates themselves, and the neighbour notifications
+        // they cause, still run one block at a time in schedule order.
+        beginBatch();
+        try {
+            tickList.runPass(this);
+        } finally {
+            endBatch();
+        }
+    }
+
+    // Called by the tick list for each update that is due.
+    void runScheduledUpdate(int index, int tile) {
+        if (blocks[index] == tile) {
+            int x = index % width;
+            int z = index / width % length;
+            int y = index / width / length;
+            Block.blocks[tile].update(this, x, y, z, random);
         }
     }
 
-    public void tickEntities() {
-        blockMap.tickAll();
+    /**
+     * @param parallel Whether to tick mobs on all cores; see BlockMap.tickAll.
+     */
+    public void tickEntities(boolean parallel) {
+        blockMap.tickAll(parallel);
     }
 
     public void updateNeighborsAt(int x, int y, int z, int side) {
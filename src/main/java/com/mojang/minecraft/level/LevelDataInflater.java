@@ -0,0 +1,186 @@
+package com.mojang.minecraft.level;
+
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses a map sent by a server piece by piece, as LEVEL_DATA packets
+ * arrive, instead of buffering the whole stream until LEVEL_FINALIZE. The
+ * stream is gzip-compressed, holding a big-endian block count followed by
+ * the blocks. Blocks are
+ * inflated straight into the array that is later handed to Level.setData.
+ *
+ * The gzip trailer is checked against the inflated bytes: their CRC-32 is
+ * kept up to date as they come in, and their count must match too.
+ */
+public final class LevelDataInflater {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+    private final Inflater inflater = new Inflater(true);
+    // Compressed bytes received before the gzip header was complete
+    private byte[] header = new byte[64];
+    private int headerLength;
+    private boolean headerDone;
+    // The block count that precedes the blocks
+    private final byte[] prefix = new byte[4];
+    private int prefixLength;
+    private byte[] blocks;
+    private int blocksLength;
+    // Checksum of every inflated byte, prefix included
+    private final CRC32 crc = new CRC32();
+    // The gzip trailer: CRC-32 then size, both little-endian
+    private final byte[] trailer = new byte[8];
+    private int trailerLength;
+    private final byte[] extra = new byte[1];
+
+    /**
+     * Consumes the next piece of the compressed stream.
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if (!headerDone) {
+            if (headerLength + length > header.length) {
+                byte[] grown = new byte[Math.max(header.length * 2, headerLength + length)];
+                System.arraycopy(header, 0, grown, 0, headerLength);
+                header = grown;
+            }
+            System.arraycopy(data, offset, header, headerLength, length);
+            headerLength += length;
+            int size = parseHeader();
+            if (size < 0) {
+                // Wait for more of the header
+                return;
+            }
+            headerDone = true;
+            data = header;
+            offset = size;
+            length = headerLength - size;
+        }
+        if (inflater.finished()) {
+            readTrailer(data, offset, length);
+            return;
+        }
+        inflater.setInput(data, offset, length);
+        inflate();
+        if (inflater.finished()) {
+            // What the deflate stream did not use starts the trailer
+            int remaining = inflater.getRemaining();
+            readTrailer(data, offset + length - remaining, remaining);
+        }
+    }
+
+    private void readTrailer(byte[] data, int offset, int length) {
+        int count = Math.min(length, trailer.length - trailerLength);
+        System.arraycopy(data, offset, trailer, trailerLength, count);
+        trailerLength += count;
+    }
+
+    private void inflate() throws IOException {
+        try {
+            while (!inflater.needsInput() && !inflater.finished()) {
+                if (prefixLength < prefix.length) {
+                    int read = inflater.inflate(prefix, prefixLength, prefix.length - prefixLength);
+                    crc.update(prefix, prefixLength, read);
+                    prefixLength += read;
+                    if (prefixLength == prefix.length) {
+                        int count = (prefix[0] & 255) << 24 | (prefix[1] & 255) << 16
+                                | (prefix[2] & 255) << 8 | prefix[3] & 255;
+                        if (count < 0) {
+                            throw new IOException("Invalid block count: " + count);
+                        }
+                        blocks = new byte[count];
+                    }
+                } else if (blocksLength < blocks.length) {
+                    int read = inflater.inflate(blocks, blocksLength, blocks.length - blocksLength);
+                    crc.update(blocks, blocksLength, read);
+                    blocksLength += read;
+                } else if (inflater.inflate(extra) > 0) {
+                    // All blocks are in; only the end of the stream may be left
+                    throw new IOException("Level data is longer than its block count");
+                }
+                if (inflater.needsDictionary()) {
+                    throw new IOException("Corrupt level data");
+                }
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt level data", ex);
+        }
+    }
+
+    // Returns the length of the gzip header at the start of the header
+    // buffer, or -1 if it has not been received in full yet.
+    private int parseHeader() throws IOException {
+        if (headerLength < 10) {
+            return -1;
+        }
+        if (((header[0] & 255) | (header[1] & 255) << 8) != GZIP_MAGIC || header[2] != 8) {
+            throw new IOException("Level data is not in gzip format");
+        }
+        int flags = header[3] & 255;
+        int pos = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (headerLength < pos + 2) {
+                return -1;
+            }
+            pos += 2 + ((header[pos] & 255) | (header[pos + 1] & 255) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipString(pos);
+        }
+        if (pos >= 0 && (flags & FCOMMENT) != 0) {
+            pos = skipString(pos);
+        }
+        if (pos >= 0 && (flags & FHCRC) != 0) {
+            pos += 2;
+        }
+        return pos < 0 || pos > headerLength ? -1 : pos;
+    }
+
+    // Skips a zero-terminated string, returning -1 if it is incomplete.
+    private int skipString(int pos) {
+        while (pos < headerLength) {
+            if (header[pos++] == 0) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finishes decompression and returns the blocks.
+     *
+     * @throws IOException If the stream ended before all blocks were received,
+     *                     or does not match its trailer.
+     */
+    public byte[] finish() throws IOException {
+        try {
+            if (blocks == null || blocksLength < blocks.length
+                    || trailerLength < trailer.length) {
+                throw new IOException("Level data ended early");
+            }
+            if (readInt(0) != (int) crc.getValue()) {
+                throw new IOException("Level data checksum mismatch");
+            }
+            if (readInt(4) != (int) inflater.getBytesWritten()) {
+                throw new IOException("Level data size mismatch");
+            }
+            return blocks;
+        } finally {
+            dispose();
+        }
+    }
+
+    // Reads a little-endian int from the trailer.
+    private int readInt(int pos) {
+        return trailer[pos] & 255 | (trailer[pos + 1] & 255) << 8
+                | (trailer[pos + 2] & 255) << 16 | (trailer[pos + 3] & 255) << 24;
+    }
+
+    // Releases the inflater's native memory; call when abandoning a download.
+    public void dispose() {
+        inflater.end();
+    }
+}
@@ -1,12 +1,9 @@
 package com.mojang.minecraft.level;
 
-import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
 
 import com.mojang.util.LogUtil;
 import com.mojang.nbt.CompressedStreamTools;
@@ -15,15 +12,6 @@ import com.mojang.minecraft.player.Player;
 
 public class LevelLoader {
 
-    // Used for received map streams from servers
-    public static byte[] decompress(InputStream input) throws IOException {
-        try (DataInputStream stream = new DataInputStream(new GZIPInputStream(input))) {
-            byte[] blockArray = new byte[stream.readInt()];
-            stream.readFully(blockArray);
-            return blockArray;
-        }
-    }
-
     public Level load(File fullFilePath, Player player) throws FileNotFoundException, IOException {
         LogUtil.logInfo("Loading level " + fullFilePath.getAbsolutePath());
         NBTTagCompound tc = CompressedStreamTools.readCompressed(new FileInputStream(fullFilePath));
@@ -0,0 +1,34 @@
+package com.mojang.minecraft.level;
+
+import com.mojang.util.ColorCache;
+
+/**
+ * Read-only access to the tiles and lighting of a level: everything block
+ * rendering needs. Implemented by Level itself, and by ChunkSnapshot so that
+ * chunks can be meshed off the game thread.
+ */
+public interface LevelView {
+
+    int getWidth();
+
+    int getHeight();
+
+    int getLength();
+
+    /**
+     * @return the tile at the given position, or 0 (air) outside the level
+     */
+    int getTile(int x, int y, int z);
+
+    /**
+     * @return whether the given position gets sunlight; true outside the level
+     */
+    boolean isLit(int x, int y, int z);
+
+    boolean isSolidTile(int x, int y, int z);
+
+    /**
+     * @return the light or shadow color at the given position
+     */
+    ColorCache getBrightnessColor(int x, int y, int z);
+}
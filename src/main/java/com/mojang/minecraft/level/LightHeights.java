@@ -0,0 +1,109 @@
+package com.mojang.minecraft.level;
+
+import com.mojang.minecraft.level.tile.Block;
+
+/**
+ * The sunlight heightmap of a level: for each column, the highest block that
+ * stops light (ignoring y = 0), or 0 if there is none. Blocks at or above
+ * that height are lit.
+ *
+ * Whether a block stops light is looked up in a table by block ID, built
+ * once, rather than through Block.blocks per cell. Heights are kept as
+ * shorts, which is enough for any level the protocol can describe.
+ */
+final class LightHeights {
+
+    private final boolean[] opaque = new boolean[256];
+    private final byte[] blocks;
+    private final int width;
+    private final int height;
+    private final int length;
+    private final short[] heights;
+
+    LightHeights(byte[] blocks, int width, int height, int length) {
+        this.blocks = blocks;
+        this.width = width;
+        this.height = height;
+        this.length = length;
+        heights = new short[width * length];
+        for (int id = 0; id < opaque.length; ++id) {
+            Block block = Block.blocks[id];
+            opaque[id] = block != null && block.isOpaque();
+        }
+        rebuild();
+    }
+
+    boolean isFor(byte[] blocks, int width, int height, int length) {
+        return this.blocks == blocks && this.width == width && this.height == height
+                && this.length == length;
+    }
+
+    int get(int x, int z) {
+        return heights[x + z * width];
+    }
+
+    // Computes every column at once, one horizontal layer at a time from the
+    // top, so the block array is read in order instead of a column at a time.
+    private void rebuild() {
+        int area = width * length;
+        int[] pending = new int[area];
+        for (int i = 0; i < area; ++i) {
+            pending[i] = i;
+        }
+        int count = area;
+        for (int y = height - 1; y > 0 && count > 0; --y) {
+            int base = y * area;
+            int kept = 0;
+            for (int i = 0; i < count; ++i) {
+                int column = pending[i];
+                if (opaque[blocks[base + column] & 255]) {
+                    heights[column] = (short) y;
+                } else {
+                    pending[kept++] = column;
+                }
+            }
+            count = kept;
+        }
+    }
+
+    // Scans the column down from the given height.
+    private int scan(int column, int fromY) {
+        int area = width * length;
+        int y = fromY;
+        while (y > 0 && !opaque[blocks[y * area + column] & 255]) {
+            --y;
+        }
+        return y;
+    }
+
+    /**
+     * Recomputes a column from the top.
+     *
+     * @return the column's height before
+     */
+    int recalculate(int x, int z) {
+        int column = x + z * width;
+        int old = heights[column];
+        heights[column] = (short) scan(column, height - 1);
+        return old;
+    }
+
+    /**
+     * Updates a column after the block at height y in it changed. Only a
+     * change at or above the current height can move it.
+     *
+     * @return the column's height before
+     */
+    int update(int x, int y, int z) {
+        int column = x + z * width;
+        int old = heights[column];
+        if (y > old) {
+            if (opaque[blocks[y * width * length + column] & 255]) {
+                heights[column] = (short) y;
+            }
+        } else if (y == old && y > 0) {
+            heights[column] = (short) scan(column, y);
+        }
+        return old;
+    }
+}
@@ -0,0 +1,181 @@
+package com.mojang.minecraft.level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.mojang.minecraft.Entity;
+
+/**
+ * Ticks entities on a fork-join pool, for BlockMap.tickAll's parallel mode.
+ *
+ * Entities are batched by the column of BlockMap cells they are in. An entity
+ * may write to the entities BlockMap.getEntities finds around it (pushing,
+ * attacking), which can be a cell beyond any cell its bounds touch. Columns
+ * are therefore ticked in phases: within a phase, columns are at least
+ * SPACING cells apart along x or z, so no two of them reach the same entity.
+ * Everything else an entity changes goes through DeferredEffects; each
+ * column collects its own effects, and they are applied on the game thread
+ * after all phases, column by column in phase order. Given the same entities, the outcome therefore
+ * does not depend on how the pool schedules the work.
+ *
+ * Not thread-safe; used only by the game thread.
+ */
+final class ParallelEntityTicker {
+
+    private static final int SPACING = 4;
+    private static final int PHASES = SPACING * SPACING;
+    // Fewer entities than this are ticked on the calling thread
+    private static final int MIN_PARALLEL_ENTITIES = 32;
+
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    private final int columnsX;
+    private final int columnsZ;
+    // Entities to tick, in the order added, with their columns
+    private Entity[] entities = new Entity[64];
+    private int[] entityColumns = new int[64];
+    private int count;
+    // The entities grouped by column, and where each column's group starts
+    private Entity[] sorted = new Entity[64];
+    private final int[] columnStarts;
+    // Non-empty columns in phase order, and where each phase starts
+    private final int[] phaseColumns;
+    private final int[] phaseStarts = new int[PHASES + 1];
+    private final List<Runnable>[] columnEffects;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ParallelEntityTicker(int columnsX, int columnsZ) {
+        this.columnsX = columnsX;
+        this.columnsZ = columnsZ;
+        int columns = columnsX * columnsZ;
+        columnStarts = new int[columns + 1];
+        phaseColumns = new int[columns];
+        columnEffects = new List[columns];
+    }
+
+    void add(Entity entity, int columnX, int columnZ) {
+        if (count == entities.length) {
+            entities = Arrays.copyOf(entities, count * 2);
+            entityColumns = Arrays.copyOf(entityColumns, count * 2);
+            sorted = new Entity[count * 2];
+        }
+        entities[count] = entity;
+        entityColumns[count] = columnZ * columnsX + columnX;
+        ++count;
+    }
+
+    /**
+     * Ticks every added entity, lets the block map file each of them, then
+     * applies the deferred effects. Clears the added entities.
+     */
+    void tick(BlockMap blockMap) {
+        try {
+            if (count < MIN_PARALLEL_ENTITIES) {
+                for (int i = 0; i < count; ++i) {
+                    entities[i].tick();
+                }
+                for (int i = 0; i < count; ++i) {
+                    blockMap.afterTick(entities[i]);
+                }
+                return;
+            }
+
+            groupByColumn();
+            for (int phase = 0; phase < PHASES; ++phase) {
+                if (phaseStarts[phase] < phaseStarts[phase + 1]) {
+                    pool.invoke(new ColumnTask(phaseStarts[phase], phaseStarts[phase + 1]));
+                }
+            }
+
+            for (int i = 0; i < count; ++i) {
+                blockMap.afterTick(entities[i]);
+            }
+            for (int i = 0; i < phaseStarts[PHASES]; ++i) {
+                List<Runnable> effects = columnEffects[phaseColumns[i]];
+                for (int j = 0; j < effects.size(); ++j) {
+                    effects.get(j).run();
+                }
+                effects.clear();
+            }
+        } finally {
+            Arrays.fill(entities, 0, count, null);
+            Arrays.fill(sorted, 0, count, null);
+            count = 0;
+        }
+    }
+
+    // Fills sorted, columnStarts, phaseColumns and phaseStarts.
+    private void groupByColumn() {
+        int columns = columnsX * columnsZ;
+        Arrays.fill(columnStarts, 0);
+        for (int i = 0; i < count; ++i) {
+            ++columnStarts[entityColumns[i]];
+        }
+        int offset = 0;
+        for (int column = 0; column < columns; ++column) {
+            int size = columnStarts[column];
+            columnStarts[column] = offset;
+            offset += size;
+        }
+        for (int i = 0; i < count; ++i) {
+            sorted[columnStarts[entityColumns[i]]++] = entities[i];
+        }
+        // Placing advanced each start to the next column's start; shift back
+        System.arraycopy(columnStarts, 0, columnStarts, 1, columns);
+        columnStarts[0] = 0;
+
+        int next = 0;
+        for (int phase = 0; phase < PHASES; ++phase) {
+            phaseStarts[phase] = next;
+            for (int z = phase / SPACING; z < columnsZ; z += SPACING) {
+                for (int x = phase % SPACING; x < columnsX; x += SPACING) {
+                    int column = z * columnsX + x;
+                    if (columnStarts[column] < columnStarts[column + 1]) {
+                        phaseColumns[next++] = column;
+                        if (columnEffects[column] == null) {
+                            columnEffects[column] = new ArrayList<>();
+                        }
+                        columnEffects[column].clear();
+                    }
+                }
+            }
+        }
+        phaseStarts[PHASES] = next;
+    }
+
+    private void tickColumn(int column) {
+        DeferredEffects.begin(columnEffects[column]);
+        try {
+            for (int i = columnStarts[column]; i < columnStarts[column + 1]; ++i) {
+                sorted[i].tick();
+            }
+        } finally {
+            DeferredEffects.end();
+        }
+    }
+
+    // Ticks the columns in a range of phaseColumns, splitting it across the pool.
+    private final class ColumnTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        ColumnTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                tickColumn(phaseColumns[from]);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ColumnTask(from, middle), new ColumnTask(middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.mojang.minecraft.level;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Scheduled block updates, kept in a hashed timing wheel. Updates are
+ * processed in passes (every 5th level tick). Each update sits in the bucket
+ * for the pass it is due on, so a pass only visits the updates due then,
+ * plus any that are a whole turn of the wheel or more away.
+ *
+ * An update is stored as its block index in the level and its block ID,
+ * packed into a long, with the pass it is due on alongside. Only one update
+ * is pending per position and block; scheduling it again before it runs
+ * does nothing. Updates due on the same pass run in the order they were
+ * scheduled.
+ */
+final class TickScheduler implements Serializable {
+
+    // Passes covered by one turn of the wheel; a power of two
+    private static final int WHEEL_SIZE = 8;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Bucket[] buckets = new Bucket[WHEEL_SIZE];
+    private final PendingSet pending = new PendingSet();
+    // Number of the pass being run, or last run
+    private int pass;
+
+    TickScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    static long key(int index, int block) {
+        return (long) index << 8 | block & 255;
+    }
+
+    /**
+     * Schedules an update of the given block at the given index, to run on
+     * the (delay + 1)th pass from now.
+     */
+    void schedule(int index, int block, int delay) {
+        long key = key(index, block);
+        if (pending.add(key)) {
+            int due = pass + 1 + delay;
+            buckets[due & WHEEL_MASK].add(key, due);
+        }
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    void clear() {
+        for (Bucket bucket : buckets) {
+            bucket.count = 0;
+        }
+        pending.clear();
+    }
+
+    /**
+     * Runs one pass: calls level.runScheduledUpdate for every update due.
+     * Updates scheduled meanwhile run on a later pass.
+     */
+    void runPass(Level level) {
+        int current = ++pass;
+        Bucket bucket = buckets[current & WHEEL_MASK];
+        int count = bucket.count;
+        int kept = 0;
+        for (int i = 0; i < count; ++i) {
+            // Read through the bucket each time; updates may grow its arrays
+            long key = bucket.keys[i];
+            int due = bucket.due[i];
+            if (due == current) {
+                pending.remove(key);
+                level.runScheduledUpdate((int) (key >>> 8), (int) key & 255);
+            } else {
+                bucket.keys[kept] = key;
+                bucket.due[kept++] = due;
+            }
+        }
+        // Close the gap before anything scheduled into this bucket meanwhile
+        int added = bucket.count - count;
+        System.arraycopy(bucket.keys, count, bucket.keys, kept, added);
+        System.arraycopy(bucket.due, count, bucket.due, kept, added);
+        bucket.count = kept + added;
+    }
+
+    // Updates in one slot of the wheel, in the order scheduled.
+    private static final class Bucket implements Serializable {
+
+        long[] keys = new long[16];
+        int[] due = new int[16];
+        int count;
+
+        void add(long key, int duePass) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                due = Arrays.copyOf(due, count * 2);
+            }
+            keys[count] = key;
+            due[count++] = duePass;
+        }
+    }
+
+    // Keys of the pending updates: an open-addressing hash set with linear
+    // probing, removing by shifting later entries back.
+    private static final class PendingSet implements Serializable {
+
+        private static final long EMPTY = -1L;
+
+        private long[] slots = newSlots(64);
+        private int size;
+
+        private static long[] newSlots(int capacity) {
+            long[] slots = new long[capacity];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ h >>> 32);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(slots, EMPTY);
+                size = 0;
+            }
+        }
+
+        // Returns false if the key was already present.
+        boolean add(long key) {
+            int mask = slots.length - 1;
+            int i = hash(key) & mask;
+            while (slots[i] != EMPTY) {
+                if (slots[i] == key) {
+                    return false;
+                }
+                i = i + 1 & mask;
+            }
+            slots[i] = key;
+            if (++size * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+            return true;
+        }
+
+        void remove(long key) {
+            int mask = slots.length - 1;
+            int i = hash(key) & mask;
+            while (slots[i] != key) {
+                if (slots[i] == EMPTY) {
+                    return;
+                }
+                i = i + 1 & mask;
+            }
+            // Shift back later entries of the run that would no longer be found
+            int gap = i;
+            int j = gap;
+            while (true) {
+                j = j + 1 & mask;
+                long next = slots[j];
+                if (next == EMPTY) {
+                    break;
+                }
+                int home = hash(next) & mask;
+                // Move next into the gap unless its home lies in (gap, j]
+                if ((j - home & mask) >= (j - gap & mask)) {
+                    slots[gap] = next;
+                    gap = j;
+                }
+            }
+            slots[gap] = EMPTY;
+            --size;
+        }
+
+        private void rehash(int capacity) {
+            long[] old = slots;
+            slots = newSlots(capacity);
+            int mask = capacity - 1;
+            for (long key : old) {
+                if (key != EMPTY) {
+                    int i = hash(key) & mask;
+                    while (slots[i] != EMPTY) {
+                        i = i + 1 & mask;
+                    }
+                    slots[i] = key;
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,13 @@ package com.mojang.minecraft.level.generator;
 
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.mojang.util.LogUtil;
 import com.mojang.minecraft.ProgressBarDisplay;
@@ -11,19 +18,58 @@ import com.mojang.minecraft.level.generator.noise.OctaveNoise;
 import com.mojang.minecraft.level.tile.Block;
 import com.mojang.util.MathHelper;
 
+/**
+ * Generates the classic terrain in stages. The stages that work column by
+ * column, or on caves and ore veins that only ever turn stone into one
+ * block, run in parallel on a fork-join pool. The rest run in order on the
+ * calling thread. Every stage draws its random numbers from its own streams
+ * derived from the seed, so a seed always gives the same level.
+ */
 public final class LevelGenerator {
 
+    // Streams of random numbers, one or more per stage; see random
+    private static final int STAGE_RAISE = 1;
+    private static final int STAGE_ERODE = 2;
+    private static final int STAGE_SOIL = 3;
+    private static final int STAGE_CARVE = 4;
+    private static final int STAGE_WATER = 5;
+    private static final int STAGE_MELT = 6;
+    private static final int STAGE_GROW = 7;
+    private static final int STAGE_FLOWERS = 8;
+    private static final int STAGE_MUSHROOMS = 9;
+    private static final int STAGE_TREES = 10;
+    // Plus the ore's number
+    private static final int STAGE_ORE = 16;
+
+    // Rows of columns per task in the column stages
+    private static final int ROWS_PER_TASK = 8;
+
+    private static final ForkJoinPool sharedPool = new ForkJoinPool();
+
     private ProgressBarDisplay progressBar;
+    private final ForkJoinPool pool;
     private int width;
     private int depth;
     private int height;
-    private Random random = new Random();
+    private long seed;
     private byte[] blocks;
+    // Height of the ground in each column
+    private int[] heights;
     private int waterLevel;
     private int[] h = new int[1048576];
 
     public LevelGenerator(ProgressBarDisplay var1) {
+        this(var1, sharedPool);
+    }
+
+    /**
+     * @param var1 Where to show progress, or null to show none.
+     * @param pool Pool to run the parallel stages on. Its size does not
+     *            change the levels generated.
+     */
+    public LevelGenerator(ProgressBarDisplay var1, ForkJoinPool pool) {
         progressBar = var1;
+        this.pool = pool;
     }
 
     private long flood(int var1, int var2, int var3, int var5) {
@@ -139,439 +185,533 @@ public final class LevelGenerator {
     }
 
     /**
-     * Generates a level
+     * Generates a level from a random seed.
+     *
+     * @see #generate(String, int, int, int, long)
+     */
+    public final Level generate(String creator, int width, int depth, int height) {
+        return generate(creator, width, depth, height, new Random().nextLong());
+    }
+
+    /**
+     * Generates a level. The same seed and size always give the same level,
+     * however many threads the pool has.
      *
      * @param creator
      * @param width
      * @param depth
-     * @param height Seems to be unused.
+     * @param height Height of the level; the water level is half of it.
+     * @param seed
      * @return
      */
-    public final Level generate(String creator, int width, int depth, int height) {
-        progressBar.setTitle("Generating level");
+    public final Level generate(String creator, int width, int depth, int height, long seed) {
+        if (progressBar != null) {
+            progressBar.setTitle("Generating level");
+        }
         this.width = width;
         this.depth = depth;
-        this.height = 64;
-        waterLevel = 32;
-        blocks = new byte[width * depth << 6];
-        progressBar.setText("Raising..");
-        CombinedNoise noise1 = new CombinedNoise(new OctaveNoise(random, 8),
+        this.height = height;
+        this.seed = seed;
+        waterLevel = height / 2;
+        blocks = new byte[width * depth * height];
+        heights = new int[width * depth];
+
+        setText("Raising..");
+        raise();
+        setText("Eroding..");
+        erode();
+        setText("Soiling..");
+        soil();
+        setText("Carving..");
+        carve();
+        populateOre(Block.COAL_ORE.id, 90, 1);
+        populateOre(Block.IRON_ORE.id, 70, 2);
+        populateOre(Block.GOLD_ORE.id, 50, 3);
+        setText("Watering..");
+        water();
+        setText("Melting..");
+        melt();
+        setText("Growing..");
+        grow();
+        setText("Planting..");
+        plantFlowers();
+        plantMushrooms();
+
+        Level level = new Level();
+        level.waterLevel = waterLevel;
+        level.setData(width, height, depth, blocks);
+        level.createTime = System.currentTimeMillis();
+        level.creator = creator;
+        level.name = "A Nice World";
+        plantTrees(level);
+        return level;
+    }
+
+    // Returns the random numbers for one stream of a stage. Every stage, and
+    // every cave or ore vein, draws from its own stream, so the result does
+    // not depend on the order in which they run.
+    private Random random(int stage, int stream) {
+        long z = seed + ((long) stage << 32 | stream & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return new Random(z ^ z >>> 31);
+    }
+
+    private void raise() {
+        Random random = random(STAGE_RAISE, 0);
+        final CombinedNoise noise1 = new CombinedNoise(new OctaveNoise(random, 8),
                 new OctaveNoise(random, 8));
-        CombinedNoise noise2 = new CombinedNoise(new OctaveNoise(random, 8),
+        final CombinedNoise noise2 = new CombinedNoise(new OctaveNoise(random, 8),
                 new OctaveNoise(random, 8));
-        OctaveNoise var8 = new OctaveNoise(random, 6);
-        int[] var9 = new int[this.width * this.depth];
-        float var10 = 1.3F;
-
-        int var11;
-        int var12;
-        for (var11 = 0; var11 < this.width; ++var11) {
-            this.setProgress(var11 * 100 / (this.width - 1));
-
-            for (var12 = 0; var12 < this.depth; ++var12) {
-                double var13 = noise1.compute(var11 * var10, var12 * var10) / 6D + -4;
-                double var15 = noise2.compute(var11 * var10, var12 * var10) / 5D + 10D + -4;
-                if (var8.compute(var11, var12) / 8D > 0D) {
-                    var15 = var13;
-                }
-
-                double var19;
-                if ((var19 = Math.max(var13, var15) / 2D) < 0D) {
-                    var19 *= 0.8D;
-                }
+        final OctaveNoise noise3 = new OctaveNoise(random, 6);
+        final float scale = 1.3F;
+        runInParallel(depth, ROWS_PER_TASK, new Stage() {
+            @Override
+            void run(int z) {
+                for (int x = 0; x < width; ++x) {
+                    double low = noise1.compute(x * scale, z * scale) / 6D + -4;
+                    double high = noise2.compute(x * scale, z * scale) / 5D + 10D + -4;
+                    if (noise3.compute(x, z) / 8D > 0D) {
+                        high = low;
+                    }
 
-                var9[var11 + var12 * this.width] = (int) var19;
-            }
-        }
+                    double y = Math.max(low, high) / 2D;
+                    if (y < 0D) {
+                        y *= 0.8D;
+                    }
 
-        progressBar.setText("Eroding..");
-        int[] var42 = var9;
-        CombinedNoise noise3 = new CombinedNoise(new OctaveNoise(random, 8), new OctaveNoise(random, 8));
-        CombinedNoise var49 = new CombinedNoise(new OctaveNoise(random, 8), new OctaveNoise(random,
-                8));
-
-        int var23;
-        int var51;
-        int var54;
-        for (var51 = 0; var51 < this.width; ++var51) {
-            if (var51 % 4 == 0) {
-                this.setProgress(var51 * 100 / (this.width - 1));
+                    heights[x + z * width] = (int) y;
+                }
             }
+        });
+    }
 
-            for (var54 = 0; var54 < this.depth; ++var54) {
-                double var21 = noise3.compute(var51 << 1, var54 << 1) / 8D;
-                var12 = var49.compute(var51 << 1, var54 << 1) > 0D ? 1 : 0;
-                if (var21 > 2D) {
-                    var23 = ((var42[var51 + var54 * this.width] - var12) / 2 << 1) + var12;
-                    var42[var51 + var54 * this.width] = var23;
+    private void erode() {
+        Random random = random(STAGE_ERODE, 0);
+        final CombinedNoise noise1 = new CombinedNoise(new OctaveNoise(random, 8),
+                new OctaveNoise(random, 8));
+        final CombinedNoise noise2 = new CombinedNoise(new OctaveNoise(random, 8),
+                new OctaveNoise(random, 8));
+        runInParallel(depth, ROWS_PER_TASK, new Stage() {
+            @Override
+            void run(int z) {
+                for (int x = 0; x < width; ++x) {
+                    double erosion = noise1.compute(x << 1, z << 1) / 8D;
+                    int odd = noise2.compute(x << 1, z << 1) > 0D ? 1 : 0;
+                    if (erosion > 2D) {
+                        int i = x + z * width;
+                        heights[i] = ((heights[i] - odd) / 2 << 1) + odd;
+                    }
                 }
             }
-        }
+        });
+    }
 
-        progressBar.setText("Soiling..");
-        var42 = var9;
-        int var46 = this.width;
-        int var48 = this.depth;
-        var51 = this.height;
-        OctaveNoise noise4 = new OctaveNoise(random, 8);
-
-        int var25;
-        int var24;
-        int var27;
-        int var26;
-        int var28;
-        for (var24 = 0; var24 < var46; ++var24) {
-            if (var24 % 4 == 0) {
-                this.setProgress(var24 * 100 / (this.width - 1));
-            }
+    private void soil() {
+        final OctaveNoise noise = new OctaveNoise(random(STAGE_SOIL, 0), 8);
+        runInParallel(depth, ROWS_PER_TASK, new Stage() {
+            @Override
+            void run(int z) {
+                for (int x = 0; x < width; ++x) {
+                    int i = x + z * width;
+                    int dirtTop = heights[i] + waterLevel;
+                    int stoneTop = dirtTop + (int) (noise.compute(x, z) / 24D) - 4;
+                    int top = Math.max(dirtTop, stoneTop);
+                    if (top > height - 2) {
+                        top = height - 2;
+                    }
+                    if (top < 1) {
+                        top = 1;
+                    }
+                    heights[i] = top;
 
-            for (var11 = 0; var11 < var48; ++var11) {
-                var12 = (int) (noise4.compute(var24, var11) / 24D) - 4;
-                var25 = (var23 = var42[var24 + var11 * var46] + this.waterLevel) + var12;
-                var42[var24 + var11 * var46] = Math.max(var23, var25);
-                if (var42[var24 + var11 * var46] > var51 - 2) {
-                    var42[var24 + var11 * var46] = var51 - 2;
-                }
+                    for (int y = 0; y < height; ++y) {
+                        int block = 0;
+                        if (y <= dirtTop) {
+                            block = Block.DIRT.id;
+                        }
 
-                if (var42[var24 + var11 * var46] < 1) {
-                    var42[var24 + var11 * var46] = 1;
-                }
+                        if (y <= stoneTop) {
+                            block = Block.STONE.id;
+                        }
 
-                for (var26 = 0; var26 < var51; ++var26) {
-                    var27 = (var26 * this.depth + var11) * this.width + var24;
-                    var28 = 0;
-                    if (var26 <= var23) {
-                        var28 = Block.DIRT.id;
-                    }
+                        if (y == 0) {
+                            block = Block.LAVA.id;
+                        }
 
-                    if (var26 <= var25) {
-                        var28 = Block.STONE.id;
+                        blocks[(y * depth + z) * width + x] = (byte) block;
                     }
+                }
+            }
+        });
+    }
 
-                    if (var26 == 0) {
-                        var28 = Block.LAVA.id;
+    // Caves only ever turn stone into air, so they can be dug in any order.
+    private void carve() {
+        int caves = width * depth * height / 256 / 64 << 1;
+        runInParallel(caves, 16, new Stage() {
+            @Override
+            void run(int cave) {
+                Random random = random(STAGE_CARVE, cave);
+                float x = random.nextFloat() * width;
+                float y = random.nextFloat() * height;
+                float z = random.nextFloat() * depth;
+                int length = (int) ((random.nextFloat() + random.nextFloat()) * 200F);
+                float yaw = random.nextFloat() * (float) Math.PI * 2F;
+                float yawChange = 0F;
+                float pitch = random.nextFloat() * (float) Math.PI * 2F;
+                float pitchChange = 0F;
+                float size = random.nextFloat() * random.nextFloat();
+
+                for (int step = 0; step < length; ++step) {
+                    x += MathHelper.sin(yaw) * MathHelper.cos(pitch);
+                    z += MathHelper.cos(yaw) * MathHelper.cos(pitch);
+                    y += MathHelper.sin(pitch);
+                    yaw += yawChange * 0.2F;
+                    yawChange = yawChange * 0.9F + (random.nextFloat() - random.nextFloat());
+                    pitch = (pitch + pitchChange * 0.5F) * 0.5F;
+                    pitchChange = pitchChange * 0.75F + (random.nextFloat() - random.nextFloat());
+                    if (random.nextFloat() >= 0.25F) {
+                        float centerX = x + (random.nextFloat() * 4F - 2F) * 0.2F;
+                        float centerY = y + (random.nextFloat() * 4F - 2F) * 0.2F;
+                        float centerZ = z + (random.nextFloat() * 4F - 2F) * 0.2F;
+                        float radius = (height - centerY) / height;
+                        radius = 1.2F + (radius * 3.5F + 1F) * size;
+                        radius = MathHelper.sin(step * (float) Math.PI / length) * radius;
+                        fillEllipsoid(centerX, centerY, centerZ, radius, (byte) 0);
                     }
-
-                    this.blocks[var27] = (byte) var28;
                 }
             }
-        }
-
-        progressBar.setText("Carving..");
-        var48 = this.width;
-        var51 = this.depth;
-        var54 = this.height;
-        var24 = var48 * var51 * var54 / 256 / 64 << 1;
+        });
+    }
 
-        for (var11 = 0; var11 < var24; ++var11) {
-            if (var11 % 4 == 0) {
-                this.setProgress(var11 * 100 / (var24 - 1) / 4);
+    // Veins only ever turn stone into the ore, so they can be placed in any
+    // order; different ores are placed one after another.
+    private void populateOre(final int ore, final int abundance, final int stream) {
+        int veins = width * depth * height / 256 / 64 * abundance / 100;
+        runInParallel(veins, 16, new Stage() {
+            @Override
+            void run(int vein) {
+                Random random = random(STAGE_ORE + stream, vein);
+                float x = random.nextFloat() * width;
+                float y = random.nextFloat() * height;
+                float z = random.nextFloat() * depth;
+                int length = (int) ((random.nextFloat() + random.nextFloat()) * 75F * abundance / 100F);
+                float yaw = random.nextFloat() * (float) Math.PI * 2F;
+                float yawChange = 0F;
+                float pitch = random.nextFloat() * (float) Math.PI * 2F;
+                float pitchChange = 0F;
+
+                for (int step = 0; step < length; ++step) {
+                    x += MathHelper.sin(yaw) * MathHelper.cos(pitch);
+                    z += MathHelper.cos(yaw) * MathHelper.cos(pitch);
+                    y += MathHelper.sin(pitch);
+                    yaw += yawChange * 0.2F;
+                    yawChange = yawChange * 0.9F + (random.nextFloat() - random.nextFloat());
+                    pitch = (pitch + pitchChange * 0.5F) * 0.5F;
+                    pitchChange = pitchChange * 0.9F + (random.nextFloat() - random.nextFloat());
+                    float radius = MathHelper.sin(step * (float) Math.PI / length) * abundance / 100F + 1F;
+                    fillEllipsoid(x, y, z, radius, (byte) ore);
+                }
             }
-            float var55 = this.random.nextFloat() * var48;
-            float var59 = this.random.nextFloat() * var54;
-            float var56 = this.random.nextFloat() * var51;
-            var26 = (int) ((this.random.nextFloat() + this.random.nextFloat()) * 200F);
-            float var61 = this.random.nextFloat() * (float) Math.PI * 2F;
-            float var64 = 0F;
-            float var29 = this.random.nextFloat() * (float) Math.PI * 2F;
-            float var30 = 0F;
-            float var31 = this.random.nextFloat() * this.random.nextFloat();
-
-            for (int var32 = 0; var32 < var26; ++var32) {
-                var55 += MathHelper.sin(var61) * MathHelper.cos(var29);
-                var56 += MathHelper.cos(var61) * MathHelper.cos(var29);
-                var59 += MathHelper.sin(var29);
-                var61 += var64 * 0.2F;
-                var64 = (var64 *= 0.9F) + (this.random.nextFloat() - this.random.nextFloat());
-                var29 = (var29 + var30 * 0.5F) * 0.5F;
-                var30 = (var30 *= 0.75F) + (this.random.nextFloat() - this.random.nextFloat());
-                if (this.random.nextFloat() >= 0.25F) {
-                    float var43 = var55 + (this.random.nextFloat() * 4F - 2F) * 0.2F;
-                    float var50 = var59 + (this.random.nextFloat() * 4F - 2F) * 0.2F;
-                    float var33 = var56 + (this.random.nextFloat() * 4F - 2F) * 0.2F;
-                    float var34 = (this.height - var50) / this.height;
-                    var34 = 1.2F + (var34 * 3.5F + 1F) * var31;
-                    var34 = MathHelper.sin(var32 * (float) Math.PI / var26) * var34;
-
-                    for (int var35 = (int) (var43 - var34); var35 <= (int) (var43 + var34); ++var35) {
-                        for (int var36 = (int) (var50 - var34); var36 <= (int) (var50 + var34); ++var36) {
-                            for (int var37 = (int) (var33 - var34); var37 <= (int) (var33 + var34); ++var37) {
-                                float var38 = var35 - var43;
-                                float var39 = var36 - var50;
-                                float var40 = var37 - var33;
-                                if (var38 * var38 + var39 * var39 * 2F + var40 * var40 < var34 * var34
-                                        && var35 >= 1
-                                        && var36 >= 1
-                                        && var37 >= 1
-                                        && var35 < this.width - 1
-                                        && var36 < this.height - 1
-                                        && var37 < this.depth - 1) {
-                                    int var66 = (var36 * this.depth + var37) * this.width + var35;
-                                    if (this.blocks[var66] == Block.STONE.id) {
-                                        this.blocks[var66] = 0;
-                                    }
-                                }
-                            }
+        });
+    }
+
+    // Replaces the stone within the given ellipsoid (squashed vertically)
+    // with block, leaving the outermost layer of the level alone.
+    private void fillEllipsoid(float centerX, float centerY, float centerZ, float radius, byte block) {
+        for (int x = (int) (centerX - radius); x <= (int) (centerX + radius); ++x) {
+            for (int y = (int) (centerY - radius); y <= (int) (centerY + radius); ++y) {
+                for (int z = (int) (centerZ - radius); z <= (int) (centerZ + radius); ++z) {
+                    float dx = x - centerX;
+                    float dy = y - centerY;
+                    float dz = z - centerZ;
+                    if (dx * dx + dy * dy * 2F + dz * dz < radius * radius
+                            && x >= 1 && y >= 1 && z >= 1
+                            && x < width - 1 && y < height - 1 && z < depth - 1) {
+                        int i = (y * depth + z) * width + x;
+                        if (blocks[i] == Block.STONE.id) {
+                            blocks[i] = block;
                         }
                     }
                 }
             }
         }
+    }
 
-        populateOre(Block.COAL_ORE.id, 90, 1, 4);
-        populateOre(Block.IRON_ORE.id, 70, 2, 4);
-        populateOre(Block.GOLD_ORE.id, 50, 3, 4);
-        progressBar.setText("Watering..");
-        var51 = Block.STATIONARY_WATER.id;
+    private void water() {
+        int water = Block.STATIONARY_WATER.id;
         setProgress(0);
 
-        for (var54 = 0; var54 < this.width; ++var54) {
-            this.flood(var54, this.height / 2 - 1, 0, var51);
-            this.flood(var54, this.height / 2 - 1, this.depth - 1, var51);
+        for (int x = 0; x < width; ++x) {
+            flood(x, height / 2 - 1, 0, water);
+            flood(x, height / 2 - 1, depth - 1, water);
         }
 
-        for (var54 = 0; var54 < this.depth; ++var54) {
-            this.flood(0, this.height / 2 - 1, var54, var51);
-            this.flood(this.width - 1, this.height / 2 - 1, var54, var51);
+        for (int z = 0; z < depth; ++z) {
+            flood(0, height / 2 - 1, z, water);
+            flood(width - 1, height / 2 - 1, z, water);
         }
 
-        var54 = this.width * this.depth / 8000;
+        Random random = random(STAGE_WATER, 0);
+        int lakes = width * depth / 8000;
 
-        for (var24 = 0; var24 < var54; ++var24) {
-            if (var24 % 100 == 0) {
-                this.setProgress(var24 * 100 / (var54 - 1));
+        for (int i = 0; i < lakes; ++i) {
+            if (i % 100 == 0) {
+                setProgress(i * 100 / Math.max(1, lakes - 1));
             }
 
-            var11 = this.random.nextInt(this.width);
-            var12 = this.waterLevel - 1 - this.random.nextInt(2);
-            var23 = this.random.nextInt(this.depth);
-            if (this.blocks[(var12 * this.depth + var23) * this.width + var11] == 0) {
-                this.flood(var11, var12, var23, var51);
+            int x = random.nextInt(width);
+            int y = waterLevel - 1 - random.nextInt(2);
+            int z = random.nextInt(depth);
+            if (blocks[(y * depth + z) * width + x] == 0) {
+                flood(x, y, z, water);
             }
         }
 
-        this.setProgress(100);
-        progressBar.setText("Melting..");
-        var46 = this.width * this.depth * this.height / 20000;
+        setProgress(100);
+    }
 
-        for (var48 = 0; var48 < var46; ++var48) {
-            if (var48 % 100 == 0) {
-                this.setProgress(var48 * 100 / (var46 - 1));
-            }
+    private void melt() {
+        Random random = random(STAGE_MELT, 0);
+        int pools = width * depth * height / 20000;
 
-            var51 = this.random.nextInt(this.width);
-            var54 = (int) (this.random.nextFloat() * this.random.nextFloat() * (this.waterLevel - 3));
-            var24 = this.random.nextInt(this.depth);
-            if (this.blocks[(var54 * this.depth + var24) * this.width + var51] == 0) {
-                this.flood(var51, var54, var24, Block.STATIONARY_LAVA.id);
+        for (int i = 0; i < pools; ++i) {
+            if (i % 100 == 0) {
+                setProgress(i * 100 / Math.max(1, pools - 1));
             }
-        }
 
-        this.setProgress(100);
-        progressBar.setText("Growing..");
-        var42 = var9;
-        var46 = this.width;
-        var48 = this.depth;
-        var51 = this.height;
-        noise4 = new OctaveNoise(random, 8);
-        OctaveNoise var58 = new OctaveNoise(random, 8);
-
-        int var63;
-        for (var11 = 0; var11 < var46; ++var11) {
-            if (var11 % 4 == 0) {
-                this.setProgress(var11 * 100 / (this.width - 1));
+            int x = random.nextInt(width);
+            int y = (int) (random.nextFloat() * random.nextFloat() * (waterLevel - 3));
+            int z = random.nextInt(depth);
+            if (blocks[(y * depth + z) * width + x] == 0) {
+                flood(x, y, z, Block.STATIONARY_LAVA.id);
             }
+        }
 
-            for (var12 = 0; var12 < var48; ++var12) {
-                boolean var60 = noise4.compute(var11, var12) > 8D;
-                boolean var57 = var58.compute(var11, var12) > 12D;
-                var27 = ((var26 = var42[var11 + var12 * var46]) * this.depth + var12) * this.width
-                        + var11;
-                if (((var28 = this.blocks[((var26 + 1) * this.depth + var12) * this.width + var11] & 255) == Block.WATER.id || var28 == Block.STATIONARY_WATER.id)
-                        && var26 <= var51 / 2 - 1 && var57) {
-                    this.blocks[var27] = (byte) Block.GRAVEL.id;
-                }
+        setProgress(100);
+    }
 
-                if (var28 == 0) {
-                    var63 = Block.GRASS.id;
-                    if (var26 <= var51 / 2 - 1 && var60) {
-                        var63 = Block.SAND.id;
+    private void grow() {
+        Random random = random(STAGE_GROW, 0);
+        final OctaveNoise sandNoise = new OctaveNoise(random, 8);
+        final OctaveNoise gravelNoise = new OctaveNoise(random, 8);
+        runInParallel(depth, ROWS_PER_TASK, new Stage() {
+            @Override
+            void run(int z) {
+                for (int x = 0; x < width; ++x) {
+                    boolean sand = sandNoise.compute(x, z) > 8D;
+                    boolean gravel = gravelNoise.compute(x, z) > 12D;
+                    int y = heights[x + z * width];
+                    int i = (y * depth + z) * width + x;
+                    int above = blocks[((y + 1) * depth + z) * width + x] & 255;
+                    if ((above == Block.WATER.id || above == Block.STATIONARY_WATER.id)
+                            && y <= height / 2 - 1 && gravel) {
+                        blocks[i] = (byte) Block.GRAVEL.id;
                     }
 
-                    this.blocks[var27] = (byte) var63;
+                    if (above == 0) {
+                        int block = Block.GRASS.id;
+                        if (y <= height / 2 - 1 && sand) {
+                            block = Block.SAND.id;
+                        }
+
+                        blocks[i] = (byte) block;
+                    }
                 }
             }
-        }
+        });
+    }
 
-        progressBar.setText("Planting..");
-        var42 = var9;
-        var46 = this.width;
-        var48 = this.width * this.depth / 3000;
+    private void plantFlowers() {
+        Random random = random(STAGE_FLOWERS, 0);
+        int patches = width * depth / 3000;
 
-        for (var51 = 0; var51 < var48; ++var51) {
-            var54 = this.random.nextInt(2);
-            if (var51 % 4 == 0) {
-                this.setProgress(var51 * 50 / (var48 - 1));
+        for (int i = 0; i < patches; ++i) {
+            int type = random.nextInt(2);
+            if (i % 4 == 0) {
+                setProgress(i * 50 / Math.max(1, patches - 1));
             }
-            var24 = this.random.nextInt(this.width);
-            var11 = this.random.nextInt(this.depth);
-
-            for (var12 = 0; var12 < 10; ++var12) {
-                var23 = var24;
-                var25 = var11;
-
-                for (var26 = 0; var26 < 5; ++var26) {
-                    var23 += this.random.nextInt(6) - this.random.nextInt(6);
-                    var25 += this.random.nextInt(6) - this.random.nextInt(6);
-                    if ((var54 < 2 || this.random.nextInt(4) == 0) && var23 >= 0 && var25 >= 0
-                            && var23 < this.width && var25 < this.depth) {
-                        var27 = var42[var23 + var25 * var46] + 1;
-                        if ((this.blocks[(var27 * this.depth + var25) * this.width + var23] & 255) == 0) {
-                            var63 = (var27 * this.depth + var25) * this.width + var23;
-                            if ((this.blocks[((var27 - 1) * this.depth + var25) * this.width
-                                    + var23] & 255) == Block.GRASS.id) {
-                                if (var54 == 0) {
-                                    this.blocks[var63] = (byte) Block.DANDELION.id;
-                                } else if (var54 == 1) {
-                                    this.blocks[var63] = (byte) Block.ROSE.id;
-                                }
+            int patchX = random.nextInt(width);
+            int patchZ = random.nextInt(depth);
+
+            for (int j = 0; j < 10; ++j) {
+                int x = patchX;
+                int z = patchZ;
+
+                for (int k = 0; k < 5; ++k) {
+                    x += random.nextInt(6) - random.nextInt(6);
+                    z += random.nextInt(6) - random.nextInt(6);
+                    if ((type < 2 || random.nextInt(4) == 0) && x >= 0 && z >= 0
+                            && x < width && z < depth) {
+                        int y = heights[x + z * width] + 1;
+                        int index = (y * depth + z) * width + x;
+                        if ((blocks[index] & 255) == 0
+                                && (blocks[((y - 1) * depth + z) * width + x] & 255) == Block.GRASS.id) {
+                            if (type == 0) {
+                                blocks[index] = (byte) Block.DANDELION.id;
+                            } else if (type == 1) {
+                                blocks[index] = (byte) Block.ROSE.id;
                             }
                         }
                     }
                 }
             }
         }
+    }
 
-        var42 = var9;
-        var46 = this.width;
-        var51 = this.width * this.depth * this.height / 2000;
+    private void plantMushrooms() {
+        Random random = random(STAGE_MUSHROOMS, 0);
+        int patches = width * depth * height / 2000;
 
-        for (var54 = 0; var54 < var51; ++var54) {
-            var24 = this.random.nextInt(2);
-            if (var51 % 4 == 0) {
-                this.setProgress(var54 * 50 / (var51 - 1) + 50);
+        for (int i = 0; i < patches; ++i) {
+            int type = random.nextInt(2);
+            if (i % 4 == 0) {
+                setProgress(i * 50 / Math.max(1, patches - 1) + 50);
             }
-            var11 = this.random.nextInt(this.width);
-            var12 = this.random.nextInt(this.height);
-            var23 = this.random.nextInt(this.depth);
-
-            for (var25 = 0; var25 < 20; ++var25) {
-                var26 = var11;
-                var27 = var12;
-                var28 = var23;
-
-                for (var63 = 0; var63 < 5; ++var63) {
-                    var26 += this.random.nextInt(6) - this.random.nextInt(6);
-                    var27 += this.random.nextInt(2) - this.random.nextInt(2);
-                    var28 += this.random.nextInt(6) - this.random.nextInt(6);
-                    if ((var24 < 2 || this.random.nextInt(4) == 0)
-                            && var26 >= 0
-                            && var28 >= 0
-                            && var27 >= 1
-                            && var26 < this.width
-                            && var28 < this.depth
-                            && var27 < var42[var26 + var28 * var46] - 1
-                            && (this.blocks[(var27 * this.depth + var28) * this.width + var26] & 255) == 0) {
-                        int var62 = (var27 * this.depth + var28) * this.width + var26;
-                        if ((this.blocks[((var27 - 1) * this.depth + var28) * this.width + var26] & 255) == Block.STONE.id) {
-                            if (var24 == 0) {
-                                this.blocks[var62] = (byte) Block.BROWN_MUSHROOM.id;
-                            } else if (var24 == 1) {
-                                this.blocks[var62] = (byte) Block.RED_MUSHROOM.id;
+            int patchX = random.nextInt(width);
+            int patchY = random.nextInt(height);
+            int patchZ = random.nextInt(depth);
+
+            for (int j = 0; j < 20; ++j) {
+                int x = patchX;
+                int y = patchY;
+                int z = patchZ;
+
+                for (int k = 0; k < 5; ++k) {
+                    x += random.nextInt(6) - random.nextInt(6);
+                    y += random.nextInt(2) - random.nextInt(2);
+                    z += random.nextInt(6) - random.nextInt(6);
+                    if ((type < 2 || random.nextInt(4) == 0)
+                            && x >= 0 && z >= 0 && y >= 1
+                            && x < width && z < depth
+                            && y < heights[x + z * width] - 1
+                            && (blocks[(y * depth + z) * width + x] & 255) == 0) {
+                        int index = (y * depth + z) * width + x;
+                        if ((blocks[((y - 1) * depth + z) * width + x] & 255) == Block.STONE.id) {
+                            if (type == 0) {
+                                blocks[index] = (byte) Block.BROWN_MUSHROOM.id;
+                            } else if (type == 1) {
+                                blocks[index] = (byte) Block.RED_MUSHROOM.id;
                             }
                         }
                     }
                 }
             }
         }
+    }
 
-        Level level = new Level();
-        level.waterLevel = waterLevel;
-        level.setData(width, 64, depth, blocks);
-        level.createTime = System.currentTimeMillis();
-        level.creator = creator;
-        level.name = "A Nice World";
-        var48 = this.width;
-        var51 = this.width * this.depth / 4000;
+    private void plantTrees(Level level) {
+        Random random = random(STAGE_TREES, 0);
+        // maybeGrowTree picks tree heights from the level's own random
+        level.random = random(STAGE_TREES, 1);
+        int forests = width * depth / 4000;
 
-        for (var54 = 0; var54 < var51; ++var54) {
-            if (var51 % 4 == 0) {
-                this.setProgress(var54 * 50 / (var51 - 1) + 50);
+        for (int i = 0; i < forests; ++i) {
+            if (i % 4 == 0) {
+                setProgress(i * 50 / Math.max(1, forests - 1) + 50);
             }
-            var24 = this.random.nextInt(this.width);
-            var11 = this.random.nextInt(this.depth);
-
-            for (var12 = 0; var12 < 20; ++var12) {
-                var23 = var24;
-                var25 = var11;
-
-                for (var26 = 0; var26 < 20; ++var26) {
-                    var23 += this.random.nextInt(6) - this.random.nextInt(6);
-                    var25 += this.random.nextInt(6) - this.random.nextInt(6);
-                    if (var23 >= 0 && var25 >= 0 && var23 < this.width && var25 < this.depth) {
-                        var27 = var9[var23 + var25 * var48] + 1;
-                        if (this.random.nextInt(4) == 0) {
-                            level.maybeGrowTree(var23, var27, var25);
+            int forestX = random.nextInt(width);
+            int forestZ = random.nextInt(depth);
+
+            for (int j = 0; j < 20; ++j) {
+                int x = forestX;
+                int z = forestZ;
+
+                for (int k = 0; k < 20; ++k) {
+                    x += random.nextInt(6) - random.nextInt(6);
+                    z += random.nextInt(6) - random.nextInt(6);
+                    if (x >= 0 && z >= 0 && x < width && z < depth) {
+                        int y = heights[x + z * width] + 1;
+                        if (random.nextInt(4) == 0) {
+                            level.maybeGrowTree(x, y, z);
                         }
                     }
                 }
             }
         }
-
-        return level;
+        level.random = new Random();
     }
 
-    private void populateOre(int var1, int var2, int var3, int var4) {
-        byte var25 = (byte) var1;
-        var4 = width;
-        int var5 = depth;
-        int var6 = height;
-        int var7 = var4 * var5 * var6 / 256 / 64 * var2 / 100;
-
-        for (int var8 = 0; var8 < var7; ++var8) {
-            setProgress(var8 * 100 / (var7 - 1) / 4 + var3 * 100 / 4);
-            float var9 = random.nextFloat() * var4;
-            float var10 = random.nextFloat() * var6;
-            float var11 = random.nextFloat() * var5;
-            int var12 = (int) ((random.nextFloat() + random.nextFloat()) * 75F * var2 / 100F);
-            float var13 = random.nextFloat() * (float) Math.PI * 2F;
-            float var14 = 0F;
-            float var15 = random.nextFloat() * (float) Math.PI * 2F;
-            float var16 = 0F;
-
-            for (int var17 = 0; var17 < var12; ++var17) {
-                var9 += MathHelper.sin(var13) * MathHelper.cos(var15);
-                var11 += MathHelper.cos(var13) * MathHelper.cos(var15);
-                var10 += MathHelper.sin(var15);
-                var13 += var14 * 0.2F;
-                var14 = (var14 *= 0.9F) + (random.nextFloat() - random.nextFloat());
-                var15 = (var15 + var16 * 0.5F) * 0.5F;
-                var16 = (var16 *= 0.9F) + (random.nextFloat() - random.nextFloat());
-                float var18 = MathHelper.sin(var17 * (float) Math.PI / var12) * var2 / 100F + 1F;
-
-                for (int var19 = (int) (var9 - var18); var19 <= (int) (var9 + var18); ++var19) {
-                    for (int var20 = (int) (var10 - var18); var20 <= (int) (var10 + var18); ++var20) {
-                        for (int var21 = (int) (var11 - var18); var21 <= (int) (var11 + var18); ++var21) {
-                            float var22 = var19 - var9;
-                            float var23 = var20 - var10;
-                            float var24 = var21 - var11;
-                            if (var22 * var22 + var23 * var23 * 2F + var24 * var24 < var18 * var18
-                                    && var19 >= 1 && var20 >= 1 && var21 >= 1 && var19 < width - 1
-                                    && var20 < height - 1 && var21 < depth - 1) {
-                                int var26 = (var20 * depth + var21) * width + var19;
-                                if (blocks[var26] == Block.STONE.id) {
-                                    blocks[var26] = var25;
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Runs stage.run for every item from 0 to count on the pool, in tasks of
+     * at most grain items, while showing its progress. Progress can only be
+     * drawn on this thread, so it waits here rather than helping the pool.
+     */
+    private void runInParallel(int count, int grain, Stage stage) {
+        if (count <= 0) {
+            return;
+        }
+        stage.done = new AtomicInteger();
+        ForkJoinTask<Void> task = pool.submit(new StageTask(stage, 0, count, grain));
+        try {
+            while (true) {
+                try {
+                    task.get(20L, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException ex) {
+                    setProgress(stage.done.get() * 100 / count);
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating level", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error generating level", ex.getCause());
+        } finally {
+            task.cancel(false);
         }
+        setProgress(100);
+    }
 
+    private void setText(String text) {
+        if (progressBar != null) {
+            progressBar.setText(text);
+        }
     }
 
     private void setProgress(int percentage) {
-        progressBar.setProgress(percentage);
+        if (progressBar != null) {
+            progressBar.setProgress(percentage);
+        }
+    }
+
+    // Work on independent items (rows of columns, caves, ore veins) that can
+    // be done on any thread, in any order.
+    private abstract static class Stage {
+
+        AtomicInteger done;
+
+        abstract void run(int item);
+    }
+
+    // Runs a range of a stage's items, splitting it across the pool.
+    private static final class StageTask extends RecursiveAction {
+
+        private final Stage stage;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        StageTask(Stage stage, int from, int to, int grain) {
+            this.stage = stage;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; ++i) {
+                    stage.run(i);
+                }
+                stage.done.addAndGet(to - from);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StageTask(stage, from, middle, grain),
+                        new StageTask(stage, middle, to, grain));
+            }
+        }
     }
 }
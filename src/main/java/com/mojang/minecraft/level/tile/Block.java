@@ -6,9 +6,9 @@ import com.mojang.util.ColorCache;
 import com.mojang.minecraft.MovingObjectPosition;
 import com.mojang.minecraft.item.Item;
 import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 import com.mojang.minecraft.level.liquid.LiquidType;
 import com.mojang.minecraft.particle.ParticleManager;
-import com.mojang.minecraft.particle.TerrainParticle;
 import com.mojang.minecraft.physics.AABB;
 import com.mojang.minecraft.render.ShapeRenderer;
 import com.mojang.minecraft.sound.StepSound;
@@ -201,7 +201,7 @@ public class Block {
         return explodes;
     }
 
-    public boolean canRenderSide(Level level, int x, int y, int z, int side) {
+    public boolean canRenderSide(LevelView level, int x, int y, int z, int side) {
         return !level.isSolidTile(x, y, z);
     }
 
@@ -315,12 +315,32 @@ public class Block {
     public void explode(Level level, int x, int y, int z) {
     }
 
-    protected ColorCache getBrightness(Level level, int x, int y, int z) {
+    protected ColorCache getBrightness(LevelView level, int x, int y, int z) {
         return level.getBrightnessColor(x, y, z);
     }
 
-    public AABB getCollisionBox(int x, int y, int z) {
-        return new AABB(x + maxX, y + maxY, z + maxZ, x + minX, y + minY, z + minZ);
+    /**
+     * Gets the light color that render() applies to a face whose neighbour is
+     * at the given position (before per-side shading).
+     */
+    public final ColorCache getFaceBrightness(LevelView level, int x, int y, int z) {
+        return getBrightness(level, x, y, z);
+    }
+
+    public final AABB getCollisionBox(int x, int y, int z) {
+        AABB box = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+        return getCollisionBox(x, y, z, box) ? box : null;
+    }
+
+    /**
+     * Writes the collision box of this block at the given position into dest,
+     * so collision checks can reuse their boxes.
+     *
+     * @return False if this block has no collision box, leaving dest untouched.
+     */
+    public boolean getCollisionBox(int x, int y, int z, AABB dest) {
+        dest.set(x + maxX, y + maxY, z + maxZ, x + minX, y + minY, z + minZ);
+        return true;
     }
 
     public int getDrop() {
@@ -380,6 +400,25 @@ public class Block {
         return true;
     }
 
+    /**
+     * Returns true if this block is an opaque cube filling its whole cell, so
+     * nothing behind it can be seen through it.
+     */
+    public boolean isFullOpaqueCube() {
+        return isCube() && isOpaque()
+                && maxX == 0F && maxY == 0F && maxZ == 0F
+                && minX == 1F && minY == 1F && minZ == 1F;
+    }
+
+    /**
+     * Returns true if this block is drawn as a plain, full-size textured cube
+     * in the opaque pass, so the greedy chunk mesher may merge its faces with
+     * those of neighbouring blocks.
+     */
+    public boolean isGreedyMeshable() {
+        return isFullOpaqueCube() && getRenderPass() == 0;
+    }
+
     public final boolean isLiquid() {
         return isLiquid;
     }
@@ -414,7 +453,7 @@ public class Block {
     public void onRemoved(Level level, int x, int y, int z) {
     }
 
-    public boolean render(Level level, int x, int y, int z, ShapeRenderer shapeRenderer) {
+    public boolean render(LevelView level, int x, int y, int z, ShapeRenderer shapeRenderer) {
         boolean rendered = false;
         float var7 = 0.5F;
         float var8 = 0.8F;
@@ -704,8 +743,7 @@ public class Block {
             var8 = x + minX + offset;
         }
 
-        particleManager.spawnParticle(new TerrainParticle(
-                level, var8, var9, var10, 0F, 0F, 0F, this).setPower(0.2F).scale(0.6F));
+        particleManager.spawnTerrainParticle(var8, var9, var10, 0F, 0F, 0F, this, 0.2F, 0.6F);
     }
 
     // TODO.
@@ -718,8 +756,8 @@ public class Block {
                     float var10 = y + (var7 + 0.5F) / 4;
                     float var11 = z + (var8 + 0.5F) / 4;
 
-                    particleManager.spawnParticle(new TerrainParticle(level, var9, var10, var11,
-                            var9 - x - 0.5F, var10 - y - 0.5F, var11 - z - 0.5F, this));
+                    particleManager.spawnTerrainParticle(var9, var10, var11,
+                            var9 - x - 0.5F, var10 - y - 0.5F, var11 - z - 0.5F, this);
                 }
             }
         }
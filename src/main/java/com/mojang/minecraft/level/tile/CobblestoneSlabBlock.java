@@ -1,6 +1,7 @@
 package com.mojang.minecraft.level.tile;
 
 import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 
 public final class CobblestoneSlabBlock extends Block {
 
@@ -16,7 +17,7 @@ public final class CobblestoneSlabBlock extends Block {
     }
 
     @Override
-    public final boolean canRenderSide(Level level, int x, int y, int z, int side) {
+    public final boolean canRenderSide(LevelView level, int x, int y, int z, int side) {
         if (this != COBBLESTONE_SLAB) {
             super.canRenderSide(level, x, y, z, side);
         }
@@ -1,7 +1,7 @@
 package com.mojang.minecraft.level.tile;
 
 import com.mojang.util.ColorCache;
-import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 import com.mojang.minecraft.physics.AABB;
 import com.mojang.minecraft.render.ShapeRenderer;
 import com.mojang.util.MathHelper;
@@ -15,13 +15,13 @@ public final class FireBlock extends Block {
     }
 
     @Override
-    protected final ColorCache getBrightness(Level level, int x, int y, int z) {
+    protected final ColorCache getBrightness(LevelView level, int x, int y, int z) {
         return new ColorCache(255F / 255F, 255F / 255F, 255F / 255F);
     }
 
     @Override
-    public AABB getCollisionBox(int x, int y, int z) {
-        return null;
+    public boolean getCollisionBox(int x, int y, int z, AABB dest) {
+        return false;
     }
 
     @Override
@@ -35,7 +35,7 @@ public final class FireBlock extends Block {
     }
 
     @Override
-    public final boolean render(Level level, int x, int y, int z, ShapeRenderer shapeRenderer) {
+    public final boolean render(LevelView level, int x, int y, int z, ShapeRenderer shapeRenderer) {
         ColorCache var6 = getBrightness(level, x, y, z);
         shapeRenderer.color(var6.R, var6.G, var6.B);
         this.render(shapeRenderer, x, y, z);
@@ -4,6 +4,7 @@ import java.util.Random;
 
 import com.mojang.util.ColorCache;
 import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 import com.mojang.minecraft.physics.AABB;
 import com.mojang.minecraft.render.ShapeRenderer;
 import com.mojang.util.MathHelper;
@@ -18,8 +19,8 @@ public class FlowerBlock extends Block {
     }
 
     @Override
-    public AABB getCollisionBox(int x, int y, int z) {
-        return null;
+    public boolean getCollisionBox(int x, int y, int z, AABB dest) {
+        return false;
     }
 
     @Override
@@ -38,7 +39,7 @@ public class FlowerBlock extends Block {
     }
 
     @Override
-    public final boolean render(Level level, int x, int y, int z, ShapeRenderer shapeRenderer) {
+    public final boolean render(LevelView level, int x, int y, int z, ShapeRenderer shapeRenderer) {
         ColorCache var6 = level.getBrightnessColor(x, y, z);
         shapeRenderer.color(var6.R, var6.G, var6.B);
         this.render(shapeRenderer, x, y, z);
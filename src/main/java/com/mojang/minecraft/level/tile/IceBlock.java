@@ -2,7 +2,7 @@ package com.mojang.minecraft.level.tile;
 
 import org.lwjgl.opengl.GL11;
 
-import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 import com.mojang.minecraft.render.ShapeRenderer;
 
 public final class IceBlock extends Block {
@@ -15,7 +15,7 @@ public final class IceBlock extends Block {
     }
 
     @Override
-    public final boolean canRenderSide(Level level, int x, int y, int z, int side) {
+    public final boolean canRenderSide(LevelView level, int x, int y, int z, int side) {
         int tile = level.getTile(x, y, z);
         return !(!showNeighborSides && tile == id) && super.canRenderSide(level, x, y, z, side);
     }
@@ -1,6 +1,6 @@
 package com.mojang.minecraft.level.tile;
 
-import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 
 public class LeavesBaseBlock extends Block {
 
@@ -11,7 +11,7 @@ public class LeavesBaseBlock extends Block {
     }
 
     @Override
-    public final boolean canRenderSide(Level level, int x, int y, int z, int side) {
+    public final boolean canRenderSide(LevelView level, int x, int y, int z, int side) {
         int var6 = level.getTile(x, y, z);
         return !(!showNeighborSides && var6 == id) && super.canRenderSide(level, x, y, z, side);
     }
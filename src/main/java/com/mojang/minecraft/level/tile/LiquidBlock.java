@@ -4,6 +4,7 @@ import java.util.Random;
 
 import com.mojang.util.ColorCache;
 import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 import com.mojang.minecraft.level.liquid.LiquidType;
 import com.mojang.minecraft.physics.AABB;
 import com.mojang.minecraft.render.ShapeRenderer;
@@ -46,12 +47,12 @@ public class LiquidBlock extends Block {
     }
 
     @Override
-    public final boolean canRenderSide(Level level, int x, int y, int z, int side) {
+    public final boolean canRenderSide(LevelView level, int x, int y, int z, int side) {
         int var6 = level.getTile(x, y, z);
 
         return
                 // Is there space to spread?
-                x >= 0 && y >= 0 && z >= 0 && x < level.width && z < level.length
+                x >= 0 && y >= 0 && z >= 0 && x < level.getWidth() && z < level.getLength()
                         // Can we move?
                         && (var6 != movingId && var6 != stillId &&
                         // Is there air around us?
@@ -80,7 +81,7 @@ public class LiquidBlock extends Block {
     }
 
     @Override
-    protected final ColorCache getBrightness(Level level, int x, int y, int z) {
+    protected final ColorCache getBrightness(LevelView level, int x, int y, int z) {
         if (type == LiquidType.lava) {
             final ColorCache c = new ColorCache(0, 0, 0);
             c.R = 100F;
@@ -93,8 +94,8 @@ public class LiquidBlock extends Block {
     }
 
     @Override
-    public AABB getCollisionBox(int x, int y, int z) {
-        return null;
+    public boolean getCollisionBox(int x, int y, int z, AABB dest) {
+        return false;
     }
 
     @Override
@@ -1,7 +1,7 @@
 package com.mojang.minecraft.level.tile;
 
 import com.mojang.util.ColorCache;
-import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 
 public final class MagmaBlock extends Block {
 
@@ -10,7 +10,7 @@ public final class MagmaBlock extends Block {
     }
 
     @Override
-    protected final ColorCache getBrightness(Level level, int x, int y, int z) {
+    protected final ColorCache getBrightness(LevelView level, int x, int y, int z) {
         return new ColorCache(255F / 255F, 255F / 255F, 255F / 255F);
     }
 }
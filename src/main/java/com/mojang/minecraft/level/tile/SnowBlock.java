@@ -1,6 +1,6 @@
 package com.mojang.minecraft.level.tile;
 
-import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.LevelView;
 import com.mojang.minecraft.physics.AABB;
 
 public final class SnowBlock extends Block {
@@ -14,7 +14,7 @@ public final class SnowBlock extends Block {
     }
 
     @Override
-    public final boolean canRenderSide(Level level, int x, int y, int z, int side) {
+    public final boolean canRenderSide(LevelView level, int x, int y, int z, int side) {
         if (this != SNOW) {
             super.canRenderSide(level, x, y, z, side);
         }
@@ -24,8 +24,8 @@ public final class SnowBlock extends Block {
     }
 
     @Override
-    public AABB getCollisionBox(int x, int y, int z) {
-        return null;
+    public boolean getCollisionBox(int x, int y, int z, AABB dest) {
+        return false;
     }
 
     @Override
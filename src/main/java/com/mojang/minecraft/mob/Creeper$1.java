@@ -3,7 +3,6 @@ package com.mojang.minecraft.mob;
 import com.mojang.minecraft.Entity;
 import com.mojang.minecraft.level.tile.Block;
 import com.mojang.minecraft.mob.ai.BasicAttackAI;
-import com.mojang.minecraft.particle.TerrainParticle;
 import com.mojang.util.MathHelper;
 
 final class Creeper$1 extends BasicAttackAI {
@@ -38,8 +37,8 @@ final class Creeper$1 extends BasicAttackAI {
             float var7 = var3 / var6 / var6;
             float var8 = var4 / var6 / var6;
             var6 = var5 / var6 / var6;
-            level.particleEngine.spawnParticle(new TerrainParticle(level, mob.x + var3, mob.y
-                    + var4, mob.z + var5, var7, var8, var6, Block.LEAVES));
+            level.particleEngine.spawnTerrainParticle(mob.x + var3, mob.y + var4, mob.z + var5,
+                    var7, var8, var6, Block.LEAVES);
         }
 
     }
@@ -150,6 +150,11 @@ public class Mob extends Entity {
         }
     }
 
+    @Override
+    public boolean isParallelTickSafe() {
+        return true;
+    }
+
     @Override
     public boolean isPickable() {
         return !removed;
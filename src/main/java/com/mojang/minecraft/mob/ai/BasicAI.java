@@ -1,12 +1,12 @@
 package com.mojang.minecraft.mob.ai;
 
-import java.util.List;
 import java.util.Random;
 
 import com.mojang.minecraft.Entity;
 import com.mojang.minecraft.HackState;
 import com.mojang.minecraft.level.Level;
 import com.mojang.minecraft.mob.Mob;
+import com.mojang.minecraft.physics.AABB;
 import com.mojang.minecraft.player.Player;
 
 public class BasicAI extends AI {
@@ -26,6 +26,8 @@ public class BasicAI extends AI {
     protected float yRotA;
     protected int attackDelay = 0;
     protected int noActionTime = 0;
+    // Reused by tick() to collect the entities the mob pushes
+    private transient Entity[] neighbours;
 
     @Override
     public void beforeRemove() {
@@ -192,13 +194,20 @@ public class BasicAI extends AI {
         yya *= 0.98F;
         yRotA *= 0.9F;
         mob.travel(xxa, yya);
-        List<Entity> neighbourEntities = level.findEntities(mob,
-                mob.boundingBox.grow(0.2F, 0F, 0.2F));
-        if (neighbourEntities != null && neighbourEntities.size() > 0) {
-            for (Entity entity : neighbourEntities) {
-                if (entity.isPushable()) {
-                    entity.push(mob);
-                }
+        if (neighbours == null) {
+            neighbours = new Entity[8];
+        }
+        AABB pushBounds = mob.boundingBox.grow(0.2F, 0F, 0.2F);
+        int neighbourCount = level.blockMap.getEntities(mob, pushBounds, neighbours);
+        if (neighbourCount > neighbours.length) {
+            neighbours = new Entity[neighbourCount * 2];
+            neighbourCount = level.blockMap.getEntities(mob, pushBounds, neighbours);
+        }
+        for (int i = 0; i < neighbourCount; ++i) {
+            Entity entity = neighbours[i];
+            neighbours[i] = null;
+            if (entity.isPushable()) {
+                entity.push(mob);
             }
         }
     }
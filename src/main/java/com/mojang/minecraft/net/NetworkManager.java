@@ -1,6 +1,5 @@
 package com.mojang.minecraft.net;
 
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -8,6 +7,7 @@ import java.util.List;
 import com.mojang.util.LogUtil;
 import com.mojang.minecraft.Minecraft;
 import com.mojang.minecraft.gui.ErrorScreen;
+import com.mojang.minecraft.level.LevelDataInflater;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -20,8 +20,11 @@ import java.util.Set;
 
 public class NetworkManager {
 
-    public static final int MAX_PACKETS_PER_TICK = 100;
+    // How long the game thread may spend handling packets per tick
+    public static final long PACKET_TIME_BUDGET_NANOS = 5000000L;
     private static final int BUFFER_SIZE = 1048576;
+    // Packets that can be received ahead of the game thread
+    private static final int QUEUE_CAPACITY = 1024;
 
     private final Set<ProtocolExtension> enabledExtensions = new HashSet<>();
 
@@ -33,8 +36,14 @@ public class NetworkManager {
     public final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
     public final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
     private final byte[] stringBytes = new byte[64];
-
-    public ByteArrayOutputStream levelData;
+    // Decodes received packets in place; see PacketHandler.handlePackets
+    final PacketReader packetReader = new PacketReader(this);
+    // Whole packets read by networkThread, waiting to be handled
+    final PacketQueue received = new PacketQueue(QUEUE_CAPACITY);
+    private NetworkThread networkThread;
+
+    // Map being downloaded, between LEVEL_INIT and LEVEL_FINALIZE
+    public LevelDataInflater levelData;
     public boolean levelLoaded = false;
     private final HashMap<Byte, NetworkPlayer> players = new HashMap<>();
 
@@ -61,7 +70,21 @@ public class NetworkManager {
          */
         in.clear();
         out.clear();
+        received.clear();
         connected = true;
+        networkThread = new NetworkThread(this, channel, received);
+        networkThread.start();
+    }
+
+    /**
+     * Throws the error that stopped the network thread, if any. Packets it
+     * received before failing are handled first.
+     */
+    void checkReceiveError() throws IOException {
+        if (networkThread != null && networkThread.getFailure() != null
+                && received.peek() == null) {
+            throw networkThread.getFailure();
+        }
     }
 
     public boolean isConnected() {
@@ -72,116 +95,131 @@ public class NetworkManager {
         connected = value;
     }
 
-    @SuppressWarnings("rawtypes")
-    public Object readObject(Class obj) {
+    // ---- Typed packet writers ---------------------------------------------------------------------
+    // Each one appends a whole packet to the out buffer. Nothing is sent until
+    // writeOut(), so all packets queued during a tick go out together.
+
+    public void sendIdentification(byte protocolVersion, String username, String verificationKey,
+            byte clientType) {
+        if (beginPacket(PacketType.IDENTIFICATION)) {
+            out.put(protocolVersion);
+            putString(username);
+            putString(verificationKey);
+            out.put(clientType);
+        }
+    }
+
+    public void sendBlockChange(int x, int y, int z, int mode, int block) {
+        if (beginPacket(PacketType.PLAYER_SET_BLOCK)) {
+            out.putShort((short) x);
+            out.putShort((short) y);
+            out.putShort((short) z);
+            out.put((byte) mode);
+            out.put((byte) block);
+        }
+    }
+
+    public void sendPositionRotation(byte playerId, short x, short y, short z, byte yaw,
+            byte pitch) {
+        if (beginPacket(PacketType.POSITION_ROTATION)) {
+            out.put(playerId);
+            out.putShort(x);
+            out.putShort(y);
+            out.putShort(z);
+            out.put(yaw);
+            out.put(pitch);
+        }
+    }
+
+    public void sendChatMessage(byte playerId, String message) {
+        if (beginPacket(PacketType.CHAT_MESSAGE)) {
+            out.put(playerId);
+            putString(message);
+        }
+    }
+
+    public void sendExtInfo(String appName, short extensionCount) {
+        if (beginPacket(PacketType.EXT_INFO)) {
+            putString(appName);
+            out.putShort(extensionCount);
+        }
+    }
+
+    public void sendExtEntry(String extName, int version) {
+        if (beginPacket(PacketType.EXT_ENTRY)) {
+            putString(extName);
+            out.putInt(version);
+        }
+    }
+
+    public void sendCustomBlockSupportLevel(byte supportLevel) {
+        if (beginPacket(PacketType.CUSTOM_BLOCK_SUPPORT_LEVEL)) {
+            out.put(supportLevel);
+        }
+    }
+
+    // Writes the opcode of a new packet, making room for the packet first if
+    // needed. Returns false if the packet should not be written.
+    private boolean beginPacket(PacketType packetType) {
         if (!connected) {
-            return null;
-        } else {
+            return false;
+        }
+        if (out.remaining() < packetType.length + 1) {
             try {
-                if (obj == Long.TYPE) {
-                    return in.getLong();
-                } else if (obj == Integer.TYPE) {
-                    return in.getInt();
-                } else if (obj == Short.TYPE) {
-                    return in.getShort();
-                } else if (obj == Byte.TYPE) {
-                    return in.get();
-                } else if (obj == Double.TYPE) {
-                    return in.getDouble();
-                } else if (obj == Float.TYPE) {
-                    return in.getFloat();
-                } else if (obj == String.class) {
-                    in.get(stringBytes);
-                    String rawStr = new String(stringBytes, StandardCharsets.US_ASCII);
-                    if (isExtEnabled(ProtocolExtension.EMOTE_FIX)) {
-                        // In EmoteFix mode: trim spaces and nulls only
-                        return trimSpacesAndNulls(rawStr);
-                    } else {
-                        // In legacy mode: trim all control characters and spaces too.
-                        return rawStr.trim();
-                    }
-                } else if (obj == byte[].class) {
-                    byte[] theBytes = new byte[1024];
-                    in.get(theBytes);
-                    return theBytes;
-                } else {
-                    return null;
-                }
-            } catch (Exception e) {
-                error(e);
-                return null;
+                writeOut();
+            } catch (IOException ex) {
+                error(ex);
+                return false;
+            }
+            if (out.remaining() < packetType.length + 1) {
+                error(new IOException("Send buffer is full"));
+                return false;
             }
         }
+        out.put(packetType.opcode);
+        return true;
     }
 
-    @SuppressWarnings("rawtypes")
-    public final void send(PacketType packetType, Object... obj) {
-        if (connected) {
-            out.put(packetType.opcode);
-
-            for (int i = 0; i < obj.length; ++i) {
-                Class packetClass = packetType.params[i];
-                Object packetObject = obj[i];
-                if (connected) {
-                    try {
-                        if (packetClass == Long.TYPE) {
-                            out.putLong((Long) packetObject);
-                        } else if (packetClass == Integer.TYPE) {
-                            out.putInt((Integer) packetObject);
-                        } else if (packetClass == Short.TYPE) {
-                            out.putShort(((Number) packetObject).shortValue());
-                        } else if (packetClass == Byte.TYPE) {
-                            out.put(((Number) packetObject).byteValue());
-                        } else if (packetClass == Double.TYPE) {
-                            out.putDouble((Double) packetObject);
-                        } else if (packetClass == Float.TYPE) {
-                            out.putFloat((Float) packetObject);
-                        } else {
-                            byte[] bytesToSend;
-                            if (packetClass != String.class) {
-                                if (packetClass == byte[].class) {
-                                    if ((bytesToSend = (byte[]) packetObject).length < 1024) {
-                                        bytesToSend = Arrays.copyOf(bytesToSend, 1024);
-                                    }
-                                    out.put(bytesToSend);
-                                }
-                            } else {
-                                bytesToSend = ((String) packetObject).getBytes("UTF-8");
-                                Arrays.fill(stringBytes, (byte) 32);
-
-                                int j;
-                                for (j = 0; j < 64 && j < bytesToSend.length; ++j) {
-                                    stringBytes[j] = bytesToSend[j];
-                                }
-
-                                for (j = bytesToSend.length; j < 64; ++j) {
-                                    stringBytes[j] = 32;
-                                }
-
-                                out.put(stringBytes);
-                            }
-                        }
-                    } catch (Exception e) {
-                        error(e);
-                    }
-                }
+    // Writes a string field: 64 bytes, padded with spaces.
+    private void putString(String value) {
+        int length = value.length();
+        int written = 0;
+        for (int i = 0; i < length && written < 64; ++i) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // Rare; encode as UTF-8 the slow way, as before
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                Arrays.fill(stringBytes, (byte) 32);
+                System.arraycopy(encoded, 0, stringBytes, 0, Math.min(encoded.length, 64));
+                out.position(out.position() - written);
+                out.put(stringBytes);
+                return;
             }
+            out.put((byte) c);
+            ++written;
+        }
+        for (; written < 64; ++written) {
+            out.put((byte) 32);
         }
     }
 
-    // Flips the buffer and writes out all pending data.
+    /**
+     * Writes out as much pending data as the socket accepts without blocking,
+     * in as few channel writes as possible. Anything left stays in the buffer
+     * for the next call.
+     */
     public void writeOut() throws IOException {
         if (out.position() > 0) {
             out.flip();
-            channel.write(out);
-            out.compact();
+            try {
+                while (out.hasRemaining() && channel.write(out) > 0) {
+                }
+            } finally {
+                out.compact();
+            }
         }
     }
 
-    public void sendBlockChange(int x, int y, int z, int mode, int block) {
-        send(PacketType.PLAYER_SET_BLOCK, x, y, z, mode, block);
-    }
-
     public void addPlayer(byte playerId, NetworkPlayer newPlayer) {
         if (newPlayer == null) {
             throw new IllegalArgumentException("newPlayer is null");
@@ -224,15 +262,15 @@ public class NetworkManager {
 
     public final void close() {
         try {
-            if (out.position() > 0) {
-                out.flip();
-                channel.write(out);
-                out.compact();
-            }
+            writeOut();
         } catch (Exception e) {
         }
 
         connected = false;
+        if (networkThread != null) {
+            networkThread.shutdown();
+            networkThread = null;
+        }
 
         try {
             channel.close();
@@ -240,10 +278,15 @@ public class NetworkManager {
         }
 
         channel = null;
+        if (levelData != null) {
+            // Abandon a map download, freeing the inflater's native memory
+            levelData.dispose();
+            levelData = null;
+        }
     }
 
     // For EmoteFix
-    private static String trimSpacesAndNulls(String value) {
+    static String trimSpacesAndNulls(String value) {
         int len = value.length();
         int st = 0;
 
@@ -1,8 +1,5 @@
 package com.mojang.minecraft.net;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import org.lwjgl.opengl.GL11;
 
 import com.mojang.minecraft.Minecraft;
@@ -13,13 +10,16 @@ import com.mojang.minecraft.render.TextureManager;
 
 public class NetworkPlayer extends HumanoidMob {
 
-    public transient List<PositionUpdate> moveQueue = new LinkedList<>();
+    // Where the server has put this player recently, replayed networkDelay behind
+    private final transient PositionBuffer positions = new PositionBuffer();
     public String name;
     public String displayName;
     private final Minecraft minecraft;
     private int xp;
     private int yp;
     private int zp;
+    private float targetXRot;
+    private float targetYRot;
 
     public NetworkPlayer(Minecraft minecraft, String displayName, int x, int y, int z,
             float xRot, float yRot) {
@@ -36,6 +36,9 @@ public class NetworkPlayer extends HumanoidMob {
         this.setPos(x / 32F, y / 32F, z / 32F);
         this.xRot = xRot;
         this.yRot = yRot;
+        targetXRot = xRot;
+        targetYRot = yRot;
+        addTarget();
         renderOffset = 0.6875F;
         allowAlpha = false;
         if (name.equalsIgnoreCase("Jonty800")
@@ -48,81 +51,41 @@ public class NetworkPlayer extends HumanoidMob {
 
     @Override
     public void aiStep() {
-        int var1 = 5;
-        if (moveQueue != null) {
-            do {
-                if (moveQueue.size() > 0) {
-                    this.setPos(moveQueue.remove(0));
-                }
-            } while (var1-- > 0 && moveQueue.size() > 10);
+        long delay = minecraft.settings.networkDelay * 1000000L;
+        if (positions.sample(System.nanoTime() - delay)) {
+            this.setPos(positions.sampleX, positions.sampleY, positions.sampleZ);
+            yRot = positions.sampleYaw;
+            xRot = positions.samplePitch;
         }
 
         onGround = true;
     }
 
     public void queue(byte x, byte y, byte z) {
-        moveQueue.add(new PositionUpdate((xp + x / 2F) / 32F, (yp + y / 2F) / 32F,
-                (zp + z / 2F) / 32F));
         xp += x;
         yp += y;
         zp += z;
-        moveQueue.add(new PositionUpdate(xp / 32F, yp / 32F, zp / 32F));
+        addTarget();
     }
 
     public void queue(byte x, byte y, byte z, float xRot, float yRot) {
-        float dyRot = yRot - this.yRot;
-        float dxRot = xRot - this.xRot;
-
-        while (dyRot >= 180F) {
-            dyRot -= 360F;
-        }
-
-        while (dyRot < -180F) {
-            dyRot += 360F;
-        }
-
-        while (dxRot >= 180F) {
-            dxRot -= 360F;
-        }
-
-        while (dxRot < -180F) {
-            dxRot += 360F;
-        }
-
-        dyRot = this.yRot + dyRot * 0.5F;
-        dxRot = this.xRot + dxRot * 0.5F;
-        moveQueue.add(new PositionUpdate((xp + x / 2F) / 32F, (yp + y / 2F) / 32F,
-                (zp + z / 2F) / 32F, dyRot, dxRot));
         xp += x;
         yp += y;
         zp += z;
-        moveQueue.add(new PositionUpdate(xp / 32F, yp / 32F, zp / 32F, yRot, xRot));
+        targetXRot = xRot;
+        targetYRot = yRot;
+        addTarget();
     }
 
     public void queue(float xRot, float yRot) {
-        float var3 = yRot - this.yRot;
-        float var4 = xRot - this.xRot;
-
-        while (var3 >= 180F) {
-            var3 -= 360F;
-        }
-
-        while (var3 < -180F) {
-            var3 += 360F;
-        }
-
-        while (var4 >= 180F) {
-            var4 -= 360F;
-        }
-
-        while (var4 < -180F) {
-            var4 += 360F;
-        }
+        targetXRot = xRot;
+        targetYRot = yRot;
+        addTarget();
+    }
 
-        var3 = this.yRot + var3 * 0.5F;
-        var4 = this.xRot + var4 * 0.5F;
-        moveQueue.add(new PositionUpdate(var3, var4));
-        moveQueue.add(new PositionUpdate(yRot, xRot));
+    // Records the current target position and rotation as of now.
+    private void addTarget() {
+        positions.add(System.nanoTime(), xp / 32F, yp / 32F, zp / 32F, targetYRot, targetXRot);
     }
 
     @Override
@@ -165,33 +128,11 @@ public class NetworkPlayer extends HumanoidMob {
     }
 
     public void teleport(short x, short y, short z, float xRot, float yRot) {
-        float var6 = yRot - this.yRot;
-        float var7 = xRot - this.xRot;
-
-        // Normalize values?
-        while (var6 >= 180F) {
-            var6 -= 360F;
-        }
-
-        while (var6 < -180F) {
-            var6 += 360F;
-        }
-
-        while (var7 >= 180F) {
-            var7 -= 360F;
-        }
-
-        while (var7 < -180F) {
-            var7 += 360F;
-        }
-
-        var6 = this.yRot + var6 * 0.5F;
-        var7 = this.xRot + var7 * 0.5F;
-        moveQueue.add(new PositionUpdate((xp + x) / 64F, (yp + y) / 64F, (zp + z) / 64F,
-                var6, var7));
         xp = x;
         yp = y;
         zp = z;
-        moveQueue.add(new PositionUpdate(xp / 32F, yp / 32F, zp / 32F, yRot, xRot));
+        targetXRot = xRot;
+        targetYRot = yRot;
+        addTarget();
     }
 }
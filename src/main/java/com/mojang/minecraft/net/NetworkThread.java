@@ -0,0 +1,109 @@
+package com.mojang.minecraft.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import com.mojang.util.LogUtil;
+
+/**
+ * Reads from the server socket as soon as data arrives, splits the stream
+ * into whole packets and hands them to the game thread through a
+ * PacketQueue. Packets are still handled on the game thread (see
+ * PacketHandler.handlePackets), so a slow frame no longer stalls the socket.
+ * When the queue is full, reading pauses until the game thread catches up.
+ */
+final class NetworkThread extends Thread {
+
+    // How long to wait before checking again whether the queue has room
+    private static final long FULL_QUEUE_WAIT = 5;
+
+    private final NetworkManager networkManager;
+    // Kept here because NetworkManager.close() clears its own reference
+    private final SocketChannel channel;
+    private final PacketQueue queue;
+    private final Selector selector;
+    private final SelectionKey key;
+    // Set if reading failed; rethrown on the game thread by NetworkManager
+    private volatile IOException failure;
+
+    NetworkThread(NetworkManager networkManager, SocketChannel channel, PacketQueue queue)
+            throws IOException {
+        super("Network-Reader");
+        setDaemon(true);
+        this.networkManager = networkManager;
+        this.channel = channel;
+        this.queue = queue;
+        selector = Selector.open();
+        key = channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    IOException getFailure() {
+        return failure;
+    }
+
+    // Stops the thread and releases the selector. Does not close the channel.
+    void shutdown() {
+        interrupt();
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer in = networkManager.in;
+        try {
+            while (networkManager.isConnected() && !isInterrupted()) {
+                // Packets left over from when the queue was last full go first
+                splitPackets(in);
+                if (queue.isFull()) {
+                    key.interestOps(0);
+                    selector.select(FULL_QUEUE_WAIT);
+                    selector.selectedKeys().clear();
+                    continue;
+                }
+
+                key.interestOps(SelectionKey.OP_READ);
+                selector.select();
+                selector.selectedKeys().clear();
+                if (channel.read(in) < 0) {
+                    throw new IOException("Connection closed by server");
+                }
+            }
+        } catch (IOException ex) {
+            if (networkManager.isConnected()) {
+                failure = ex;
+            }
+        } catch (CancelledKeyException ex) {
+            // The channel was closed under us by NetworkManager.close()
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                LogUtil.logWarning("Error closing network selector", ex);
+            }
+        }
+    }
+
+    // Moves every whole packet from the buffer to the queue, as far as it has room.
+    private void splitPackets(ByteBuffer in) throws IOException {
+        in.flip();
+        try {
+            while (in.hasRemaining()) {
+                byte packetId = in.get(in.position());
+                if (packetId < 0 || packetId > PacketType.packets.length - 1
+                        || PacketType.packets[packetId] == null) {
+                    throw new IOException("Unknown packet ID received: " + packetId);
+                }
+                int length = PacketType.packets[packetId].length + 1;
+                if (in.remaining() < length || !queue.offer(in, length)) {
+                    break;
+                }
+            }
+        } finally {
+            in.compact();
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package com.mojang.minecraft.net;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
 
@@ -21,7 +20,7 @@ import com.mojang.minecraft.SessionData;
 import com.mojang.minecraft.gui.ErrorScreen;
 import com.mojang.minecraft.gui.HUDScreen;
 import com.mojang.minecraft.level.Level;
-import com.mojang.minecraft.level.LevelLoader;
+import com.mojang.minecraft.level.LevelDataInflater;
 import com.mojang.minecraft.level.tile.Block;
 import com.mojang.minecraft.level.tile.BlockID;
 import com.mojang.minecraft.mob.HumanoidMob;
@@ -50,6 +49,9 @@ public final class PacketHandler {
     // should modify this object instead of "minecraft.level" while isLoadingLevel is true.
     private Level newLevel;
 
+    // Level whose block changes are being batched during handlePackets
+    private Level batchLevel;
+
     public PacketHandler(Minecraft minecraft) {
         this.minecraft = minecraft;
         setLoadingLevel(true);
@@ -64,48 +66,64 @@ public final class PacketHandler {
         isLoadingLevel = value;
     }
 
-    // return true if more packets should be read; return false if that's it
-    public boolean handlePacket(NetworkManager networkHandler) throws IOException {
-        networkHandler.in.flip();
-        byte packetId = networkHandler.in.get(0);
-        if (packetId < 0 || packetId > PacketType.packets.length - 1) {
-            throw new IOException("Unknown packet ID received: " + packetId);
-        }
-
-        PacketType packetType = PacketType.packets[packetId];
-        if (networkHandler.in.remaining() < packetType.length + 1) {
-            // No more packets left to read
-            networkHandler.in.compact();
-            return false;
-        }
-        networkHandler.in.get();
-        Object[] packetParams = new Object[packetType.params.length];
-
-        for (int i = 0; i < packetParams.length; ++i) {
-            packetParams[i] = networkHandler.readObject(packetType.params[i]);
+    /**
+     * Handles packets that the network thread has received, until none are
+     * left or the time budget runs out. At least one waiting packet is always
+     * handled. Packets are decoded in place in the receive queue. Block
+     * changes are applied as one batch; see Level.beginBatch.
+     *
+     * @return Number of packets handled.
+     */
+    public int handlePackets(NetworkManager networkManager, long budgetNanos) throws IOException {
+        networkManager.checkReceiveError();
+        PacketReader packet = networkManager.packetReader;
+        long deadline = System.nanoTime() + budgetNanos;
+        int handled = 0;
+        ByteBuffer buffer;
+        try {
+            while (networkManager.isConnected() && (buffer = networkManager.received.peek()) != null) {
+                try {
+                    PacketType packetType = PacketType.packets[buffer.get(0)];
+                    packet.reset(packetType, buffer, 1);
+                    if (packetType.opcode > PacketType.UPDATE_PLAYER_TYPE.opcode) {
+                        handleExtendedPacket(networkManager, packetType, packet);
+                    } else {
+                        handleStandardPacket(networkManager, packetType, packet);
+                    }
+                } finally {
+                    networkManager.received.release();
+                }
+                ++handled;
+                if (System.nanoTime() - deadline > 0) {
+                    break;
+                }
+            }
+        } finally {
+            endBlockChanges();
         }
+        return handled;
+    }
 
-        if (networkHandler.isConnected()) {
-            if (packetType.opcode > PacketType.UPDATE_PLAYER_TYPE.opcode) {
-                handleExtendedPacket(networkHandler, packetType, packetParams);
-            } else {
-                handleStandardPacket(networkHandler, packetType, packetParams);
-            }
+    // Makes sure block changes to the given level are being batched.
+    private void beginBlockChanges(Level level) {
+        if (level != batchLevel) {
+            endBlockChanges();
+            level.beginBatch();
+            batchLevel = level;
         }
+    }
 
-        if (networkHandler.isConnected()) {
-            networkHandler.in.compact();
-            return true;
-        } else {
-            // We've been disconnected!
-            return false;
+    private void endBlockChanges() {
+        if (batchLevel != null) {
+            batchLevel.endBatch();
+            batchLevel = null;
         }
     }
 
-    private void handleStandardPacket(NetworkManager networkManager, PacketType packetType, Object[] packetParams) throws IOException {
+    private void handleStandardPacket(NetworkManager networkManager, PacketType packetType, PacketReader packet) throws IOException {
         if (packetType == PacketType.IDENTIFICATION) {
-            String name = packetParams[1].toString();
-            String motd = packetParams[2].toString();
+            String name = packet.getString(1);
+            String motd = packet.getString(2);
             minecraft.progressBar.setTitle(name);
             minecraft.progressBar.setText(motd);
             // Read WoM-style hack control flags
@@ -115,23 +133,25 @@ public final class PacketHandler {
                 // Only process WoM-style "cfg" command if CPE is not enabled
                 minecraft.womConfig.readCfg(motd);
             }
-            minecraft.player.userType = (Byte) packetParams[3];
+            minecraft.player.userType = packet.getByte(3);
             setLoadingLevel(true);
             if (minecraft.womConfig.isEnabled() && minecraft.womConfig.hasKey("server.sendwomid")) {
                 String womIdCmd = "/womid ClassiCube" + Constants.CLASSICUBE_VERSION;
-                networkManager.send(PacketType.CHAT_MESSAGE, -1, womIdCmd);
+                networkManager.sendChatMessage((byte) -1, womIdCmd);
             }
 
         } else if (packetType == PacketType.LEVEL_INIT) {
             minecraft.selectionBoxes.clear();
             minecraft.setLevel(null);
-            networkManager.levelData = new ByteArrayOutputStream();
+            if (networkManager.levelData != null) {
+                networkManager.levelData.dispose();
+            }
+            networkManager.levelData = new LevelDataInflater();
             setLoadingLevel(true);
 
         } else if (packetType == PacketType.LEVEL_DATA) {
-            short chunkLength = (short) packetParams[0];
-            byte[] chunkData = (byte[]) packetParams[1];
-            byte percentComplete = (byte) packetParams[2];
+            short chunkLength = packet.getShort(0);
+            byte percentComplete = packet.getByte(2);
 
             // Update progress bar at most 10 times per second, to avoid long map load times.
             long now = System.currentTimeMillis();
@@ -141,23 +161,25 @@ public final class PacketHandler {
                 lastLevelProgress = now;
             }
 
-            networkManager.levelData.write(chunkData, 0, chunkLength);
+            if (chunkLength < 0 || chunkLength > 1024) {
+                throw new IOException("Invalid level data chunk length: " + chunkLength);
+            }
+            networkManager.levelData.write(packet.array(), packet.arrayOffset(1), chunkLength);
 
         } else if (packetType == PacketType.LEVEL_FINALIZE) {
             minecraft.progressBar.setProgress(100);
+            byte[] decompressedStream;
             try {
-                networkManager.levelData.close();
+                decompressedStream = networkManager.levelData.finish();
             } catch (IOException ex) {
                 LogUtil.logError("Error receiving level data.");
                 throw ex; // We are in an inconsistent state; abort!
+            } finally {
+                networkManager.levelData = null;
             }
-
-            byte[] decompressedStream = LevelLoader.decompress(
-                    new ByteArrayInputStream(networkManager.levelData.toByteArray()));
-            networkManager.levelData = null;
-            short xSize = (short) packetParams[0];
-            short ySize = (short) packetParams[1];
-            short zSize = (short) packetParams[2];
+            short xSize = packet.getShort(0);
+            short ySize = packet.getShort(1);
+            short zSize = packet.getShort(2);
             newLevel.setNetworkMode(true);
             newLevel.setData(xSize, ySize, zSize, decompressedStream);
             minecraft.setLevel(newLevel);
@@ -167,9 +189,12 @@ public final class PacketHandler {
 
         } else if (packetType == PacketType.BLOCK_CHANGE) {
             if (minecraft.level != null) {
+                // Servers send thousands of these for large edits, so queue
+                // chunk rebuilds once per drain rather than once per block
+                beginBlockChanges(minecraft.level);
                 minecraft.level.netSetTile(
-                        (short) packetParams[0], (short) packetParams[1],
-                        (short) packetParams[2], (byte) packetParams[3]);
+                        packet.getShort(0), packet.getShort(1),
+                        packet.getShort(2), packet.getByte(3));
             } // else: no level is loaded, ignore block change
 
         } else if (packetType == PacketType.SPAWN_PLAYER) {
@@ -177,22 +202,22 @@ public final class PacketHandler {
                 LogUtil.logWarning("Server tried to send SPAWN_PLAYER even though ExtPlayerList version 2 is in use.");
                 return;
             }
-            byte newPlayerId = (byte) packetParams[0];
-            String newPlayerName = (String) packetParams[1];
-            short newPlayerX = (short) packetParams[2];
-            short newPlayerY = (short) packetParams[3];
-            short newPlayerZ = (short) packetParams[4];
-            byte newPlayerXRot = (byte) packetParams[5];
-            byte newPlayerYRot = (byte) packetParams[6];
+            byte newPlayerId = packet.getByte(0);
+            String newPlayerName = packet.getString(1);
+            short newPlayerX = packet.getShort(2);
+            short newPlayerY = packet.getShort(3);
+            short newPlayerZ = packet.getShort(4);
+            byte newPlayerXRot = packet.getByte(5);
+            byte newPlayerYRot = packet.getByte(6);
             handleSpawnPlayer(networkManager, newPlayerName, newPlayerId, newPlayerX, newPlayerY, newPlayerZ, newPlayerXRot, newPlayerYRot);
 
         } else if (packetType == PacketType.POSITION_ROTATION) {
-            byte playerId = (byte) packetParams[0];
-            short newX = (short) packetParams[1];
-            short newY = (short) packetParams[2];
-            short newZ = (short) packetParams[3];
-            byte newXRot = (byte) packetParams[4];
-            byte newYRot = (byte) packetParams[5];
+            byte playerId = packet.getByte(0);
+            short newX = packet.getShort(1);
+            short newY = packet.getShort(2);
+            short newZ = packet.getShort(3);
+            byte newXRot = packet.getByte(4);
+            byte newYRot = packet.getByte(5);
             if (playerId < 0) {
                 // Move self
                 minecraft.player.moveTo(newX / 32F, newY / 32F, newZ / 32F,
@@ -209,12 +234,12 @@ public final class PacketHandler {
             }
 
         } else if (packetType == PacketType.POSITION_ROTATION_UPDATE) {
-            byte playerId = (byte) packetParams[0];
-            byte deltaX = (byte) packetParams[1];
-            byte deltaY = (byte) packetParams[2];
-            byte deltaZ = (byte) packetParams[3];
-            byte newXRot = (byte) packetParams[4];
-            byte newYRot = (byte) packetParams[5];
+            byte playerId = packet.getByte(0);
+            byte deltaX = packet.getByte(1);
+            byte deltaY = packet.getByte(2);
+            byte deltaZ = packet.getByte(3);
+            byte newXRot = packet.getByte(4);
+            byte newYRot = packet.getByte(5);
             if (playerId >= 0) {
                 newXRot = (byte) (newXRot + 128);
                 NetworkPlayer networkPlayerInstance = networkManager.getPlayer(playerId);
@@ -225,9 +250,9 @@ public final class PacketHandler {
             } // else: This packet cannot be applied to self, and is ignored if playerId<0
 
         } else if (packetType == PacketType.ROTATION_UPDATE) {
-            byte playerID = (byte) packetParams[0];
-            byte newXRot = (byte) packetParams[1];
-            byte newYRot = (byte) packetParams[2];
+            byte playerID = packet.getByte(0);
+            byte newXRot = packet.getByte(1);
+            byte newYRot = packet.getByte(2);
             if (playerID >= 0) {
                 newXRot = (byte) (newXRot + 128);
                 NetworkPlayer networkPlayerInstance = networkManager.getPlayer(playerID);
@@ -237,15 +262,15 @@ public final class PacketHandler {
             } // else: This packet cannot be applied to self, and is ignored if playerId<0
 
         } else if (packetType == PacketType.POSITION_UPDATE) {
-            byte playerID = (byte) packetParams[0];
+            byte playerID = packet.getByte(0);
             NetworkPlayer networkPlayerInstance = networkManager.getPlayer(playerID);
             if (playerID >= 0 && networkPlayerInstance != null) {
-                networkPlayerInstance.queue((byte) packetParams[1],
-                        (byte) packetParams[2], (byte) packetParams[3]);
+                networkPlayerInstance.queue(packet.getByte(1),
+                        packet.getByte(2), packet.getByte(3));
             } // else: This packet cannot be applied to self, and is ignored if playerId<0
 
         } else if (packetType == PacketType.DESPAWN_PLAYER) {
-            byte playerID = (byte) packetParams[0];
+            byte playerID = packet.getByte(0);
             NetworkPlayer targetPlayer = networkManager.removePlayer(playerID);
             if (playerID >= 0 && targetPlayer != null) {
                 targetPlayer.unloadSkin(minecraft.textureManager);
@@ -253,8 +278,8 @@ public final class PacketHandler {
             } // else: This packet cannot be applied to self, and is ignored if playerId<0
 
         } else if (packetType == PacketType.CHAT_MESSAGE) {
-            byte messageType = (byte) packetParams[0];
-            String message = (String) packetParams[1];
+            byte messageType = packet.getByte(0);
+            String message = packet.getString(1);
             if (messageType > 0 && networkManager.isExtEnabled(ProtocolExtension.MESSAGE_TYPES)) {
                 // MESSAGE_TYPES CPE
                 switch (messageType) {
@@ -296,29 +321,29 @@ public final class PacketHandler {
         } else if (packetType == PacketType.DISCONNECT) {
             setLoadingLevel(false); // Reset this, in case we get kicked while changing levels.
             networkManager.close();
-            minecraft.setCurrentScreen(new ErrorScreen("Connection lost", (String) packetParams[0]));
+            minecraft.setCurrentScreen(new ErrorScreen("Connection lost", packet.getString(0)));
 
         } else if (packetType == PacketType.UPDATE_PLAYER_TYPE) {
-            minecraft.player.userType = (byte) packetParams[0];
+            minecraft.player.userType = packet.getByte(0);
         }
     }
 
-    private void handleExtendedPacket(NetworkManager networkManager, PacketType packetType, Object[] packetParams) throws IOException {
+    private void handleExtendedPacket(NetworkManager networkManager, PacketType packetType, PacketReader packet) throws IOException {
         if (packetType == PacketType.EXT_INFO) {
             if (receivedExtInfo) {
                 LogUtil.logWarning("Received multiple ExtInfo packets! Only one was expected.");
             }
             receivedExtInfo = true;
-            String appName = (String) packetParams[0];
-            short extensionCount = (short) packetParams[1];
+            String appName = packet.getString(0);
+            short extensionCount = packet.getShort(1);
             LogUtil.logInfo(String.format("Connecting to AppName \"%s\" with ExtensionCount %d",
                     appName, extensionCount));
             extEntriesExpected = extensionCount;
 
         } else if (packetType == PacketType.EXT_ENTRY) {
             extEntriesReceived++;
-            String extName = (String) packetParams[0];
-            int version = (int) packetParams[1];
+            String extName = packet.getString(0);
+            int version = packet.getInt(1);
 
             if (extEntriesReceived > extEntriesExpected) {
                 LogUtil.logWarning(String.format(
@@ -338,14 +363,11 @@ public final class PacketHandler {
                     LogUtil.logInfo(String.format(
                             "Sending list of mutually-supported CPE extensions (%d)",
                             enabledExtList.length));
-                    Object[] toSendParams = new Object[]{
-                        Constants.CLIENT_NAME, (short) enabledExtList.length};
-                    networkManager.send(PacketType.EXT_INFO, toSendParams);
+                    networkManager.sendExtInfo(Constants.CLIENT_NAME, (short) enabledExtList.length);
                     for (ProtocolExtension ext : enabledExtList) {
                         LogUtil.logInfo(String.format("Sending ext: %s with version: %d",
                                 ext.name, ext.version));
-                        toSendParams = new Object[]{ext.name, ext.version};
-                        networkManager.send(PacketType.EXT_ENTRY, toSendParams);
+                        networkManager.sendExtEntry(ext.name, ext.version);
                     }
                 }
             }
@@ -355,22 +377,22 @@ public final class PacketHandler {
                 LogUtil.logWarning("Server attempted to use unsupported extension: SelectionCuboid");
             }
             Level level = minecraft.level;
-            byte selectionId = (byte) packetParams[0];
-            String selectionName = (String) packetParams[1];
+            byte selectionId = packet.getByte(0);
+            String selectionName = packet.getString(1);
             // Selection coordinates must be clamped to map boundaries.
-            int x1 = MathHelper.clamp((short) packetParams[2], 0, level.width);
-            int y1 = MathHelper.clamp((short) packetParams[3], 0, level.height);
-            int z1 = MathHelper.clamp((short) packetParams[4], 0, level.length);
+            int x1 = MathHelper.clamp(packet.getShort(2), 0, level.width);
+            int y1 = MathHelper.clamp(packet.getShort(3), 0, level.height);
+            int z1 = MathHelper.clamp(packet.getShort(4), 0, level.length);
             // Max values for coordinates may not exceed map dimensions.
             // They also cannot be lower than min values.
-            int x2 = MathHelper.clamp((short) packetParams[5], x1, level.width);
-            int y2 = MathHelper.clamp((short) packetParams[6], y1, level.height);
-            int z2 = MathHelper.clamp((short) packetParams[7], z1, level.length);
+            int x2 = MathHelper.clamp(packet.getShort(5), x1, level.width);
+            int y2 = MathHelper.clamp(packet.getShort(6), y1, level.height);
+            int z2 = MathHelper.clamp(packet.getShort(7), z1, level.length);
             // Color components must be clamped to valid range (0-255)
-            int r = MathHelper.clamp((short) packetParams[8], 0, 255);
-            int g = MathHelper.clamp((short) packetParams[9], 0, 255);
-            int b = MathHelper.clamp((short) packetParams[10], 0, 255);
-            int a = MathHelper.clamp((short) packetParams[11], 0, 255);
+            int r = MathHelper.clamp(packet.getShort(8), 0, 255);
+            int g = MathHelper.clamp(packet.getShort(9), 0, 255);
+            int b = MathHelper.clamp(packet.getShort(10), 0, 255);
+            int a = MathHelper.clamp(packet.getShort(11), 0, 255);
 
             SelectionBoxData data = new SelectionBoxData(selectionId, selectionName,
                     new ColorCache(r / 255F, g / 255F, b / 255F, a / 255F),
@@ -383,7 +405,7 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.SELECTION_CUBOID)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: SelectionCuboid");
             }
-            byte selectionId = (byte) packetParams[0];
+            byte selectionId = packet.getByte(0);
             if (minecraft.selectionBoxes.remove(selectionId) == null) {
                 LogUtil.logWarning("Attempting to remove selection with unknown id " + selectionId);
             }
@@ -392,10 +414,10 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.ENV_COLORS)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: EnvColors");
             }
-            byte envVariable = (byte) packetParams[0];
-            int r = (short) packetParams[1];
-            int g = (short) packetParams[2];
-            int b = (short) packetParams[3];
+            byte envVariable = packet.getByte(0);
+            int r = packet.getShort(1);
+            int g = packet.getShort(2);
+            int b = packet.getShort(3);
             // If R, G, or B is out-of-range, we should reset the color to default.
             boolean doReset = (r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255);
             int dec = (r & 0x0ff) << 16 | (g & 0x0ff) << 8 | b & 0x0ff;
@@ -456,10 +478,10 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.ENV_MAP_APPEARANCE)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: EnvMapAppearance");
             }
-            String textureUrl = (String) packetParams[0];
-            byte sideBlock = (byte) packetParams[1];
-            byte edgeBlock = (byte) packetParams[2];
-            short sideLevel = (short) packetParams[3];
+            String textureUrl = packet.getString(0);
+            byte sideBlock = packet.getByte(1);
+            byte edgeBlock = packet.getByte(2);
+            short sideLevel = packet.getShort(3);
             //LogUtil.logInfo("ENV_SET_MAP_APPEARANCE(" + textureUrl + "," + sideBlock + "," + edgeBlock + "," + sideLevel + ")");
 
             if (minecraft.level != null) {
@@ -522,15 +544,15 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.CLICK_DISTANCE)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: ClickDistance");
             }
-            short clickDistance = (short) packetParams[0];
+            short clickDistance = packet.getShort(0);
             minecraft.gamemode.reachDistance = clickDistance / 32;
 
         } else if (packetType == PacketType.HOLD_THIS) {
             if (!networkManager.isExtEnabled(ProtocolExtension.HELD_BLOCK)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: HeldBlock");
             }
-            byte blockToHold = (byte) packetParams[0];
-            byte preventChange = (byte) packetParams[1];
+            byte blockToHold = packet.getByte(0);
+            byte preventChange = packet.getByte(1);
             boolean canPreventChange = preventChange > 0;
 
             if (canPreventChange) {
@@ -546,10 +568,10 @@ public final class PacketHandler {
 
         } else if (packetType == PacketType.SET_TEXT_HOTKEY) {
             LogUtil.logWarning("Server attempted to use unsupported extension: TextHotKey");
-            String label = (String) packetParams[0];
-            String action = (String) packetParams[1];
-            int keyCode = (int) packetParams[2];
-            byte keyMods = (byte) packetParams[3];
+            String label = packet.getString(0);
+            String action = packet.getString(1);
+            int keyCode = packet.getInt(2);
+            byte keyMods = packet.getByte(3);
             HotKeyData data = new HotKeyData(label, action, keyCode, keyMods);
             //minecraft.hotKeys.add(data);
 
@@ -557,11 +579,11 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.EXT_PLAYER_LIST_2)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: ExtPlayerList");
             }
-            short nameId = (short) packetParams[0];
-            String playerName = (String) packetParams[1];
-            String listName = (String) packetParams[2];
-            String groupName = (String) packetParams[3];
-            byte unusedRank = (byte) packetParams[4];
+            short nameId = packet.getShort(0);
+            String playerName = packet.getString(1);
+            String listName = packet.getString(2);
+            String groupName = packet.getString(3);
+            byte unusedRank = packet.getByte(4);
 
             int playerIndex = -1;
 
@@ -586,16 +608,16 @@ public final class PacketHandler {
 
         } else if (packetType == PacketType.EXT_ADD_ENTITY) {
             LogUtil.logWarning("Server attempted to use unsupported extension: ExtPlayerList version 1");
-            byte playerID = (byte) packetParams[0];
-            String inGameName = (String) packetParams[1];
-            String skinName = (String) packetParams[2];
+            byte playerID = packet.getByte(0);
+            String inGameName = packet.getString(1);
+            String skinName = packet.getString(2);
             handleExtAddEntity(networkManager, playerID, inGameName, skinName);
 
         } else if (packetType == PacketType.EXT_REMOVE_PLAYER_NAME) {
             if (!networkManager.isExtEnabled(ProtocolExtension.EXT_PLAYER_LIST_2)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: ExtPlayerList");
             }
-            short nameID = (short) packetParams[0];
+            short nameID = packet.getShort(0);
             List<PlayerListNameData> cache = minecraft.playerListNameData;
             for (int q = 0; q < minecraft.playerListNameData.size(); q++) {
                 if (minecraft.playerListNameData.get(q).nameID == nameID) {
@@ -608,20 +630,18 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.CUSTOM_BLOCKS)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: CustomBlocks");
             }
-            byte supportLevel = (byte) packetParams[0];
+            byte supportLevel = packet.getByte(0);
             LogUtil.logInfo("Using CustomBlocks level " + supportLevel);
-            networkManager.send(
-                    PacketType.CUSTOM_BLOCK_SUPPORT_LEVEL,
-                    Constants.CUSTOM_BLOCK_SUPPORT_LEVEL);
+            networkManager.sendCustomBlockSupportLevel(Constants.CUSTOM_BLOCK_SUPPORT_LEVEL);
             SessionData.setAllowedBlocks(supportLevel);
 
         } else if (packetType == PacketType.SET_BLOCK_PERMISSIONS) {
             if (!networkManager.isExtEnabled(ProtocolExtension.BLOCK_PERMISSIONS)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: BlockPermissions");
             }
-            byte blockType = (byte) packetParams[0];
-            byte allowPlacement = (byte) packetParams[1];
-            byte allowDeletion = (byte) packetParams[2];
+            byte blockType = packet.getByte(0);
+            byte allowPlacement = packet.getByte(1);
+            byte allowDeletion = packet.getByte(2);
             Block block = Block.blocks[blockType];
             if (block == null) {
                 LogUtil.logWarning("Unknown block ID given for SetBlockPermission packet: " + blockType);
@@ -646,9 +666,9 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.CHANGE_MODEL)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: ChangeModel");
             }
-            byte playerId = (byte) packetParams[0];
+            byte playerId = packet.getByte(0);
             // Model names are case-insensitive
-            String modelName = ((String) packetParams[1]).toLowerCase();
+            String modelName = packet.getString(1).toLowerCase();
             HumanoidMob targetPlayer;
             //LogUtil.logInfo("CM: " + playerId + " " + modelName);
 
@@ -677,7 +697,7 @@ public final class PacketHandler {
             if (!networkManager.isExtEnabled(ProtocolExtension.ENV_WEATHER_TYPE)) {
                 LogUtil.logWarning("Server attempted to use unsupported extension: EnvWeatherType");
             }
-            byte weatherType = (byte) packetParams[0];
+            byte weatherType = packet.getByte(0);
             if (weatherType == 0) {
                 minecraft.isRaining = false;
                 minecraft.isSnowing = false;
@@ -700,14 +720,14 @@ public final class PacketHandler {
             // entity must not be spawned and existing entity's position must not be changed.
             // Instead their InGameName and SkinName must be updated. If a negative EntityID is
             // given for ExtAddEntity2, client must update player's own spawn point, InGameName, and SkinName."
-            byte playerID = (byte) packetParams[0];
-            String inGameName = (String) packetParams[1];
-            String skinName = (String) packetParams[2];
-            short spawnX = (short) packetParams[3];
-            short spawnY = (short) packetParams[4];
-            short spawnZ = (short) packetParams[5];
-            byte spawnYaw = (byte) packetParams[6];
-            byte spawnPitch = (byte) packetParams[7];
+            byte playerID = packet.getByte(0);
+            String inGameName = packet.getString(1);
+            String skinName = packet.getString(2);
+            short spawnX = packet.getShort(3);
+            short spawnY = packet.getShort(4);
+            short spawnZ = packet.getShort(5);
+            byte spawnYaw = packet.getByte(6);
+            byte spawnPitch = packet.getByte(7);
             //LogUtil.logInfo("EAE2: " + playerID + " " + inGameName + " " + skinName);
 
             if (playerID < 0 || networkManager.getPlayer(playerID) == null) {
@@ -0,0 +1,87 @@
+package com.mojang.minecraft.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer, single-consumer queue of whole packets, handed
+ * from NetworkThread to the game thread without locks. Every slot is a
+ * preallocated buffer big enough for the largest packet, so nothing is
+ * allocated per packet. The producer copies a packet into the tail slot and
+ * then publishes it; the consumer reads the head slot in place and then
+ * releases it.
+ */
+final class PacketQueue {
+
+    private final ByteBuffer[] slots;
+    private final int mask;
+    // Next slot to read; written only by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write; written only by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity Number of slots; rounded up to a power of two.
+     */
+    PacketQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new ByteBuffer[size];
+        for (int i = 0; i < size; ++i) {
+            slots[i] = ByteBuffer.allocate(PacketType.MAX_LENGTH + 1);
+        }
+        mask = size - 1;
+    }
+
+    // Producer side
+
+    boolean isFull() {
+        return tail.get() - head.get() == slots.length;
+    }
+
+    /**
+     * Copies a packet of the given length from src's position into the queue,
+     * advancing src past it.
+     *
+     * @return False if the queue is full, in which case src is not touched.
+     */
+    boolean offer(ByteBuffer src, int length) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) {
+            return false;
+        }
+        ByteBuffer slot = slots[(int) t & mask];
+        slot.clear();
+        int limit = src.limit();
+        src.limit(src.position() + length);
+        slot.put(src);
+        src.limit(limit);
+        slot.flip();
+        // Ordered store: the slot's contents become visible before the new tail
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Consumer side
+
+    /**
+     * @return The oldest packet, opcode first, or null if the queue is empty.
+     *         The buffer stays valid until release() is called.
+     */
+    ByteBuffer peek() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        return slots[(int) h & mask];
+    }
+
+    // Frees the slot returned by the last peek().
+    void release() {
+        head.lazySet(head.get() + 1);
+    }
+
+    // Drops all queued packets. Only safe once the producer has stopped.
+    void clear() {
+        head.set(tail.get());
+    }
+}
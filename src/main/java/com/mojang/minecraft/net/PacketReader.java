@@ -0,0 +1,67 @@
+package com.mojang.minecraft.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the fields of one received packet straight out of the buffer holding
+ * it, without copying or boxing them. Fields are addressed by their index in
+ * PacketType.params, so handlers may read them in any order, or not at all.
+ * PacketHandler points a single instance at each packet in turn.
+ */
+final class PacketReader {
+
+    private final NetworkManager networkManager;
+    private PacketType type;
+    private ByteBuffer buffer;
+    // Absolute position in the buffer of the packet's first field
+    private int start;
+
+    PacketReader(NetworkManager networkManager) {
+        this.networkManager = networkManager;
+    }
+
+    void reset(PacketType type, ByteBuffer buffer, int start) {
+        this.type = type;
+        this.buffer = buffer;
+        this.start = start;
+    }
+
+    private int offsetOf(int field) {
+        return start + type.offsets[field];
+    }
+
+    byte getByte(int field) {
+        return buffer.get(offsetOf(field));
+    }
+
+    short getShort(int field) {
+        return buffer.getShort(offsetOf(field));
+    }
+
+    int getInt(int field) {
+        return buffer.getInt(offsetOf(field));
+    }
+
+    String getString(int field) {
+        String rawStr = new String(buffer.array(), buffer.arrayOffset() + offsetOf(field), 64,
+                StandardCharsets.US_ASCII);
+        if (networkManager.isExtEnabled(ProtocolExtension.EMOTE_FIX)) {
+            // In EmoteFix mode: trim spaces and nulls only
+            return NetworkManager.trimSpacesAndNulls(rawStr);
+        } else {
+            // In legacy mode: trim all control characters and spaces too.
+            return rawStr.trim();
+        }
+    }
+
+    // The array holding the packet, for reading byte array fields in place.
+    byte[] array() {
+        return buffer.array();
+    }
+
+    // Index in array() at which the given field starts.
+    int arrayOffset(int field) {
+        return buffer.arrayOffset() + offsetOf(field);
+    }
+}
@@ -115,16 +115,22 @@ public class PacketType {
             = new PacketType(Byte.TYPE, String.class, String.class, Short.TYPE,
                     Short.TYPE, Short.TYPE, Byte.TYPE, Byte.TYPE);
 
+    // Length of the longest packet, not counting the opcode
+    public static final int MAX_LENGTH = maxLength();
+
     public int length;
     public byte opcode;
     @SuppressWarnings("rawtypes")
     public Class[] params;
+    // Position of each field, relative to the end of the opcode
+    public int[] offsets;
 
     @SuppressWarnings("rawtypes")
     private PacketType(Class... classes) {
         opcode = (byte) nextOpcode++;
         packets[opcode] = this;
         params = new Class[classes.length];
+        offsets = new int[classes.length];
 
         int thisPacketLength = 0;
 
@@ -132,6 +138,7 @@ public class PacketType {
             Class fieldType = classes[i];
 
             params[i] = fieldType;
+            offsets[i] = thisPacketLength;
 
             if (fieldType == Long.TYPE) {
                 thisPacketLength += 8;
@@ -154,4 +161,14 @@ public class PacketType {
 
         this.length = thisPacketLength;
     }
+
+    private static int maxLength() {
+        int max = 0;
+        for (PacketType packet : packets) {
+            if (packet != null) {
+                max = Math.max(max, packet.length);
+            }
+        }
+        return max;
+    }
 }
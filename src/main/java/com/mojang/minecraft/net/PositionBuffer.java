@@ -0,0 +1,144 @@
+package com.mojang.minecraft.net;
+
+import com.mojang.minecraft.GameSettings;
+
+/**
+ * The recent positions and rotations a server has sent for one player, with
+ * the time each arrived, kept in a ring of primitive arrays. NetworkPlayer
+ * samples it a little in the past so that the player moves smoothly between
+ * updates however unevenly they arrive.
+ *
+ * The ring must reach back as far as the longest network delay the settings
+ * allow. When full, it doubles in size if its oldest entry is more recent
+ * than that, and otherwise overwrites the oldest entry, which no delay can
+ * need. Sampling drops entries that are no longer needed but always keeps
+ * the newest, so the buffer is never empty once something has been added.
+ */
+final class PositionBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Furthest back NetworkPlayer may sample; see GameSettings.networkDelay
+    private static final long MAX_DELAY = GameSettings.NETWORKDELAY_MAX * 1000000L;
+    // Nominal gap between server updates. A player that has stood still for
+    // longer than this starts moving from where it stood this long ago,
+    // rather than drifting over the whole time it was still.
+    private static final long UPDATE_INTERVAL = 50000000L;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] z = new float[INITIAL_CAPACITY];
+    private float[] yaw = new float[INITIAL_CAPACITY];
+    private float[] pitch = new float[INITIAL_CAPACITY];
+    // Index of the oldest entry
+    private int head;
+    private int count;
+
+    // Result of the last sample()
+    float sampleX;
+    float sampleY;
+    float sampleZ;
+    float sampleYaw;
+    float samplePitch;
+
+    /**
+     * Records where the player should be at the given time, as returned by
+     * System.nanoTime(). Times must not decrease.
+     */
+    void add(long time, float newX, float newY, float newZ, float newYaw, float newPitch) {
+        if (count > 0) {
+            int newest = index(count - 1);
+            long holdTime = time - UPDATE_INTERVAL;
+            if (times[newest] < holdTime) {
+                put(holdTime, x[newest], y[newest], z[newest], yaw[newest], pitch[newest]);
+            }
+        }
+        put(time, newX, newY, newZ, newYaw, newPitch);
+    }
+
+    private void put(long time, float newX, float newY, float newZ, float newYaw, float newPitch) {
+        if (count == times.length && times[head] > time - MAX_DELAY) {
+            grow();
+        }
+        int i;
+        if (count == times.length) {
+            i = head;
+            head = index(1);
+        } else {
+            i = index(count++);
+        }
+        times[i] = time;
+        x[i] = newX;
+        y[i] = newY;
+        z[i] = newZ;
+        yaw[i] = newYaw;
+        pitch[i] = newPitch;
+    }
+
+    /**
+     * Interpolates where the player was at the given time into the sample
+     * fields. Before the oldest entry this is the oldest entry, and after the
+     * newest, the newest. Returns false, leaving the fields alone, if nothing
+     * has been added.
+     */
+    boolean sample(long time) {
+        if (count == 0) {
+            return false;
+        }
+        while (count > 1 && times[index(1)] <= time) {
+            head = index(1);
+            --count;
+        }
+        int from = head;
+        if (count == 1 || time <= times[from]) {
+            sampleX = x[from];
+            sampleY = y[from];
+            sampleZ = z[from];
+            sampleYaw = yaw[from];
+            samplePitch = pitch[from];
+            return true;
+        }
+
+        int to = index(1);
+        float t = (float) (time - times[from]) / (times[to] - times[from]);
+        sampleX = x[from] + (x[to] - x[from]) * t;
+        sampleY = y[from] + (y[to] - y[from]) * t;
+        sampleZ = z[from] + (z[to] - z[from]) * t;
+        sampleYaw = yaw[from] + wrapDegrees(yaw[to] - yaw[from]) * t;
+        samplePitch = pitch[from] + wrapDegrees(pitch[to] - pitch[from]) * t;
+        return true;
+    }
+
+    // Doubles the ring, moving the oldest entry to the start.
+    private void grow() {
+        int length = times.length;
+        times = unroll(times, new long[length * 2], length);
+        x = unroll(x, new float[length * 2], length);
+        y = unroll(y, new float[length * 2], length);
+        z = unroll(z, new float[length * 2], length);
+        yaw = unroll(yaw, new float[length * 2], length);
+        pitch = unroll(pitch, new float[length * 2], length);
+        head = 0;
+    }
+
+    private <T> T unroll(T from, T to, int length) {
+        System.arraycopy(from, head, to, 0, length - head);
+        System.arraycopy(from, 0, to, length - head, head);
+        return to;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % times.length;
+    }
+
+    // Turns an angle difference into the shortest way round, in [-180, 180).
+    private static float wrapDegrees(float angle) {
+        angle %= 360F;
+        if (angle >= 180F) {
+            angle -= 360F;
+        } else if (angle < -180F) {
+            angle += 360F;
+        }
+        return angle;
+    }
+}
@@ -0,0 +1,322 @@
+package com.mojang.minecraft.particle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.physics.AABB;
+import com.mojang.minecraft.physics.AABBBuffer;
+import com.mojang.minecraft.render.ShapeRenderer;
+import com.mojang.util.ColorCache;
+
+/**
+ * The particles drawn from one texture sheet, stored as parallel arrays
+ * rather than as one object each. Particles are removed by moving the last
+ * one into their place, so ticking is a single pass over the arrays and
+ * nothing is allocated once they have grown to fit.
+ *
+ * Particles collide with the level like entities with a 0.2-block box
+ * centred on their position.
+ */
+final class ParticleList {
+
+    static final byte TERRAIN = 0;
+    static final byte SMOKE = 1;
+    static final byte WATER_DROP = 2;
+
+    // Half the size of every particle's collision box
+    private static final float RADIUS = 0.1F;
+
+    private byte[] kind = new byte[64];
+    private float[] x = new float[64];
+    private float[] y = new float[64];
+    private float[] z = new float[64];
+    private float[] xo = new float[64];
+    private float[] yo = new float[64];
+    private float[] zo = new float[64];
+    private float[] xd = new float[64];
+    private float[] yd = new float[64];
+    private float[] zd = new float[64];
+    private boolean[] onGround = new boolean[64];
+    private int[] age = new int[64];
+    private int[] lifetime = new int[64];
+    private int[] tex = new int[64];
+    // Offset of a terrain particle's texture within its tile, in quarters
+    private float[] uo = new float[64];
+    private float[] vo = new float[64];
+    private float[] size = new float[64];
+    private float[] gravity = new float[64];
+    // Colour multiplier, the same for red, green and blue
+    private float[] shade = new float[64];
+    private int count;
+
+    // Scratch space for collisions
+    private final AABBBuffer cubes = new AABBBuffer();
+    private final AABB bounds = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+    private final AABB expanded = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * Adds a particle with the motion and lifetime every particle starts
+     * with (randomized around the given direction). Kind-specific setup is
+     * left to the caller, which can adjust the returned particle through the
+     * set methods.
+     *
+     * @return The index of the new particle.
+     */
+    int add(byte particleKind, float px, float py, float pz, float destX, float destY, float destZ,
+            Random random) {
+        if (count == x.length) {
+            grow();
+        }
+        int i = count++;
+        kind[i] = particleKind;
+        x[i] = xo[i] = px;
+        y[i] = yo[i] = py;
+        z[i] = zo[i] = pz;
+        float dx = destX + (random.nextFloat() * 2F - 1F) * 0.4F;
+        float dy = destY + (random.nextFloat() * 2F - 1F) * 0.4F;
+        float dz = destZ + (random.nextFloat() * 2F - 1F) * 0.4F;
+        float speed = (random.nextFloat() + random.nextFloat() + 1F) * 0.15F;
+        float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        xd[i] = dx / length * speed * 0.4F;
+        yd[i] = dy / length * speed * 0.4F + 0.1F;
+        zd[i] = dz / length * speed * 0.4F;
+        onGround[i] = false;
+        uo[i] = random.nextFloat() * 3F;
+        vo[i] = random.nextFloat() * 3F;
+        size[i] = random.nextFloat() * 0.5F + 0.5F;
+        lifetime[i] = (int) (4D / (random.nextFloat() * 0.9D + 0.1D));
+        age[i] = 0;
+        tex[i] = 0;
+        gravity[i] = 0F;
+        shade[i] = 1F;
+        return i;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        xo = Arrays.copyOf(xo, capacity);
+        yo = Arrays.copyOf(yo, capacity);
+        zo = Arrays.copyOf(zo, capacity);
+        xd = Arrays.copyOf(xd, capacity);
+        yd = Arrays.copyOf(yd, capacity);
+        zd = Arrays.copyOf(zd, capacity);
+        onGround = Arrays.copyOf(onGround, capacity);
+        age = Arrays.copyOf(age, capacity);
+        lifetime = Arrays.copyOf(lifetime, capacity);
+        tex = Arrays.copyOf(tex, capacity);
+        uo = Arrays.copyOf(uo, capacity);
+        vo = Arrays.copyOf(vo, capacity);
+        size = Arrays.copyOf(size, capacity);
+        gravity = Arrays.copyOf(gravity, capacity);
+        shade = Arrays.copyOf(shade, capacity);
+    }
+
+    // Removes particle i by moving the last particle into its place.
+    private void remove(int i) {
+        int last = --count;
+        if (i == last) {
+            return;
+        }
+        kind[i] = kind[last];
+        x[i] = x[last];
+        y[i] = y[last];
+        z[i] = z[last];
+        xo[i] = xo[last];
+        yo[i] = yo[last];
+        zo[i] = zo[last];
+        xd[i] = xd[last];
+        yd[i] = yd[last];
+        zd[i] = zd[last];
+        onGround[i] = onGround[last];
+        age[i] = age[last];
+        lifetime[i] = lifetime[last];
+        tex[i] = tex[last];
+        uo[i] = uo[last];
+        vo[i] = vo[last];
+        size[i] = size[last];
+        gravity[i] = gravity[last];
+        shade[i] = shade[last];
+    }
+
+    void scaleMotion(int i, float xScale, float yScale, float zScale) {
+        xd[i] *= xScale;
+        yd[i] *= yScale;
+        zd[i] *= zScale;
+    }
+
+    // Scales a particle's speed, keeping its constant upward push.
+    void setPower(int i, float power) {
+        xd[i] *= power;
+        yd[i] = (yd[i] - 0.1F) * power + 0.1F;
+        zd[i] *= power;
+    }
+
+    void setYSpeed(int i, float speed) {
+        yd[i] = speed;
+    }
+
+    void setLifetime(int i, int ticks) {
+        lifetime[i] = ticks;
+    }
+
+    void setTexture(int i, int tile) {
+        tex[i] = tile;
+    }
+
+    void setGravity(int i, float particleGravity) {
+        gravity[i] = particleGravity;
+    }
+
+    void setShade(int i, float particleShade) {
+        shade[i] = particleShade;
+    }
+
+    void scale(int i, float scale) {
+        size[i] *= scale;
+    }
+
+    void tick(Level level, Random random) {
+        int i = 0;
+        while (i < count) {
+            xo[i] = x[i];
+            yo[i] = y[i];
+            zo[i] = z[i];
+            boolean dead;
+            switch (kind[i]) {
+                case SMOKE:
+                    dead = age[i]++ >= lifetime[i];
+                    tex[i] = 7 - (age[i] << 3) / lifetime[i];
+                    yd[i] = (float) (yd[i] + 0.004D);
+                    // Smoke passes through blocks
+                    x[i] += xd[i];
+                    y[i] += yd[i];
+                    z[i] += zd[i];
+                    xd[i] *= 0.96F;
+                    yd[i] *= 0.96F;
+                    zd[i] *= 0.96F;
+                    break;
+                case WATER_DROP:
+                    yd[i] = (float) (yd[i] - 0.06D);
+                    move(level, i);
+                    xd[i] *= 0.98F;
+                    yd[i] *= 0.98F;
+                    zd[i] *= 0.98F;
+                    dead = lifetime[i]-- <= 0;
+                    if (onGround[i]) {
+                        if (random.nextFloat() < 0.5F) {
+                            dead = true;
+                        }
+                        xd[i] *= 0.7F;
+                        zd[i] *= 0.7F;
+                    }
+                    break;
+                default:
+                    dead = age[i]++ >= lifetime[i];
+                    yd[i] = (float) (yd[i] - 0.04D * gravity[i]);
+                    move(level, i);
+                    xd[i] *= 0.98F;
+                    yd[i] *= 0.98F;
+                    zd[i] *= 0.98F;
+                    if (onGround[i]) {
+                        xd[i] *= 0.7F;
+                        zd[i] *= 0.7F;
+                    }
+                    break;
+            }
+            if (dead) {
+                remove(i);
+            } else {
+                ++i;
+            }
+        }
+    }
+
+    // Moves particle i by its motion, stopping at blocks like Entity.move.
+    private void move(Level level, int i) {
+        float xMove = xd[i];
+        float yMove = yd[i];
+        float zMove = zd[i];
+        bounds.set(x[i] - RADIUS, y[i] - RADIUS, z[i] - RADIUS,
+                x[i] + RADIUS, y[i] + RADIUS, z[i] + RADIUS);
+        level.getCubes(bounds.expand(xMove, yMove, zMove, expanded), cubes);
+
+        for (int j = 0; j < cubes.size(); ++j) {
+            yMove = cubes.get(j).clipYCollide(bounds, yMove);
+        }
+        bounds.move(0F, yMove, 0F);
+        for (int j = 0; j < cubes.size(); ++j) {
+            xMove = cubes.get(j).clipXCollide(bounds, xMove);
+        }
+        bounds.move(xMove, 0F, 0F);
+        for (int j = 0; j < cubes.size(); ++j) {
+            zMove = cubes.get(j).clipZCollide(bounds, zMove);
+        }
+
+        onGround[i] = yd[i] != yMove && yd[i] < 0F;
+        if (xd[i] != xMove) {
+            xd[i] = 0F;
+        }
+        if (yd[i] != yMove) {
+            yd[i] = 0F;
+        }
+        if (zd[i] != zMove) {
+            zd[i] = 0F;
+        }
+        x[i] += xMove;
+        y[i] += yMove;
+        z[i] += zMove;
+    }
+
+    /**
+     * Writes every particle as a camera-facing quad. The axis arguments are
+     * the same as those Minecraft has always passed to particle rendering.
+     */
+    void render(ShapeRenderer shapeRenderer, Level level, float delta, float xAxis, float yAxis,
+            float zAxis, float xzAxisX, float xzAxisZ) {
+        for (int i = 0; i < count; ++i) {
+            float u0;
+            float v0;
+            float tileSize;
+            if (kind[i] == TERRAIN) {
+                // A random quarter of the block's texture
+                u0 = (tex[i] % 16 + uo[i] / 4F) / 16F;
+                v0 = (tex[i] / 16 + vo[i] / 4F) / 16F;
+                tileSize = 0.015609375F;
+            } else {
+                u0 = tex[i] % 16 / 16F;
+                v0 = tex[i] / 16 / 16F;
+                tileSize = 0.0624375F;
+            }
+            float u1 = u0 + tileSize;
+            float v1 = v0 + tileSize;
+            float half = 0.1F * size[i];
+            float px = xo[i] + (x[i] - xo[i]) * delta;
+            float py = yo[i] + (y[i] - yo[i]) * delta;
+            float pz = zo[i] + (z[i] - zo[i]) * delta;
+            ColorCache light = level.getBrightnessColor((int) x[i], (int) (y[i] + RADIUS / 2F - 0.5F),
+                    (int) z[i]);
+            shapeRenderer.color(light.R * shade[i], light.G * shade[i], light.B * shade[i]);
+            shapeRenderer.vertexUV(px - xAxis * half - xzAxisX * half, py - yAxis * half,
+                    pz - zAxis * half - xzAxisZ * half, u0, v1);
+            shapeRenderer.vertexUV(px - xAxis * half + xzAxisX * half, py + yAxis * half,
+                    pz - zAxis * half + xzAxisZ * half, u0, v0);
+            shapeRenderer.vertexUV(px + xAxis * half + xzAxisX * half, py + yAxis * half,
+                    pz + zAxis * half + xzAxisZ * half, u1, v0);
+            shapeRenderer.vertexUV(px + xAxis * half - xzAxisX * half, py - yAxis * half,
+                    pz + zAxis * half - xzAxisZ * half, u1, v1);
+        }
+    }
+}
@@ -1,48 +1,118 @@
 package com.mojang.minecraft.particle;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Random;
 
-import com.mojang.minecraft.Entity;
+import com.mojang.minecraft.level.DeferredEffects;
+import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.tile.Block;
+import com.mojang.minecraft.render.ShapeRenderer;
 
 public final class ParticleManager {
 
-    public List<Particle> particles0 = new ArrayList<>();
-    public List<Particle> particles1 = new ArrayList<>();
+    // Particles textured from the particle sheet and from the terrain atlas
+    private final ParticleList particles0 = new ParticleList();
+    private final ParticleList particles1 = new ParticleList();
+    private final Random random = new Random();
+    private Level level;
 
     /**
-     * Spawn a particle.
-     *
-     * @param entity The entity spawning the particle.
+     * Spawns a particle of smoke, as trailed by lit TNT.
      */
-    public final void spawnParticle(Entity entity) {
-        Particle particle = (Particle) entity;
-        int textureID = particle.getParticleTexture();
-        if (textureID == 0) {
-            particles0.add(particle);
-        } else {
-            particles1.add(particle);
+    public final void spawnSmokeParticle(final float x, final float y, final float z) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    spawnSmokeParticle(x, y, z);
+                }
+            });
+            return;
         }
+        int i = particles0.add(ParticleList.SMOKE, x, y, z, 0F, 0F, 0F, random);
+        particles0.scaleMotion(i, 0.1F, 0.1F, 0.1F);
+        particles0.setShade(i, random.nextFloat() * 0.3F);
+        particles0.setLifetime(i, (int) (8D / (random.nextFloat() * 0.8D + 0.2D)));
     }
 
     /**
-     * A tick. Calls tick() for all particles I control.
+     * Spawns a chip of a block, flying off in roughly the given direction.
      */
-    public final void tick() {
-        tick(particles0);
-        tick(particles1);
+    public final void spawnTerrainParticle(float x, float y, float z, float destX, float destY,
+            float destZ, Block block) {
+        spawnTerrainParticle(x, y, z, destX, destY, destZ, block, 1F, 1F);
     }
 
-    private static void tick(List<Particle> particles) {
-        for (int j = 0; j < particles.size(); ++j) {
-            Particle particle = particles.get(j);
-            particle.tick();
-            if (particle.removed) {
-                particles.remove(j--);
-            }
+    /**
+     * Spawns a chip of a block, with its speed and size multiplied by the
+     * given amounts.
+     */
+    public final void spawnTerrainParticle(final float x, final float y, final float z,
+            final float destX, final float destY, final float destZ, final Block block,
+            final float power, final float scale) {
+        if (DeferredEffects.isDeferring()) {
+            DeferredEffects.defer(new Runnable() {
+                @Override
+                public void run() {
+                    spawnTerrainParticle(x, y, z, destX, destY, destZ, block, power, scale);
+                }
+            });
+            return;
+        }
+        int i = particles1.add(ParticleList.TERRAIN, x, y, z, destX, destY, destZ, random);
+        particles1.setTexture(i, block.textureId);
+        particles1.setGravity(i, block.particleGravity);
+        particles1.setShade(i, 0.6F);
+        particles1.setPower(i, power);
+        particles1.scale(i, scale);
+    }
+
+    /**
+     * Spawns a splash of rain.
+     */
+    public final void spawnWaterDropParticle(float x, float y, float z) {
+        int i = particles0.add(ParticleList.WATER_DROP, x, y, z, 0F, 0F, 0F, random);
+        particles0.scaleMotion(i, 0.3F, 1F, 0.3F);
+        particles0.setYSpeed(i, random.nextFloat() * 0.2F + 0.1F);
+        particles0.setTexture(i, 16);
+        particles0.setLifetime(i, (int) (8D / (random.nextFloat() * 0.8D + 0.2D)));
+    }
+
+    /**
+     * A tick. Moves all particles and drops those that have died.
+     */
+    public final void tick() {
+        if (level != null) {
+            particles0.tick(level, random);
+            particles1.tick(level, random);
         }
     }
 
+    /**
+     * Returns true if there are particles to draw with the given texture:
+     * the particle sheet for pass 0 or the terrain atlas for pass 1.
+     */
+    public boolean hasParticles(int pass) {
+        return !(pass == 0 ? particles0 : particles1).isEmpty();
+    }
+
+    /**
+     * Draws the particles of one pass (see hasParticles) as quads facing the
+     * camera, between the renderer's begin() and end().
+     */
+    public void render(int pass, ShapeRenderer shapeRenderer, float delta, float xAxis,
+            float yAxis, float zAxis, float xzAxisX, float xzAxisZ) {
+        (pass == 0 ? particles0 : particles1).render(shapeRenderer, level, delta, xAxis, yAxis,
+                zAxis, xzAxisX, xzAxisZ);
+    }
+
+    /**
+     * Removes all particles, and makes new ones belong to the given level.
+     */
+    public void setLevel(Level level) {
+        this.level = level;
+        clear();
+    }
+
     public void clear() {
         particles0.clear();
         particles1.clear();
@@ -156,7 +156,17 @@ public class AABB implements Serializable {
     }
 
     public AABB cloneMove(float x, float y, float z) {
-        return new AABB(maxX + z, maxY + y, maxZ + z, minX + x, minY + y, minZ + z);
+        return cloneMove(x, y, z, new AABB(0F, 0F, 0F, 0F, 0F, 0F));
+    }
+
+    /**
+     * Like cloneMove(x, y, z), but writes the result into dest instead of
+     * allocating a new AABB. dest may be this AABB.
+     *
+     * @return dest
+     */
+    public AABB cloneMove(float x, float y, float z, AABB dest) {
+        return dest.set(maxX + x, maxY + y, maxZ + z, minX + x, minY + y, minZ + z);
     }
 
     /**
@@ -184,6 +194,16 @@ public class AABB implements Serializable {
      * @return
      */
     public AABB expand(float x, float y, float z) {
+        return expand(x, y, z, new AABB(0F, 0F, 0F, 0F, 0F, 0F));
+    }
+
+    /**
+     * Like expand(x, y, z), but writes the result into dest instead of
+     * allocating a new AABB. dest may be this AABB.
+     *
+     * @return dest
+     */
+    public AABB expand(float x, float y, float z, AABB dest) {
         float var4 = maxX;
         float var5 = maxY;
         float var6 = maxZ;
@@ -214,7 +234,7 @@ public class AABB implements Serializable {
             var9 += z;
         }
 
-        return new AABB(var4, var5, var6, var7, var8, var9);
+        return dest.set(var4, var5, var6, var7, var8, var9);
     }
 
     public float getSize() {
@@ -230,13 +250,23 @@ public class AABB implements Serializable {
      * @return
      */
     public AABB grow(float x, float y, float z) {
+        return grow(x, y, z, new AABB(0F, 0F, 0F, 0F, 0F, 0F));
+    }
+
+    /**
+     * Like grow(x, y, z), but writes the result into dest instead of
+     * allocating a new AABB. dest may be this AABB.
+     *
+     * @return dest
+     */
+    public AABB grow(float x, float y, float z, AABB dest) {
         float newX0 = maxX - x;
         float newY0 = maxY - y;
         float newZ0 = maxZ - z;
         x += minX;
         y += minY;
         z += minZ;
-        return new AABB(newX0, newY0, newZ0, x, y, z);
+        return dest.set(newX0, newY0, newZ0, x, y, z);
     }
 
     /**
@@ -296,6 +326,30 @@ public class AABB implements Serializable {
         minZ += z;
     }
 
+    /**
+     * Overwrites the bounds of this AABB.
+     *
+     * @return This AABB.
+     */
+    public AABB set(float maxX, float maxY, float maxZ, float minX, float minY, float minZ) {
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        return this;
+    }
+
+    /**
+     * Copies the bounds of the given AABB into this one.
+     *
+     * @return This AABB.
+     */
+    public AABB set(AABB aabb) {
+        return set(aabb.maxX, aabb.maxY, aabb.maxZ, aabb.minX, aabb.minY, aabb.minZ);
+    }
+
     /**
      * Shrinks the AABB by the dimensions specified.
      *
@@ -0,0 +1,56 @@
+package com.mojang.minecraft.physics;
+
+/**
+ * A reusable list of bounding boxes, filled by Level.getCubes. Boxes are
+ * pooled: clear() only resets the size, and add() hands back a box left over
+ * from an earlier use where it can, so a buffer that is refilled every tick
+ * stops allocating once it has grown to fit.
+ *
+ * Boxes returned by get() are owned by the buffer and are overwritten on the
+ * next refill; copy them if they need to be kept. Not thread-safe.
+ */
+public final class AABBBuffer {
+
+    private AABB[] boxes = new AABB[16];
+    private int size;
+
+    /**
+     * Appends a box to the buffer and returns it for the caller to fill in.
+     * Its previous contents are undefined.
+     */
+    public AABB add() {
+        if (size == boxes.length) {
+            AABB[] grown = new AABB[size * 2];
+            System.arraycopy(boxes, 0, grown, 0, size);
+            boxes = grown;
+        }
+        AABB box = boxes[size];
+        if (box == null) {
+            box = new AABB(0F, 0F, 0F, 0F, 0F, 0F);
+            boxes[size] = box;
+        }
+        ++size;
+        return box;
+    }
+
+    // Drops the box most recently returned by add(), keeping it for reuse.
+    public void removeLast() {
+        --size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public AABB get(int index) {
+        return boxes[index];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
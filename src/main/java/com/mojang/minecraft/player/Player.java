@@ -326,6 +326,12 @@ public class Player extends HumanoidMob {
         return true;
     }
 
+    @Override
+    public boolean isParallelTickSafe() {
+        // Reads keyboard input
+        return false;
+    }
+
     @Override
     public boolean isShootable() {
         return true;
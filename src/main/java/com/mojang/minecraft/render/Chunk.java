@@ -1,9 +1,11 @@
 package com.mojang.minecraft.render;
 
+import org.lwjgl.opengl.ARBBufferObject;
+import org.lwjgl.opengl.ARBVertexBufferObject;
 import org.lwjgl.opengl.GL11;
 
+import com.mojang.minecraft.level.ChunkSnapshot;
 import com.mojang.minecraft.level.Level;
-import com.mojang.minecraft.level.tile.Block;
 import com.mojang.minecraft.player.Player;
 
 public final class Chunk {
@@ -17,14 +19,30 @@ public final class Chunk {
     private final int x, y, z;
     private final int chunkSize;
     private final boolean[] dirty = new boolean[2];
-
-    public Chunk(Level var1, int x, int y, int z, int listID) {
+    // Incremented for every snapshot taken, so that meshes finishing out of
+    // order never replace a newer one.
+    private int version;
+    private int uploadedVersion;
+    // With buffer objects, each pass has its own VBO that is refilled in place
+    // on every upload. Otherwise the two display lists at baseListId are used.
+    private final boolean useVBO;
+    private final int[] bufferIds = new int[2];
+    private final int[] vertexCounts = new int[2];
+    // Greedy-meshed faces at the end of the first pass's buffer; see ChunkMesh
+    private int greedyStart;
+    private int[] greedyTiles = new int[0];
+    private int[] greedyStarts = new int[0];
+    // Which of this chunk's faces can see each other; see ChunkVisibility
+    private long visibility = ChunkVisibility.ALL;
+
+    public Chunk(Level var1, int x, int y, int z, int listID, boolean useVBO) {
         level = var1;
         this.x = x;
         this.y = y;
         this.z = z;
         chunkSize = 16;
         baseListId = listID;
+        this.useVBO = useVBO;
         setAllDirty();
     }
 
@@ -40,6 +58,62 @@ public final class Chunk {
         }
     }
 
+    // Returns true if this chunk has geometry to draw for the given pass.
+    public final boolean isRenderable(int pass) {
+        return visible && !dirty[pass];
+    }
+
+    /**
+     * Draws this chunk's buffer object for the given pass. Vertex, texture
+     * coordinate and color arrays must already be enabled, and the texture
+     * matrix scaled for compact vertices.
+     */
+    final void renderBuffer(int pass) {
+        ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, bufferIds[pass]);
+        GL11.glVertexPointer(3, GL11.GL_SHORT, 16, 0L);
+        GL11.glTexCoordPointer(2, GL11.GL_SHORT, 16, 8L);
+        GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, 16, 12L);
+        GL11.glPushMatrix();
+        applyTransform();
+        int count = pass == 0 && greedyTiles.length > 0 ? greedyStart : vertexCounts[pass];
+        if (count > 0) {
+            GL11.glDrawArrays(GL11.GL_QUADS, 0, count);
+        }
+        GL11.glPopMatrix();
+    }
+
+    // Returns true if this chunk has greedy-meshed faces to draw.
+    public final boolean hasGreedyFaces() {
+        return isRenderable(0) && greedyTiles.length > 0;
+    }
+
+    /**
+     * Draws this chunk's greedy-meshed faces, binding each tile's repeating
+     * texture in turn. Same state requirements as renderBuffer, with the
+     * texture matrix additionally scaled by GreedyMesher.TILE_UV_SCALE.
+     */
+    final void renderGreedy(TextureManager textureManager) {
+        ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, bufferIds[0]);
+        GL11.glVertexPointer(3, GL11.GL_SHORT, 16, 0L);
+        GL11.glTexCoordPointer(2, GL11.GL_SHORT, 16, 8L);
+        GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, 16, 12L);
+        GL11.glPushMatrix();
+        applyTransform();
+        for (int i = 0; i < greedyTiles.length; ++i) {
+            GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureManager.getTileTexture(greedyTiles[i]));
+            GL11.glDrawArrays(GL11.GL_QUADS, greedyStart + greedyStarts[i],
+                    greedyStarts[i + 1] - greedyStarts[i]);
+        }
+        GL11.glPopMatrix();
+    }
+
+    // Maps compact, chunk-relative vertex positions to world coordinates
+    private void applyTransform() {
+        float scale = 1F / ShapeRenderer.POSITION_SCALE;
+        GL11.glTranslatef(x, y, z);
+        GL11.glScalef(scale, scale, scale);
+    }
+
     public final void clip(Frustum frustum) {
         visible = frustum.isBoxInFrustum(x, y, z, x + chunkSize, y + chunkSize, z + chunkSize);
     }
@@ -47,6 +121,12 @@ public final class Chunk {
     public final void dispose() {
         setAllDirty();
         level = null;
+        for (int pass = 0; pass < 2; ++pass) {
+            if (bufferIds[pass] != 0) {
+                ARBBufferObject.glDeleteBuffersARB(bufferIds[pass]);
+                bufferIds[pass] = 0;
+            }
+        }
     }
 
     public final float distanceSquared(Player player) {
@@ -62,51 +142,66 @@ public final class Chunk {
         }
     }
 
-    public final void update() {
-        chunkUpdates++;
-        int sx = x;
-        int sy = y;
-        int sz = z;
-        int ex = x + chunkSize;
-        int ey = y + chunkSize;
-        int ez = z + chunkSize;
-
-        int renderPassType;
-        for (renderPassType = 0; renderPassType < 2; ++renderPassType) {
-            dirty[renderPassType] = true;
-        }
+    // Copies the blocks this chunk's mesh depends on. Must be called on the
+    // game thread; the returned snapshot may then be meshed on any thread.
+    final ChunkSnapshot createSnapshot() {
+        ++version;
+        return new ChunkSnapshot(level, x, y, z);
+    }
 
-        for (renderPassType = 0; renderPassType < 2; ++renderPassType) {
-            boolean needNextPass = false;
-            boolean wasRendered = false;
-            GL11.glNewList(baseListId + renderPassType, GL11.GL_COMPILE);
-
-            shapeRenderer.begin();
-            for (int posX = sx; posX < ex; ++posX) {
-                for (int posY = sy; posY < ey; ++posY) {
-                    for (int posZ = sz; posZ < ez; ++posZ) {
-                        int tile = level.getTile(posX, posY, posZ);
-                        if (tile > 0) {
-                            Block block = Block.blocks[tile];
-                            if (block.getRenderPass() != renderPassType) {
-                                needNextPass = true;
-                            } else {
-                                wasRendered |= block.render(level, posX, posY, posZ, shapeRenderer);
-                            }
-                        }
-                    }
-                }
-            }
-            shapeRenderer.end();
+    final int getVersion() {
+        return version;
+    }
 
-            GL11.glEndList();
-            if (wasRendered) {
-                dirty[renderPassType] = false;
-            }
+    final ChunkMesh buildMesh(ChunkSnapshot snapshot, int version, ShapeRenderer renderer,
+            GreedyMesher greedyMesher, ChunkVisibility visibility) {
+        return ChunkMesh.build(this, version, snapshot, x, y, z, renderer, greedyMesher,
+                visibility);
+    }
 
-            if (!needNextPass) {
-                break;
+    // Returns true if this chunk's faces "from" and "to" are connected by open space.
+    final boolean connects(int from, int to) {
+        return ChunkVisibility.connects(visibility, from, to);
+    }
+
+    /**
+     * Uploads a finished mesh into this chunk's buffer objects, or compiles it
+     * into its display lists. Meshes for disposed chunks, or older than the
+     * last one uploaded, are dropped.
+     */
+    final void upload(ChunkMesh mesh) {
+        if (level == null || mesh.version < uploadedVersion) {
+            return;
+        }
+        uploadedVersion = mesh.version;
+        chunkUpdates++;
+        greedyStart = mesh.greedyStart;
+        greedyTiles = mesh.greedyTiles;
+        greedyStarts = mesh.greedyStarts;
+        visibility = mesh.visibility;
+
+        for (int renderPassType = 0; renderPassType < 2; ++renderPassType) {
+            dirty[renderPassType] = true;
+            if (mesh.isEmpty(renderPassType)) {
+                continue;
+            }
+            if (useVBO) {
+                if (bufferIds[renderPassType] == 0) {
+                    bufferIds[renderPassType] = ARBBufferObject.glGenBuffersARB();
+                }
+                shapeRenderer.uploadVertices(bufferIds[renderPassType], mesh.vertexData[renderPassType],
+                        mesh.vertexCounts[renderPassType] * ShapeRenderer.COMPACT_VERTEX_SIZE);
+                vertexCounts[renderPassType] = mesh.vertexCounts[renderPassType];
+            } else {
+                GL11.glNewList(baseListId + renderPassType, GL11.GL_COMPILE);
+                GL11.glPushMatrix();
+                applyTransform();
+                shapeRenderer.drawVertices(mesh.vertexData[renderPassType],
+                        mesh.vertexCounts[renderPassType], true);
+                GL11.glPopMatrix();
+                GL11.glEndList();
             }
+            dirty[renderPassType] = false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.mojang.minecraft.render;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.mojang.minecraft.player.Player;
+
+/**
+ * Orders chunks from farthest to nearest the player, optionally putting
+ * invisible chunks before all visible ones, as for building. Chunks are bucketed on
+ * whole-block distance instead of compared in pairs. This takes linear time,
+ * is stable and allocates nothing once its buffers have grown to fit.
+ *
+ * Not thread-safe.
+ */
+final class ChunkDistanceSorter {
+
+    // Distances are clamped to this many blocks. When sorting by visibility,
+    // invisible chunks are keyed above every visible one.
+    private static final int MAX_DISTANCE = 4096;
+    private static final int BUCKETS = MAX_DISTANCE * 2;
+
+    private final int[] bucketStarts = new int[BUCKETS + 1];
+    private int[] keys = new int[0];
+    private Chunk[] scratch = new Chunk[0];
+    private Chunk[] listBuffer = new Chunk[0];
+
+    private static int keyOf(Chunk chunk, Player player, boolean byVisibility) {
+        int distance = Math.min((int) Math.sqrt(chunk.distanceSquared(player)), MAX_DISTANCE - 1);
+        // Farthest first: the largest key goes to the front
+        return !byVisibility || chunk.visible ? distance : distance + MAX_DISTANCE;
+    }
+
+    /**
+     * Sorts the first count entries of the given array in place.
+     *
+     * @param byVisibility Whether invisible chunks go before visible ones.
+     *                     If not, the order depends only on the player's
+     *                     position.
+     */
+    void sort(Chunk[] chunks, int count, Player player, boolean byVisibility) {
+        if (keys.length < count) {
+            keys = new int[count];
+            scratch = new Chunk[count];
+        }
+        Arrays.fill(bucketStarts, 0);
+        for (int i = 0; i < count; ++i) {
+            int key = keyOf(chunks[i], player, byVisibility);
+            keys[i] = key;
+            ++bucketStarts[BUCKETS - 1 - key];
+        }
+        // Prefix sums turn bucket sizes into bucket start offsets
+        int offset = 0;
+        for (int bucket = 0; bucket <= BUCKETS; ++bucket) {
+            int size = bucketStarts[bucket];
+            bucketStarts[bucket] = offset;
+            offset += size;
+        }
+        for (int i = 0; i < count; ++i) {
+            scratch[bucketStarts[BUCKETS - 1 - keys[i]]++] = chunks[i];
+        }
+        System.arraycopy(scratch, 0, chunks, 0, count);
+        Arrays.fill(scratch, 0, count, null);
+    }
+
+    /**
+     * Sorts the given list in place, invisible chunks first.
+     */
+    void sort(List<Chunk> chunks, Player player) {
+        int count = chunks.size();
+        if (listBuffer.length < count) {
+            listBuffer = new Chunk[count];
+        }
+        chunks.toArray(listBuffer);
+        sort(listBuffer, count, player, true);
+        for (int i = 0; i < count; ++i) {
+            chunks.set(i, listBuffer[i]);
+        }
+        Arrays.fill(listBuffer, 0, count, null);
+    }
+}
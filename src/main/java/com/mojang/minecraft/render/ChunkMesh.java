@@ -0,0 +1,95 @@
+package com.mojang.minecraft.render;
+
+import java.util.Arrays;
+
+import com.mojang.minecraft.level.LevelView;
+import com.mojang.minecraft.level.tile.Block;
+
+/**
+ * CPU-side geometry of one chunk, one vertex array per render pass. Built on a
+ * worker thread from a ChunkSnapshot and handed back to the GL thread to be
+ * uploaded by Chunk.upload(). Vertices are in ShapeRenderer's compact format,
+ * relative to the chunk's lowest corner.
+ *
+ * With greedy meshing, the merged faces are appended to the end of the first
+ * pass, from greedyStart on, grouped by tile: group i is drawn with the
+ * repeating texture of greedyTiles[i], from vertex greedyStarts[i] up to
+ * greedyStarts[i + 1].
+ *
+ * The mesh also carries the chunk's face connectivity (see ChunkVisibility),
+ * which is recomputed on every rebuild.
+ */
+public final class ChunkMesh {
+
+    public final Chunk chunk;
+    public final int version;
+    final int[][] vertexData = new int[2][];
+    final int[] vertexCounts = new int[2];
+    int greedyStart;
+    int[] greedyTiles = new int[0];
+    int[] greedyStarts = new int[0];
+    long visibility = ChunkVisibility.ALL;
+
+    ChunkMesh(Chunk chunk, int version) {
+        this.chunk = chunk;
+        this.version = version;
+    }
+
+    /**
+     * Tessellates every block of the chunk at (x, y, z) into the given
+     * capturing renderer, which must be in the compact format. The level is
+     * normally a ChunkSnapshot. If a greedy mesher is given, blocks it can
+     * merge are left to it instead of being tessellated face by face.
+     */
+    static ChunkMesh build(Chunk chunk, int version, LevelView level, int x, int y, int z,
+            ShapeRenderer renderer, GreedyMesher greedyMesher, ChunkVisibility visibility) {
+        ChunkMesh mesh = new ChunkMesh(chunk, version);
+        mesh.visibility = visibility.compute(level, x, y, z);
+        renderer.setTranslation(-x, -y, -z);
+        for (int pass = 0; pass < 2; ++pass) {
+            boolean needNextPass = false;
+            boolean wasRendered = false;
+
+            renderer.begin();
+            for (int posX = x; posX < x + 16; ++posX) {
+                for (int posY = y; posY < y + 16; ++posY) {
+                    for (int posZ = z; posZ < z + 16; ++posZ) {
+                        int tile = level.getTile(posX, posY, posZ);
+                        if (tile > 0) {
+                            Block block = Block.blocks[tile];
+                            if (block.getRenderPass() != pass) {
+                                needNextPass = true;
+                            } else if (greedyMesher == null || !block.isGreedyMeshable()) {
+                                wasRendered |= block.render(level, posX, posY, posZ, renderer);
+                            }
+                        }
+                    }
+                }
+            }
+            if (pass == 0 && greedyMesher != null) {
+                mesh.greedyStart = renderer.getVertexCount();
+                int groups = greedyMesher.build(level, x, y, z, renderer);
+                if (groups > 0) {
+                    mesh.greedyTiles = Arrays.copyOf(greedyMesher.getGroupTiles(), groups);
+                    mesh.greedyStarts = Arrays.copyOf(greedyMesher.getGroupStarts(), groups + 1);
+                    wasRendered = true;
+                }
+            }
+            renderer.end();
+
+            if (wasRendered) {
+                mesh.vertexData[pass] = renderer.getVertexData();
+                mesh.vertexCounts[pass] = renderer.getVertexCount();
+            }
+
+            if (!needNextPass) {
+                break;
+            }
+        }
+        return mesh;
+    }
+
+    public boolean isEmpty(int pass) {
+        return vertexCounts[pass] == 0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.mojang.minecraft.render;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mojang.minecraft.level.ChunkSnapshot;
+
+/**
+ * Rebuilds chunk meshes on a pool of worker threads. The game thread snapshots
+ * a chunk's neighbourhood in submit(), workers tessellate the snapshot into
+ * CPU-side vertex arrays, and the game thread compiles the finished arrays in
+ * uploadFinished(). Nothing on the worker side touches OpenGL.
+ */
+public final class ChunkUpdater {
+
+    // Initial capacity of each worker's vertex buffer, in ints (grows as needed)
+    private static final int WORKER_BUFFER_SIZE = 65536;
+
+    private final ExecutorService workers;
+    private final ConcurrentLinkedQueue<ChunkMesh> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ThreadLocal<ShapeRenderer> renderers = new ThreadLocal<ShapeRenderer>() {
+        @Override
+        protected ShapeRenderer initialValue() {
+            ShapeRenderer renderer = new ShapeRenderer(WORKER_BUFFER_SIZE);
+            renderer.setCompact(true);
+            return renderer;
+        }
+    };
+    private final ThreadLocal<GreedyMesher> greedyMeshers = new ThreadLocal<GreedyMesher>() {
+        @Override
+        protected GreedyMesher initialValue() {
+            return new GreedyMesher();
+        }
+    };
+    private final ThreadLocal<ChunkVisibility> visibilities = new ThreadLocal<ChunkVisibility>() {
+        @Override
+        protected ChunkVisibility initialValue() {
+            return new ChunkVisibility();
+        }
+    };
+    // Only honoured by renderers drawing from buffer objects; see Chunk.renderGreedy
+    private volatile boolean greedyMeshing;
+
+    public ChunkUpdater() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public ChunkUpdater(int threadCount) {
+        workers = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Chunk-Updater-" + count++);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Schedules a rebuild of the given chunk. Must be called on the game
+     * thread, since that is where the level is modified.
+     */
+    public void submit(final Chunk chunk) {
+        final ChunkSnapshot snapshot = chunk.createSnapshot();
+        final int version = chunk.getVersion();
+        final boolean greedy = greedyMeshing;
+        pending.incrementAndGet();
+        workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    finished.add(chunk.buildMesh(snapshot, version, renderers.get(),
+                            greedy ? greedyMeshers.get() : null, visibilities.get()));
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Enables or disables greedy meshing for chunks submitted from now on.
+     */
+    public void setGreedyMeshing(boolean greedyMeshing) {
+        this.greedyMeshing = greedyMeshing;
+    }
+
+    /**
+     * Uploads meshes that workers have finished so far. Must be called on the
+     * GL thread.
+     *
+     * @return Number of meshes uploaded.
+     */
+    public int uploadFinished() {
+        int count = 0;
+        ChunkMesh mesh;
+        while ((mesh = finished.poll()) != null) {
+            mesh.chunk.upload(mesh);
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of chunks submitted but not yet meshed.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        finished.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mojang.minecraft.render;
+
+import java.util.Arrays;
+
+import com.mojang.minecraft.level.LevelView;
+import com.mojang.minecraft.level.tile.Block;
+
+/**
+ * Works out which faces of a chunk can see each other through the chunk, i.e.
+ * are connected by a path of cells that are not full opaque cubes. The result
+ * is a bit set with bit (from * 6 + to) set for every connected pair of faces.
+ * Faces are numbered like block sides: 0 = -y, 1 = +y, 2 = -z, 3 = +z,
+ * 4 = -x, 5 = +x. LevelRenderer.cullOccluded walks these sets outwards from
+ * the camera to find chunks that cannot possibly be seen.
+ *
+ * One instance per worker thread; not thread-safe.
+ */
+final class ChunkVisibility {
+
+    // Every face connected to every other; used until a chunk is first meshed
+    static final long ALL = (1L << 36) - 1;
+
+    private static final int SIZE = 16;
+    private static final int CELLS = SIZE * SIZE * SIZE;
+
+    private final boolean[] opaque = new boolean[CELLS];
+    private final boolean[] visited = new boolean[CELLS];
+    private final int[] queue = new int[CELLS];
+
+    static boolean connects(long visibility, int from, int to) {
+        return (visibility & 1L << (from * 6 + to)) != 0;
+    }
+
+    /**
+     * Computes face connectivity of the chunk whose lowest corner is at
+     * (x, y, z).
+     */
+    long compute(LevelView level, int x, int y, int z) {
+        int opaqueCount = 0;
+        for (int i = 0; i < CELLS; ++i) {
+            int tile = level.getTile(x + (i & 15), y + (i >> 8), z + (i >> 4 & 15));
+            opaque[i] = tile > 0 && Block.blocks[tile].isFullOpaqueCube();
+            if (opaque[i]) {
+                ++opaqueCount;
+            }
+        }
+        // Fewer opaque cells than it takes to wall off a single face
+        if (opaqueCount < SIZE * SIZE) {
+            return ALL;
+        }
+
+        Arrays.fill(visited, false);
+        long visibility = 0;
+        for (int i = 0; i < CELLS; ++i) {
+            if (!opaque[i] && !visited[i]) {
+                int faces = fill(i);
+                for (int from = 0; from < 6; ++from) {
+                    if ((faces & 1 << from) != 0) {
+                        for (int to = 0; to < 6; ++to) {
+                            if ((faces & 1 << to) != 0) {
+                                visibility |= 1L << (from * 6 + to);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return visibility;
+    }
+
+    // Flood-fills the open region containing the given cell, returning the
+    // set of chunk faces it touches.
+    private int fill(int start) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+        int faces = 0;
+        while (head < tail) {
+            int i = queue[head++];
+            int cx = i & 15;
+            int cy = i >> 8;
+            int cz = i >> 4 & 15;
+            if (cy == 0) {
+                faces |= 1;
+            } else {
+                tail = visit(i - 256, tail);
+            }
+            if (cy == SIZE - 1) {
+                faces |= 1 << 1;
+            } else {
+                tail = visit(i + 256, tail);
+            }
+            if (cz == 0) {
+                faces |= 1 << 2;
+            } else {
+                tail = visit(i - 16, tail);
+            }
+            if (cz == SIZE - 1) {
+                faces |= 1 << 3;
+            } else {
+                tail = visit(i + 16, tail);
+            }
+            if (cx == 0) {
+                faces |= 1 << 4;
+            } else {
+                tail = visit(i - 1, tail);
+            }
+            if (cx == SIZE - 1) {
+                faces |= 1 << 5;
+            } else {
+                tail = visit(i + 1, tail);
+            }
+        }
+        return faces;
+    }
+
+    private int visit(int i, int tail) {
+        if (!opaque[i] && !visited[i]) {
+            visited[i] = true;
+            queue[tail++] = i;
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,275 @@
+package com.mojang.minecraft.render;
+
+import java.util.Arrays;
+
+import com.mojang.minecraft.level.LevelView;
+import com.mojang.minecraft.level.tile.Block;
+import com.mojang.util.ColorCache;
+
+/**
+ * Merges coplanar faces of greedy-meshable blocks (see
+ * Block.isGreedyMeshable) that share a texture and brightness into larger
+ * quads. A merged quad spans several blocks, so it cannot be drawn from the
+ * terrain atlas; its texture coordinates are in whole tiles and it is drawn
+ * with a per-tile texture that repeats (see TextureManager.getTileTexture).
+ * Quads are emitted grouped by tile, so each group is a single draw call.
+ *
+ * One instance per worker thread; not thread-safe.
+ */
+final class GreedyMesher {
+
+    // Greedy texture coordinates are written divided by this, so that a quad
+    // spanning a whole chunk still fits ShapeRenderer's compact format.
+    static final float TILE_UV_SCALE = 16F;
+
+    private static final int SIZE = 16;
+    // Per-side shading, as applied by Block.render
+    private static final float[] SIDE_SHADE = {0.5F, 1F, 0.8F, 0.8F, 0.6F, 0.6F};
+    // Offset to the neighbour checked for each side, as in Block.render
+    private static final int[][] SIDE_NORMAL = {
+        {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}, {-1, 0, 0}, {1, 0, 0}
+    };
+    // Quad record layout: tile, color, side, x0, y0, z0, x1, y1, z1
+    private static final int QUAD_SIZE = 9;
+
+    // Face keys of the current layer; 0 means no mergeable face
+    private final long[] mask = new long[SIZE * SIZE];
+    private int[] quads = new int[QUAD_SIZE * 1024];
+    private int quadCount;
+    private final int[] tileCounts = new int[256];
+    private int[] sorted = new int[QUAD_SIZE * 1024];
+    // Tile and first vertex of each group emitted by the last build, plus the
+    // end of the last group; at most one group per tile
+    private final int[] groupTiles = new int[256];
+    private final int[] groupStarts = new int[257];
+
+    /**
+     * Finds the mergeable faces of the chunk whose lowest corner is at
+     * (x, y, z) and writes them to the renderer, which must be capturing in
+     * the compact format with its translation set to (-x, -y, -z), as in
+     * ChunkMesh.build. The groups emitted can then be read through
+     * getGroupTiles and getGroupStarts, until the next build.
+     *
+     * @return Number of groups emitted.
+     */
+    int build(LevelView level, int x, int y, int z, ShapeRenderer renderer) {
+        quadCount = 0;
+        for (int side = 0; side < 6; ++side) {
+            for (int layer = 0; layer < SIZE; ++layer) {
+                fillMask(level, x, y, z, side, layer);
+                mergeMask(side, layer);
+            }
+        }
+        // Quads are in chunk-local coordinates
+        renderer.addTranslation(x, y, z);
+        int groups = emit(renderer, groupTiles, groupStarts);
+        renderer.addTranslation(-x, -y, -z);
+        return groups;
+    }
+
+    /**
+     * @return the tile of each group emitted by the last build
+     */
+    int[] getGroupTiles() {
+        return groupTiles;
+    }
+
+    /**
+     * @return the first vertex of each group emitted by the last build,
+     *         relative to the renderer's vertex count when it was called, plus
+     *         one final entry holding the end of the last group
+     */
+    int[] getGroupStarts() {
+        return groupStarts;
+    }
+
+    // Local block coordinates of cell (a, b) in the given layer. The layer
+    // runs along the side's normal; a and b span the face plane.
+    private static int localX(int side, int layer, int a, int b) {
+        return side >= 4 ? layer : a;
+    }
+
+    private static int localY(int side, int layer, int a, int b) {
+        return side <= 1 ? layer : b;
+    }
+
+    private static int localZ(int side, int layer, int a, int b) {
+        if (side <= 1) {
+            return b;
+        }
+        return side <= 3 ? layer : a;
+    }
+
+    private void fillMask(LevelView level, int x, int y, int z, int side, int layer) {
+        int[] normal = SIDE_NORMAL[side];
+        float shade = SIDE_SHADE[side];
+        for (int b = 0; b < SIZE; ++b) {
+            for (int a = 0; a < SIZE; ++a) {
+                int bx = x + localX(side, layer, a, b);
+                int by = y + localY(side, layer, a, b);
+                int bz = z + localZ(side, layer, a, b);
+                long key = 0;
+                int tile = level.getTile(bx, by, bz);
+                if (tile > 0) {
+                    Block block = Block.blocks[tile];
+                    int nx = bx + normal[0];
+                    int ny = by + normal[1];
+                    int nz = bz + normal[2];
+                    if (block.isGreedyMeshable() && block.canRenderSide(level, nx, ny, nz, side)) {
+                        ColorCache brightness = block.getFaceBrightness(level, nx, ny, nz);
+                        int color = toColor(shade * brightness.R) << 16
+                                | toColor(shade * brightness.G) << 8
+                                | toColor(shade * brightness.B);
+                        key = ((long) (block.getTextureId(side) & 255) << 24 | color) + 1;
+                    }
+                }
+                mask[b * SIZE + a] = key;
+            }
+        }
+    }
+
+    // Same conversion as ShapeRenderer.color(float, float, float)
+    private static int toColor(float value) {
+        return Math.max(0, Math.min(255, (int) (value * 255F)));
+    }
+
+    private void mergeMask(int side, int layer) {
+        for (int b = 0; b < SIZE; ++b) {
+            for (int a = 0; a < SIZE;) {
+                long key = mask[b * SIZE + a];
+                if (key == 0) {
+                    ++a;
+                    continue;
+                }
+
+                int w = 1;
+                while (a + w < SIZE && mask[b * SIZE + a + w] == key) {
+                    ++w;
+                }
+
+                int h = 1;
+                grow:
+                while (b + h < SIZE) {
+                    for (int i = 0; i < w; ++i) {
+                        if (mask[(b + h) * SIZE + a + i] != key) {
+                            break grow;
+                        }
+                    }
+                    ++h;
+                }
+
+                for (int j = 0; j < h; ++j) {
+                    Arrays.fill(mask, (b + j) * SIZE + a, (b + j) * SIZE + a + w, 0L);
+                }
+                addQuad(side, layer, a, b, w, h, key - 1);
+                a += w;
+            }
+        }
+    }
+
+    private void addQuad(int side, int layer, int a, int b, int w, int h, long key) {
+        if ((quadCount + 1) * QUAD_SIZE > quads.length) {
+            quads = Arrays.copyOf(quads, quads.length * 2);
+        }
+        // Faces on the positive side of a block lie on its far plane
+        int plane = side % 2 == 1 ? layer + 1 : layer;
+        int i = quadCount++ * QUAD_SIZE;
+        quads[i] = (int) (key >>> 24);
+        quads[i + 1] = (int) key & 0xFFFFFF;
+        quads[i + 2] = side;
+        quads[i + 3] = side >= 4 ? plane : a;
+        quads[i + 4] = side <= 1 ? plane : b;
+        quads[i + 5] = side <= 1 ? b : side <= 3 ? plane : a;
+        quads[i + 6] = side >= 4 ? plane : a + w;
+        quads[i + 7] = side <= 1 ? plane : b + h;
+        quads[i + 8] = side <= 1 ? b + h : side <= 3 ? plane : a + w;
+    }
+
+    private int emit(ShapeRenderer renderer, int[] tiles, int[] starts) {
+        // Counting sort by tile, so each tile's quads are contiguous
+        Arrays.fill(tileCounts, 0);
+        for (int q = 0; q < quadCount; ++q) {
+            ++tileCounts[quads[q * QUAD_SIZE]];
+        }
+        if (sorted.length < quads.length) {
+            sorted = new int[quads.length];
+        }
+        int groups = 0;
+        int offset = 0;
+        for (int tile = 0; tile < 256; ++tile) {
+            int count = tileCounts[tile];
+            tileCounts[tile] = offset;
+            offset += count;
+            if (count > 0) {
+                ++groups;
+            }
+        }
+        for (int q = 0; q < quadCount; ++q) {
+            int tile = quads[q * QUAD_SIZE];
+            System.arraycopy(quads, q * QUAD_SIZE, sorted, tileCounts[tile]++ * QUAD_SIZE, QUAD_SIZE);
+        }
+
+        int firstVertex = renderer.getVertexCount();
+        int group = -1;
+        int lastTile = -1;
+        for (int q = 0; q < quadCount; ++q) {
+            int i = q * QUAD_SIZE;
+            if (sorted[i] != lastTile) {
+                lastTile = sorted[i];
+                tiles[++group] = lastTile;
+                starts[group] = renderer.getVertexCount() - firstVertex;
+            }
+            int color = sorted[i + 1];
+            renderer.setColorOpaque(color >> 16 & 255, color >> 8 & 255, color & 255);
+            emitQuad(renderer, sorted[i + 2], sorted[i + 3], sorted[i + 4], sorted[i + 5],
+                    sorted[i + 6], sorted[i + 7], sorted[i + 8]);
+        }
+        starts[groups] = renderer.getVertexCount() - firstVertex;
+        return groups;
+    }
+
+    // Corner order and texture orientation match Block.renderSide, with
+    // texture coordinates running over whole tiles instead of one.
+    private static void emitQuad(ShapeRenderer r, int side,
+            int x0, int y0, int z0, int x1, int y1, int z1) {
+        float s = TILE_UV_SCALE;
+        switch (side) {
+            case 0:
+                r.vertexUV(x0, y0, z1, x0 / s, z1 / s);
+                r.vertexUV(x0, y0, z0, x0 / s, z0 / s);
+                r.vertexUV(x1, y0, z0, x1 / s, z0 / s);
+                r.vertexUV(x1, y0, z1, x1 / s, z1 / s);
+                break;
+            case 1:
+                r.vertexUV(x1, y1, z1, x1 / s, z1 / s);
+                r.vertexUV(x1, y1, z0, x1 / s, z0 / s);
+                r.vertexUV(x0, y1, z0, x0 / s, z0 / s);
+                r.vertexUV(x0, y1, z1, x0 / s, z1 / s);
+                break;
+            case 2:
+                r.vertexUV(x0, y1, z0, -x0 / s, -y1 / s);
+                r.vertexUV(x1, y1, z0, -x1 / s, -y1 / s);
+                r.vertexUV(x1, y0, z0, -x1 / s, -y0 / s);
+                r.vertexUV(x0, y0, z0, -x0 / s, -y0 / s);
+                break;
+            case 3:
+                r.vertexUV(x0, y1, z1, x0 / s, -y1 / s);
+                r.vertexUV(x0, y0, z1, x0 / s, -y0 / s);
+                r.vertexUV(x1, y0, z1, x1 / s, -y0 / s);
+                r.vertexUV(x1, y1, z1, x1 / s, -y1 / s);
+                break;
+            case 4:
+                r.vertexUV(x0, y1, z1, z1 / s, -y1 / s);
+                r.vertexUV(x0, y1, z0, z0 / s, -y1 / s);
+                r.vertexUV(x0, y0, z0, z0 / s, -y0 / s);
+                r.vertexUV(x0, y0, z1, z1 / s, -y0 / s);
+                break;
+            default:
+                r.vertexUV(x1, y0, z1, -z1 / s, -y0 / s);
+                r.vertexUV(x1, y0, z0, -z0 / s, -y0 / s);
+                r.vertexUV(x1, y1, z0, -z0 / s, -y1 / s);
+                r.vertexUV(x1, y1, z1, -z1 / s, -y1 / s);
+                break;
+        }
+    }
+}
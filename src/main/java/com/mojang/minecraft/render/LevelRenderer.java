@@ -6,12 +6,17 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ARBBufferObject;
+import org.lwjgl.opengl.ARBVertexBufferObject;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GLContext;
 
 import com.mojang.minecraft.Minecraft;
+import com.mojang.minecraft.level.DirtyRegion;
 import com.mojang.minecraft.level.Level;
 import com.mojang.minecraft.player.Player;
 import com.mojang.minecraft.render.texture.Textures;
+import com.mojang.util.LogUtil;
 
 public final class LevelRenderer {
 
@@ -20,24 +25,44 @@ public final class LevelRenderer {
     public IntBuffer buffer = BufferUtils.createIntBuffer(65536);
     public List<Chunk> chunksToUpdate = new ArrayList<>();
     public Chunk[] chunkCache;
+    public final ChunkUpdater chunkUpdater = new ChunkUpdater();
     public Minecraft minecraft;
     public int ticks = 0;
     public float cracks;
     private final int bedrockListId, waterListId;
     private Chunk[] loadQueue;
+    // True if chunks are drawn from buffer objects instead of display lists
+    public final boolean useVBO;
+    // Chunks selected for drawing by the last sortChunks call (VBO path only)
+    private Chunk[] renderList;
+    private int renderCount;
+    private int renderPass;
     private int xChunks, yChunks, zChunks;
+    // Scratch state for cullOccluded, indexed like chunkCache. reachedDirs
+    // holds the directions walked to reach each chunk (0 = not reached).
+    private int[] occlusionQueue;
+    private byte[] entryFaces;
+    private byte[] reachedDirs;
     private int baseListId;
     private int listsCount = -1;
     private final int[] chunkDataCache = new int[50000];
-    private float lastLoadX = -9999F;
-    private float lastLoadY = -9999F;
-    private float lastLoadZ = -9999F;
+    private final ChunkDistanceSorter sorter = new ChunkDistanceSorter();
+    // Chunk the player was in when loadQueue was last sorted
+    private int lastLoadX = Integer.MIN_VALUE;
+    private int lastLoadY = Integer.MIN_VALUE;
+    private int lastLoadZ = Integer.MIN_VALUE;
 
     public LevelRenderer(Minecraft minecraft, TextureManager textureManager) {
         this.minecraft = minecraft;
         this.textureManager = textureManager;
         bedrockListId = GL11.glGenLists(2);
         waterListId = bedrockListId + 1;
+        useVBO = GLContext.getCapabilities().GL_ARB_vertex_buffer_object;
+        if (useVBO) {
+            LogUtil.logInfo("Using vertex buffer objects for chunk geometry.");
+        } else {
+            LogUtil.logInfo("GL_ARB_vertex_buffer_object not supported, using display lists.");
+        }
     }
     
     // Requires GL_TEXTURE_2D to be enabled and rock.png to be set as texture.
@@ -101,6 +126,24 @@ public final class LevelRenderer {
         }
     }
 
+    /**
+     * Queues the chunks marked in a batch of level edits for rebuilding.
+     */
+    public final void queueChunks(DirtyRegion region) {
+        for (int i = 0; i < region.getChunkCount(); ++i) {
+            int x = region.getChunkX(i);
+            int y = region.getChunkY(i);
+            int z = region.getChunkZ(i);
+            if (x < xChunks && y < yChunks && z < zChunks) {
+                Chunk chunk = chunkCache[(z * yChunks + y) * xChunks + x];
+                if (!chunk.loaded) {
+                    chunk.loaded = true;
+                    chunksToUpdate.add(chunk);
+                }
+            }
+        }
+    }
+
     public final void refresh() {
         if (chunkCache != null) {
             for (Chunk aChunkCache : chunkCache) {
@@ -109,6 +152,7 @@ public final class LevelRenderer {
         }
         if (listsCount > -1) {
             GL11.glDeleteLists(baseListId, listsCount);
+            listsCount = -1;
         }
         // So that worlds that are not multiples of 16 do not have invisible chunks.
         int paddedWidth = nextMultipleOf16(level.width);
@@ -120,16 +164,25 @@ public final class LevelRenderer {
         zChunks = paddedLength / 16;
         chunkCache = new Chunk[xChunks * yChunks * zChunks];
         loadQueue = new Chunk[xChunks * yChunks * zChunks];
+        renderList = new Chunk[xChunks * yChunks * zChunks];
+        renderCount = 0;
+        lastLoadX = Integer.MIN_VALUE;
+        occlusionQueue = new int[chunkCache.length];
+        entryFaces = new byte[chunkCache.length];
+        reachedDirs = new byte[chunkCache.length];
+        chunkUpdater.setGreedyMeshing(useVBO && minecraft.settings.greedyMeshing);
 
         int offset = 0;
-        listsCount = xChunks * yChunks * zChunks * 2;
-        baseListId = GL11.glGenLists(listsCount);
+        if (!useVBO) {
+            listsCount = xChunks * yChunks * zChunks * 2;
+            baseListId = GL11.glGenLists(listsCount);
+        }
 
         for (int x = 0; x < xChunks; ++x) {
             for (int y = 0; y < yChunks; ++y) {
                 for (int z = 0; z < zChunks; ++z) {
                     chunkCache[(z * yChunks + y) * xChunks + x]
-                            = new Chunk(level, x * 16, y * 16, z * 16, baseListId + offset);
+                            = new Chunk(level, x * 16, y * 16, z * 16, baseListId + offset, useVBO);
                     loadQueue[(z * yChunks + y) * xChunks + x]
                             = chunkCache[(z * yChunks + y) * xChunks + x];
                     offset += 2;
@@ -243,15 +296,103 @@ public final class LevelRenderer {
         GL11.glEndList();
     }
 
+    /**
+     * Hides visible chunks that cannot be seen from the player's position
+     * because solid terrain is in the way. Walks outwards from the player's
+     * chunk through chunks that passed frustum and fog culling, only
+     * crossing from one face of a chunk to another if open space connects
+     * them (see ChunkVisibility) and never turning back towards the player.
+     * Must run after Chunk.clip.
+     */
+    public final void cullOccluded(Player player) {
+        int startX = (int) Math.floor(player.x) >> 4;
+        int startY = (int) Math.floor(player.y) >> 4;
+        int startZ = (int) Math.floor(player.z) >> 4;
+        if (startX < 0 || startY < 0 || startZ < 0
+                || startX >= xChunks || startY >= yChunks || startZ >= zChunks) {
+            // Outside the chunk grid, where nothing blocks the view
+            return;
+        }
+
+        Arrays.fill(reachedDirs, (byte) 0);
+        int start = (startZ * yChunks + startY) * xChunks + startX;
+        int head = 0;
+        int tail = 0;
+        occlusionQueue[tail++] = start;
+        entryFaces[start] = -1;
+        // Any non-zero value marks a chunk as reached
+        reachedDirs[start] = (byte) 0x80;
+
+        while (head < tail) {
+            int index = occlusionQueue[head++];
+            Chunk chunk = chunkCache[index];
+            int entry = entryFaces[index];
+            int dirs = reachedDirs[index] & 0x3F;
+            int cx = index % xChunks;
+            int cy = index / xChunks % yChunks;
+            int cz = index / xChunks / yChunks;
+            for (int dir = 0; dir < 6; ++dir) {
+                // Do not walk back towards the player
+                if ((dirs & 1 << (dir ^ 1)) != 0) {
+                    continue;
+                }
+                if (entry >= 0 && !chunk.connects(entry, dir)) {
+                    continue;
+                }
+                int nx = cx + (dir == 4 ? -1 : dir == 5 ? 1 : 0);
+                int ny = cy + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+                int nz = cz + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+                if (nx < 0 || ny < 0 || nz < 0 || nx >= xChunks || ny >= yChunks || nz >= zChunks) {
+                    continue;
+                }
+                int next = (nz * yChunks + ny) * xChunks + nx;
+                if (reachedDirs[next] != 0 || !chunkCache[next].visible) {
+                    continue;
+                }
+                entryFaces[next] = (byte) (dir ^ 1);
+                reachedDirs[next] = (byte) (0x80 | dirs | 1 << dir);
+                occlusionQueue[tail++] = next;
+            }
+        }
+
+        for (int i = 0; i < chunkCache.length; ++i) {
+            if (reachedDirs[i] == 0) {
+                chunkCache[i].visible = false;
+            }
+        }
+    }
+
+    /**
+     * Sorts chunksToUpdate so the nearest visible chunk is last.
+     */
+    public final void sortChunksToUpdate(Player player) {
+        sorter.sort(chunksToUpdate, player);
+    }
+
     public final int sortChunks(Player player, int renderPass) {
-        float distX = player.x - lastLoadX;
-        float distY = player.y - lastLoadY;
-        float distZ = player.z - lastLoadZ;
-        if (distX * distX + distY * distY + distZ * distZ > 64f) {
-            lastLoadX = player.x;
-            lastLoadY = player.y;
-            lastLoadZ = player.z;
-            Arrays.sort(loadQueue, new ChunkDirtyDistanceComparator(player));
+        // Only visible chunks are drawn, so the order need not depend on
+        // visibility; distances only change in order when the player enters
+        // another chunk
+        int chunkX = (int) Math.floor(player.x) >> 4;
+        int chunkY = (int) Math.floor(player.y) >> 4;
+        int chunkZ = (int) Math.floor(player.z) >> 4;
+        if (chunkX != lastLoadX || chunkY != lastLoadY || chunkZ != lastLoadZ) {
+            lastLoadX = chunkX;
+            lastLoadY = chunkY;
+            lastLoadZ = chunkZ;
+            sorter.sort(loadQueue, loadQueue.length, player, false);
+        }
+
+        if (useVBO) {
+            renderCount = 0;
+            for (Chunk chunk : loadQueue) {
+                if (chunk.isRenderable(renderPass)) {
+                    renderList[renderCount++] = chunk;
+                }
+            }
+            this.renderPass = renderPass;
+            renderChunks();
+            return renderCount;
         }
 
         int count = 0;
@@ -262,13 +403,71 @@ public final class LevelRenderer {
         buffer.clear();
         buffer.put(chunkDataCache, 0, count);
         buffer.flip();
-        
-        if (buffer.remaining() > 0) {
+        renderChunks();
+
+        return buffer.remaining();
+    }
+
+    // Draws the chunks that were selected by the last sortChunks call again.
+    public void renderChunks() {
+        if (useVBO) {
+            if (renderCount == 0) {
+                return;
+            }
             GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureManager.load(Textures.TERRAIN));
+            beginCompactTextures();
+            GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+            GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+            GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+            for (int i = 0; i < renderCount; ++i) {
+                renderList[i].renderBuffer(renderPass);
+            }
+            if (renderPass == 0) {
+                renderGreedyFaces();
+            }
+            GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+            GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+            GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+            ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, 0);
+            endCompactTextures();
+        } else if (buffer.remaining() > 0) {
+            GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureManager.load(Textures.TERRAIN));
+            beginCompactTextures();
             GL11.glCallLists(buffer);
+            endCompactTextures();
         }
-        
-        return buffer.remaining();
+    }
+
+    // Greedy-meshed faces use whole-tile texture coordinates, each tile
+    // bound as its own repeating texture.
+    private void renderGreedyFaces() {
+        GL11.glMatrixMode(GL11.GL_TEXTURE);
+        GL11.glPushMatrix();
+        GL11.glScalef(GreedyMesher.TILE_UV_SCALE, GreedyMesher.TILE_UV_SCALE, 1F);
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
+        for (int i = 0; i < renderCount; ++i) {
+            if (renderList[i].hasGreedyFaces()) {
+                renderList[i].renderGreedy(textureManager);
+            }
+        }
+        GL11.glMatrixMode(GL11.GL_TEXTURE);
+        GL11.glPopMatrix();
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
+    }
+
+    // Chunk meshes store texture coordinates as fixed-point shorts.
+    private static void beginCompactTextures() {
+        float scale = 1F / ShapeRenderer.TEXTURE_SCALE;
+        GL11.glMatrixMode(GL11.GL_TEXTURE);
+        GL11.glPushMatrix();
+        GL11.glScalef(scale, scale, 1F);
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
+    }
+
+    private static void endCompactTextures() {
+        GL11.glMatrixMode(GL11.GL_TEXTURE);
+        GL11.glPopMatrix();
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
     }
     
     public void drawSky(ShapeRenderer shapeRenderer, float playerY,
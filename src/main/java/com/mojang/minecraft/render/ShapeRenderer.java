@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.Arrays;
 
 import org.lwjgl.opengl.ARBBufferObject;
 import org.lwjgl.opengl.ARBVertexBufferObject;
@@ -13,6 +14,15 @@ import com.mojang.minecraft.GameSettings;
 import com.mojang.util.LogUtil;
 
 public class ShapeRenderer {
+    // Size of one vertex in ints, in the default and compact formats.
+    public static final int VERTEX_SIZE = 8;
+    public static final int COMPACT_VERTEX_SIZE = 4;
+    // Compact vertices store positions and texture coordinates as shorts in
+    // these fixed-point units. Drawing them requires scaling the modelview and
+    // texture matrices by the inverse.
+    public static final float POSITION_SCALE = 1024F;
+    public static final float TEXTURE_SCALE = 16384F;
+    private static final boolean littleEndian = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
     public static boolean tryVBO; // TODO Never used
     public static ShapeRenderer instance;
     private static boolean convertQuadsToTriangles; // TODO Never assigned
@@ -41,8 +51,17 @@ public class ShapeRenderer {
     private int vboIndex;
     private int vboCount = 10;
     private int bufferSize;
+    // When capturing, vertices are kept in rawBuffer instead of being drawn,
+    // so that chunk meshes can be built off the GL thread.
+    private final boolean capturing;
+    // Whether vertices are written in the compact terrain format
+    private boolean compact;
+    // Staging for uploadVertices when a mesh is bigger than byteBuffer. Kept
+    // and only ever grown, since direct buffers are freed late.
+    private ByteBuffer uploadBuffer;
 
     public ShapeRenderer(int bufferSize, GameSettings gs) {
+        capturing = false;
         this.bufferSize = bufferSize;
         byteBuffer = GLAllocation.createDirectByteBuffer(bufferSize * 4);
         intBuffer = byteBuffer.asIntBuffer();
@@ -57,6 +76,19 @@ public class ShapeRenderer {
         }
     }
 
+    /**
+     * Creates a renderer that never touches OpenGL. Vertices are accumulated
+     * between begin() and end() and can then be fetched with getVertexData().
+     * The buffer grows as needed instead of being flushed.
+     *
+     * @param bufferSize Initial size of the vertex buffer, in ints.
+     */
+    public ShapeRenderer(int bufferSize) {
+        this.bufferSize = bufferSize;
+        rawBuffer = new int[bufferSize];
+        capturing = true;
+    }
+
     public void addTranslation(float xo, float yo, float zo) {
         xOffset += xo;
         yOffset += yo;
@@ -132,87 +164,207 @@ public class ShapeRenderer {
         } else {
             isDrawing = false;
 
+            if (capturing) {
+                return rawBufferIndex * 4;
+            }
+
             if (vertexCount > 0) {
 
                 intBuffer.clear();
                 intBuffer.put(rawBuffer, 0, rawBufferIndex);
                 byteBuffer.position(0);
                 byteBuffer.limit(rawBufferIndex * 4);
+                drawBuffer(vertexCount, compact);
+            }
 
-                if (useVBO) {
-                    vboIndex = (vboIndex + 1) % vboCount;
-                    ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB,
-                            vertexBuffers.get(vboIndex));
-                    ARBBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB,
-                            byteBuffer, ARBBufferObject.GL_STREAM_DRAW_ARB);
-                }
+            int var1 = rawBufferIndex * 4;
+            reset();
+            return var1;
+        }
+    }
 
-                if (hasTexture) {
-                    if (useVBO) {
-                        GL11.glTexCoordPointer(2, GL11.GL_FLOAT, 32, 12L);
-                    } else {
-                        floatBuffer.position(3);
-                        GL11.glTexCoordPointer(2, 32, floatBuffer);
-                    }
-                    GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
-                }
+    /**
+     * Draws vertices that were captured by another renderer. The data is
+     * expected to carry texture coordinates and colors, as chunk meshes do.
+     * Must be called on the GL thread, outside of begin()/end().
+     *
+     * @param data        Vertex data, as returned by getVertexData().
+     * @param vertexCount Number of vertices in data.
+     * @param compact     Whether data is in the compact vertex format.
+     */
+    public void drawVertices(int[] data, int vertexCount, boolean compact) {
+        if (isDrawing) {
+            throw new IllegalStateException("Already tesselating!");
+        }
+        drawMode = 7; // quads
+        hasTexture = true;
+        hasColor = true;
+        hasNormals = false;
+
+        // Upload in whole quads, as much as the direct buffer can hold at once
+        int vertexSize = compact ? COMPACT_VERTEX_SIZE : VERTEX_SIZE;
+        int maxVertices = bufferSize / (vertexSize * 4) * 4;
+        for (int first = 0; first < vertexCount; first += maxVertices) {
+            int count = Math.min(maxVertices, vertexCount - first);
+            intBuffer.clear();
+            intBuffer.put(data, first * vertexSize, count * vertexSize);
+            byteBuffer.position(0);
+            byteBuffer.limit(count * vertexSize * 4);
+            drawBuffer(count, compact);
+        }
+        reset();
+    }
 
-                if (hasColor) {
-                    if (useVBO) {
-                        GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, 32, 20L);
-                    } else {
-                        byteBuffer.position(20);
-                        GL11.glColorPointer(4, true, 32, byteBuffer);
-                    }
-
-                    GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
-                }
+    /**
+     * Fills a buffer object with vertices that were captured by another
+     * renderer, replacing its previous contents. Must be called on the GL
+     * thread, outside of begin()/end().
+     *
+     * @param bufferId ARB buffer object to fill.
+     * @param data     Vertex data, as returned by getVertexData().
+     * @param length   Number of ints of data to upload.
+     */
+    public void uploadVertices(int bufferId, int[] data, int length) {
+        if (isDrawing) {
+            throw new IllegalStateException("Already tesselating!");
+        }
+        ByteBuffer upload = byteBuffer;
+        if (length > bufferSize) {
+            if (uploadBuffer == null || uploadBuffer.capacity() < length * 4) {
+                uploadBuffer = GLAllocation.createDirectByteBuffer(
+                        Integer.highestOneBit(length * 4 - 1) << 1);
+            }
+            upload = uploadBuffer;
+        }
+        upload.clear();
+        upload.asIntBuffer().put(data, 0, length);
+        upload.limit(length * 4);
+
+        ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, bufferId);
+        ARBBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB,
+                upload, ARBBufferObject.GL_STATIC_DRAW_ARB);
+        ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, 0);
+        reset();
+    }
 
-                if (hasNormals) {
-                    if (useVBO) {
-                        GL11.glNormalPointer(GL11.GL_UNSIGNED_BYTE, 32, 24L);
-                    } else {
-                        byteBuffer.position(24);
-                        GL11.glNormalPointer(32, byteBuffer);
-                    }
+    private void drawBuffer(int vertexCount, boolean compact) {
+        if (compact) {
+            drawCompactBuffer(vertexCount);
+            return;
+        }
 
-                    GL11.glEnableClientState(GL11.GL_NORMAL_ARRAY);
-                }
+        if (useVBO) {
+            vboIndex = (vboIndex + 1) % vboCount;
+            ARBBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB,
+                    vertexBuffers.get(vboIndex));
+            ARBBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB,
+                    byteBuffer, ARBBufferObject.GL_STREAM_DRAW_ARB);
+        }
 
-                if (useVBO) {
-                    GL11.glVertexPointer(3, GL11.GL_FLOAT, 32, 0L);
-                } else {
-                    floatBuffer.position(0);
-                    GL11.glVertexPointer(3, 32, floatBuffer);
-                }
+        if (hasTexture) {
+            if (useVBO) {
+                GL11.glTexCoordPointer(2, GL11.GL_FLOAT, 32, 12L);
+            } else {
+                floatBuffer.position(3);
+                GL11.glTexCoordPointer(2, 32, floatBuffer);
+            }
+            GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        }
 
-                GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+        if (hasColor) {
+            if (useVBO) {
+                GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, 32, 20L);
+            } else {
+                byteBuffer.position(20);
+                GL11.glColorPointer(4, true, 32, byteBuffer);
+            }
 
-                if (drawMode == 7 && convertQuadsToTriangles) {
-                    GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, vertexCount);
-                } else {
-                    GL11.glDrawArrays(drawMode, 0, vertexCount);
-                }
+            GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+        }
 
-                GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+        if (hasNormals) {
+            if (useVBO) {
+                GL11.glNormalPointer(GL11.GL_UNSIGNED_BYTE, 32, 24L);
+            } else {
+                byteBuffer.position(24);
+                GL11.glNormalPointer(32, byteBuffer);
+            }
 
-                if (hasTexture) {
-                    GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
-                }
+            GL11.glEnableClientState(GL11.GL_NORMAL_ARRAY);
+        }
 
-                if (hasColor) {
-                    GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
-                }
+        if (useVBO) {
+            GL11.glVertexPointer(3, GL11.GL_FLOAT, 32, 0L);
+        } else {
+            floatBuffer.position(0);
+            GL11.glVertexPointer(3, 32, floatBuffer);
+        }
 
-                if (hasNormals) {
-                    GL11.glDisableClientState(GL11.GL_NORMAL_ARRAY);
-                }
-            }
+        GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
 
-            int var1 = rawBufferIndex * 4;
-            reset();
-            return var1;
+        if (drawMode == 7 && convertQuadsToTriangles) {
+            GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, vertexCount);
+        } else {
+            GL11.glDrawArrays(drawMode, 0, vertexCount);
+        }
+
+        GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+
+        if (hasTexture) {
+            GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        }
+
+        if (hasColor) {
+            GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+        }
+
+        if (hasNormals) {
+            GL11.glDisableClientState(GL11.GL_NORMAL_ARRAY);
+        }
+    }
+
+    // Client-array draw of the compact format. See vertex() for the layout.
+    private void drawCompactBuffer(int vertexCount) {
+        if (hasTexture) {
+            byteBuffer.position(8);
+            GL11.glTexCoordPointer(2, GL11.GL_SHORT, 16, byteBuffer);
+            GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        }
+
+        if (hasColor) {
+            byteBuffer.position(12);
+            GL11.glColorPointer(4, true, 16, byteBuffer);
+            GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+        }
+
+        byteBuffer.position(0);
+        GL11.glVertexPointer(3, GL11.GL_SHORT, 16, byteBuffer);
+        GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+
+        GL11.glDrawArrays(drawMode, 0, vertexCount);
+
+        GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+
+        if (hasTexture) {
+            GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
         }
+
+        if (hasColor) {
+            GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns a copy of the vertices gathered since the last begin(). Each
+     * vertex is 8 ints: x, y, z, u, v (as float bits), color, normal, unused.
+     * In the compact format a vertex is 4 ints instead; see vertex().
+     */
+    public int[] getVertexData() {
+        return Arrays.copyOf(rawBuffer, rawBufferIndex);
     }
 
     public void noColor() {
@@ -225,7 +377,9 @@ public class ShapeRenderer {
 
     private void reset() {
         vertexCount = 0;
-        byteBuffer.clear();
+        if (byteBuffer != null) {
+            byteBuffer.clear();
+        }
         rawBufferIndex = 0;
         addedVertices = 0;
     }
@@ -247,6 +401,20 @@ public class ShapeRenderer {
         textureV = v;
     }
 
+    /**
+     * Selects the compact terrain vertex format (16 bytes per vertex instead
+     * of 32). Positions are stored as shorts in 1/POSITION_SCALE units, so they
+     * must stay within +/-32 of the origin; use setTranslation() to make them
+     * chunk-relative. Texture coordinates are stored in 1/TEXTURE_SCALE units.
+     * Normals are not stored.
+     */
+    public void setCompact(boolean compact) {
+        if (isDrawing) {
+            throw new IllegalStateException("Already tesselating!");
+        }
+        this.compact = compact;
+    }
+
     public void setTranslation(double xOffSet, double yOffSet, double zOffSet) {
         xOffset = xOffSet;
         yOffset = yOffSet;
@@ -275,9 +443,39 @@ public class ShapeRenderer {
         normal = nx & 255 | (ny & 255) << 8 | (nz & 255) << 16;
     }
 
+    // Packs two shorts so that the first one comes first in native byte order.
+    private static int packShorts(int first, int second) {
+        if (littleEndian) {
+            return (second & 0xFFFF) << 16 | first & 0xFFFF;
+        } else {
+            return (first & 0xFFFF) << 16 | second & 0xFFFF;
+        }
+    }
+
     public void vertex(double vx, double vy, double vz) {
         ++addedVertices;
 
+        if (compact) {
+            // Layout: [x, y] [z, unused] [u, v] [color], as shorts
+            int x = Math.round((float) (vx + xOffset) * POSITION_SCALE);
+            int y = Math.round((float) (vy + yOffset) * POSITION_SCALE);
+            int z = Math.round((float) (vz + zOffset) * POSITION_SCALE);
+            rawBuffer[rawBufferIndex + 0] = packShorts(x, y);
+            rawBuffer[rawBufferIndex + 1] = packShorts(z, 0);
+            if (hasTexture) {
+                rawBuffer[rawBufferIndex + 2] = packShorts(
+                        Math.round((float) textureU * TEXTURE_SCALE),
+                        Math.round((float) textureV * TEXTURE_SCALE));
+            }
+            if (hasColor) {
+                rawBuffer[rawBufferIndex + 3] = color;
+            }
+            rawBufferIndex += COMPACT_VERTEX_SIZE;
+            ++vertexCount;
+            growOrFlush();
+            return;
+        }
+
         if (drawMode == 7 && convertQuadsToTriangles && addedVertices % 4 == 0) {
             for (int var7 = 0; var7 < 2; ++var7) {
                 int var8 = 8 * (3 - var7);
@@ -317,10 +515,18 @@ public class ShapeRenderer {
         rawBuffer[rawBufferIndex + 2] = Float.floatToRawIntBits((float) (vz + zOffset));
         rawBufferIndex += 8;
         ++vertexCount;
+        growOrFlush();
+    }
 
+    private void growOrFlush() {
         if (vertexCount % 4 == 0 && rawBufferIndex >= bufferSize - 32) {
-            end();
-            isDrawing = true;
+            if (capturing) {
+                bufferSize *= 2;
+                rawBuffer = Arrays.copyOf(rawBuffer, bufferSize);
+            } else {
+                end();
+                isDrawing = true;
+            }
         }
     }
 
@@ -404,6 +404,7 @@ public class TextureManager {
 
             case Textures.TERRAIN:
                 int id = loadCustom(file, currentTerrainPng);
+                unloadTileTextures();
                 try {
                     initAtlas();
                     if (currentTerrainPng != null) {
@@ -439,6 +440,28 @@ public class TextureManager {
         }
     }
 
+    // Returns a texture holding a single terrain tile, for geometry that
+    // repeats a tile across one quad (such as greedy-meshed chunk faces).
+    public int getTileTexture(int tile) {
+        String name = Textures.TERRAIN + "#" + tile;
+        Integer val = textures.get(name);
+        if (val != null) {
+            return (int) val;
+        }
+        if (tile < 0 || tile >= textureAtlas.size()) {
+            return load(Textures.TERRAIN);
+        }
+        int id = load(textureAtlas.get(tile));
+        textures.put(name, id);
+        return id;
+    }
+
+    private void unloadTileTextures() {
+        for (int tile = 0; tile < 256; ++tile) {
+            unloadTexture(Textures.TERRAIN + "#" + tile);
+        }
+    }
+
     int loadCustom(String file, BufferedImage img) {
         int id;
         if (img != null) {
@@ -1,24 +1,38 @@
 package com.mojang.minecraft.sound;
 
 import java.net.URL;
-import java.nio.ByteBuffer;
 
 import com.mojang.util.LogUtil;
 import de.jarnbjo.ogg.LogicalOggStreamImpl;
 import de.jarnbjo.ogg.OnDemandUrlStream;
 import de.jarnbjo.vorbis.VorbisStream;
 
-// TODO.
+/**
+ * A streamed music track. MusicDecoder decodes ahead into a ring of stereo
+ * samples, and the mixer plays from it. The decoder thread is the only
+ * writer and the mixer thread the only reader, so the ring needs no lock:
+ * each side only advances its own position.
+ */
 public final class Music implements Audio {
 
-    ByteBuffer playing = ByteBuffer.allocate(176400);
-    ByteBuffer current = ByteBuffer.allocate(176400);
-    ByteBuffer previous = null;
+    // Ring size in frames (about 3 seconds); a power of two
+    private static final int RING_FRAMES = 1 << 17;
+    private static final int RING_MASK = RING_FRAMES - 1;
+
+    // Interleaved left and right samples
+    private final short[] ring = new short[RING_FRAMES * 2];
+    // Total frames ever written and read; only the decoder and mixer,
+    // respectively, advance them
+    private volatile long written;
+    private volatile long read;
+
     VorbisStream stream;
+    int channels;
     SoundPlayer player;
-    boolean finished = false;
-    boolean stopped = false;
-    private ByteBuffer processing = null;
+    // Set by the decoder once the stream has ended or failed
+    volatile boolean finished = false;
+    // Set by the mixer once it has stopped playing the track
+    volatile boolean stopped = false;
 
     public Music(SoundPlayer var1, URL var2) {
         player = var1;
@@ -26,10 +40,13 @@ public final class Music implements Audio {
             LogicalOggStreamImpl var3 = new OnDemandUrlStream(var2).getLogicalStreams().iterator()
                     .next();
             stream = new VorbisStream(var3);
+            channels = stream.getIdentificationHeader().getChannels();
         } catch (Exception ex) {
             LogUtil.logError("Error loading music from " + var2, ex);
+            finished = true;
+            return;
         }
-        new MusicPlayThread(this).start();
+        MusicDecoder.add(this);
     }
 
     @Override
@@ -38,42 +55,59 @@ public final class Music implements Audio {
         return false;
     }
 
+    /**
+     * Returns the number of frames the decoder can write without overtaking
+     * the mixer.
+     */
+    int getFreeFrames() {
+        return RING_FRAMES - (int) (written - read);
+    }
+
+    /**
+     * Appends decoded 16-bit big-endian PCM (as returned by VorbisStream) to
+     * the ring, which must have room for it. Mono is copied to both channels,
+     * and channels beyond the second are dropped. Called by the decoder only.
+     */
+    void write(byte[] pcm, int length) {
+        int frameBytes = channels * 2;
+        int frames = length / frameBytes;
+        long position = written;
+        for (int i = 0; i < frames; ++i) {
+            int offset = i * frameBytes;
+            short left = (short) (pcm[offset] << 8 | pcm[offset + 1] & 255);
+            short right = left;
+            if (channels > 1) {
+                right = (short) (pcm[offset + 2] << 8 | pcm[offset + 3] & 255);
+            }
+            int index = (int) (position + i & RING_MASK) << 1;
+            ring[index] = left;
+            ring[index + 1] = right;
+        }
+        written = position + frames;
+    }
+
     @Override
     public final boolean play(int[] var1, int[] var2, int var3) {
         if (!player.settings.music) {
             stopped = true;
             return false;
-        } else {
-            int var4 = 0;
-
-            while (var3 > 0 && (processing != null || previous != null)) {
-                if (processing == null && previous != null) {
-                    processing = previous;
-                    previous = null;
-                }
-
-                if (processing != null && processing.remaining() > 0) {
-                    int var5;
-                    if ((var5 = processing.remaining() / 4) > var3) {
-                        var5 = var3;
-                    }
-
-                    for (int var6 = 0; var6 < var5; ++var6) {
-                        var1[var4 + var6] += processing.getShort();
-                        var2[var4 + var6] += processing.getShort();
-                    }
-
-                    var4 += var5;
-                    var3 -= var5;
-                }
+        }
 
-                if (current == null && processing != null && processing.remaining() == 0) {
-                    current = processing;
-                    processing = null;
-                }
-            }
+        long position = read;
+        int frames = (int) Math.min(var3, written - position);
+        for (int i = 0; i < frames; ++i) {
+            int index = (int) (position + i & RING_MASK) << 1;
+            var1[i] += ring[index];
+            var2[i] += ring[index + 1];
+        }
+        read = position + frames;
 
-            return processing != null || previous != null || !finished;
+        if (getFreeFrames() >= RING_FRAMES / 2) {
+            MusicDecoder.wake();
         }
+        // Checked before the ring, so samples written just before the end are
+        // not skipped
+        boolean ended = finished;
+        return !ended || written != read;
     }
 }
@@ -0,0 +1,112 @@
+package com.mojang.minecraft.sound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import com.mojang.util.LogUtil;
+
+/**
+ * Decodes every playing music track on one shared thread, keeping each
+ * track's ring topped up. The thread parks while every ring is full and is
+ * woken by the mixer once a ring has drained to half, or when a track is
+ * added.
+ */
+final class MusicDecoder implements Runnable {
+
+    // Bytes of PCM decoded at a time
+    private static final int CHUNK_BYTES = 4096;
+
+    private static final Queue<Music> added = new ConcurrentLinkedQueue<>();
+    private static Thread thread;
+
+    // Owned by the decoder thread
+    private final List<Music> tracks = new ArrayList<>();
+    private final byte[] chunk = new byte[CHUNK_BYTES];
+
+    private MusicDecoder() {
+    }
+
+    /**
+     * Starts decoding the given track, starting the decoder thread if needed.
+     */
+    static void add(Music music) {
+        added.add(music);
+        synchronized (MusicDecoder.class) {
+            if (thread == null) {
+                thread = new Thread(new MusicDecoder(), "Music-Decoder");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                thread.start();
+            }
+        }
+        wake();
+    }
+
+    /**
+     * Asks the decoder thread to check for room in the rings. Cheap enough to
+     * call from the mixer; a wake-up given while the thread is busy is kept
+     * for its next park.
+     */
+    static void wake() {
+        Thread decoder = thread;
+        if (decoder != null) {
+            LockSupport.unpark(decoder);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Music music;
+            while ((music = added.poll()) != null) {
+                tracks.add(music);
+            }
+
+            boolean decoded = false;
+            for (int i = tracks.size() - 1; i >= 0; --i) {
+                music = tracks.get(i);
+                if (music.stopped || music.finished || !music.player.running) {
+                    music.finished = true;
+                    tracks.remove(i);
+                } else if (decodeChunk(music)) {
+                    decoded = true;
+                }
+            }
+            if (!decoded) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    // Decodes up to one chunk of a track if its ring has room for it. Returns
+    // true if anything was decoded.
+    private boolean decodeChunk(Music music) {
+        int frameBytes = music.channels * 2;
+        int length = Math.min(CHUNK_BYTES, music.getFreeFrames() * frameBytes);
+        length -= length % frameBytes;
+        if (length == 0) {
+            return false;
+        }
+
+        try {
+            int total = 0;
+            while (total < length) {
+                int count = music.stream.readPcm(chunk, total, length - total);
+                if (count <= 0) {
+                    music.finished = true;
+                    break;
+                }
+                total += count;
+            }
+            music.write(chunk, total - total % frameBytes);
+            return total > 0;
+        } catch (Exception ex) {
+            LogUtil.logError("Error while playing music.", ex);
+            music.finished = true;
+            return false;
+        }
+    }
+}
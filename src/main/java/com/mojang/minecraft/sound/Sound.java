@@ -52,9 +52,13 @@ public final class Sound implements Audio {
                 }
             }
         } else {
+            // Ramp the gains across the buffer; steps are in 1/256ths so the
+            // loop needs no division
+            int leftStep = (var10 << 8) / var3;
+            int rightStep = (var11 << 8) / var3;
             for (var12 = 0; var12 < var4; ++var12) {
-                var13 = var8 + var10 * var12 / var3;
-                var14 = var9 + var11 * var12 / var3;
+                var13 = var8 + (leftStep * var12 >> 8);
+                var14 = var9 + (rightStep * var12 >> 8);
                 var1[var12] += data[var12] * var13 >> 16;
                 var2[var12] += data[var12] * var14 >> 16;
             }
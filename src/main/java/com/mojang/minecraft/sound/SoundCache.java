@@ -0,0 +1,125 @@
+package com.mojang.minecraft.sound;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.mojang.util.LogUtil;
+
+/**
+ * Decoded sounds saved to disk, so later launches can skip Vorbis decoding.
+ *
+ * Each cache file holds one sound: a header recording the size and
+ * modification time of the .ogg it was decoded from, then its samples as
+ * big-endian shorts. A cache file is only used if the .ogg still matches
+ * the header. Reading checks the header before touching the samples, then
+ * reads them through a small heap buffer. The file is not mapped, since a
+ * live mapping would keep it from being replaced or deleted on Windows.
+ */
+final class SoundCache {
+
+    private static final int MAGIC = 0x50434D31; // "PCM1"
+    // magic, source size, source mtime, sample rate, sample count
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 4 + 4;
+    // Bytes of samples read at a time; even
+    private static final int CHUNK_BYTES = 65536;
+
+    private SoundCache() {
+    }
+
+    /**
+     * Returns the sound cached in cacheFile, or null if there is none or it
+     * is out of date with source.
+     */
+    static SoundData load(File cacheFile, File source) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+                FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (!readFully(channel, header)) {
+                return null;
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getLong() != source.length()
+                    || header.getLong() != source.lastModified()) {
+                return null;
+            }
+            float sampleRate = header.getFloat();
+            int samples = header.getInt();
+            if (samples < 0 || size != HEADER_BYTES + samples * 2L) {
+                return null;
+            }
+
+            short[] data = new short[samples];
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(CHUNK_BYTES, samples * 2L));
+            int read = 0;
+            while (read < samples) {
+                if (channel.read(chunk) < 0) {
+                    // Shrunk since its size was checked
+                    return null;
+                }
+                chunk.flip();
+                int count = Math.min(chunk.remaining() / 2, samples - read);
+                chunk.asShortBuffer().get(data, read, count);
+                chunk.position(chunk.position() + count * 2);
+                chunk.compact();
+                read += count;
+            }
+            return new SoundData(data, sampleRate);
+        } catch (IOException ex) {
+            LogUtil.logWarning("Error reading cached sound " + cacheFile, ex);
+            return null;
+        }
+    }
+
+    // Fills the buffer from the channel; returns false if the channel ends first.
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a decoded sound to cacheFile. Writes to a temporary file first,
+     * so a half-written cache file is never seen. Failures are logged and
+     * otherwise ignored.
+     */
+    static void save(File cacheFile, File source, SoundData sound) {
+        File directory = cacheFile.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            LogUtil.logWarning("Could not create sound cache directory " + directory);
+            return;
+        }
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            out.writeFloat(sound.length);
+            out.writeInt(sound.data.length);
+            for (short sample : sound.data) {
+                out.writeShort(sample);
+            }
+        } catch (IOException ex) {
+            LogUtil.logWarning("Error caching sound " + source + " to " + cacheFile, ex);
+            tempFile.delete();
+            return;
+        }
+        if (cacheFile.exists() && !cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+            LogUtil.logWarning("Could not replace cached sound " + cacheFile);
+            tempFile.delete();
+        }
+    }
+}
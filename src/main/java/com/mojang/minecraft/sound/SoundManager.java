@@ -6,16 +6,54 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.mojang.util.LogUtil;
 
-// TODO.
+/**
+ * Keeps track of the available sounds and music. Sounds are decoded lazily
+ * (see SoundSource), but registering one also queues it for decoding on a
+ * small pool of background threads, so most are ready before they are first
+ * played.
+ */
 public final class SoundManager {
 
+    // Lists of SoundSource, by sound name
     public Map<String, Object> sounds = new HashMap<>();
     public Random random = new Random();
     public long lastMusic = System.currentTimeMillis() + 60000L;
     private Map<String, Object> music = new HashMap<>();
+    // Where decoded sounds are cached, or null to not cache them
+    private volatile File cacheDirectory;
+    private final ThreadPoolExecutor warmUp;
+
+    public SoundManager() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        warmUp = new ThreadPoolExecutor(threads, threads, 10L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private int count = 0;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "Sound-Decoder-" + count++);
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.NORM_PRIORITY - 1);
+                        return thread;
+                    }
+                });
+        // Let the threads go once everything registered has been decoded
+        warmUp.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sets where decoded sounds are cached, for sounds registered from now on.
+     */
+    public void setCacheDirectory(File directory) {
+        cacheDirectory = directory;
+    }
 
     public final AudioInfo getAudioInfo(String var1, float var2, float var3) {
         List<?> var4 = null;
@@ -26,8 +64,8 @@ public final class SoundManager {
         if (var4 == null) {
             return null;
         } else {
-            SoundData var7 = (SoundData) var4.get(random.nextInt(var4.size()));
-            return new SoundInfo(var7, var3, var2);
+            SoundData var7 = ((SoundSource) var4.get(random.nextInt(var4.size()))).get();
+            return var7 == null ? null : new SoundInfo(var7, var3, var2);
         }
     }
 
@@ -74,11 +112,15 @@ public final class SoundManager {
     public void registerSound(File var1, String var2) {
         try {
             var2 = var2.substring(0, var2.length() - 4).replaceAll("/", ".");
+            File cacheFile = null;
+            if (cacheDirectory != null) {
+                cacheFile = new File(cacheDirectory, var2 + ".pcm");
+            }
             while (Character.isDigit(var2.charAt(var2.length() - 1))) {
                 var2 = var2.substring(0, var2.length() - 1);
             }
 
-            SoundData var7 = SoundReader.read(var1.toURI().toURL());
+            final SoundSource source = new SoundSource(var1, cacheFile);
             synchronized (sounds) {
                 Object var4;
                 if ((var4 = sounds.get(var2)) == null) {
@@ -86,8 +128,14 @@ public final class SoundManager {
                     sounds.put(var2, var4);
                 }
 
-                ((List<SoundData>) var4).add(var7);
+                ((List<SoundSource>) var4).add(source);
             }
+            warmUp.execute(new Runnable() {
+                @Override
+                public void run() {
+                    source.get();
+                }
+            });
         } catch (Exception ex) {
             LogUtil.logError("Error registering sound " + var2 + " from " + var1, ex);
         }
@@ -1,35 +1,62 @@
 package com.mojang.minecraft.sound;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.sound.sampled.SourceDataLine;
 
 import com.mojang.minecraft.GameSettings;
-import com.mojang.util.LogUtil;
 
-// TODO.
+/**
+ * Mixes every playing sound and the music into 16-bit big-endian stereo at
+ * 44100 Hz, and writes it to dataLine on its own thread.
+ *
+ * Other threads hand new sounds over through a lock-free queue, so play()
+ * never waits for mixing. The mixing thread alone owns the voices: up to
+ * MAX_VOICES at once. When all are busy, a new sound takes the place of the
+ * oldest sound effect, so music is never cut off and the latest sounds are
+ * always heard.
+ */
 public final class SoundPlayer implements Runnable {
 
-    public boolean running = false;
+    // Samples per channel mixed at a time (100 ms)
+    public static final int BUFFER_FRAMES = 4410;
+    // Bytes written to the line for each mixed buffer
+    public static final int BUFFER_BYTES = BUFFER_FRAMES * 4;
+    public static final int MAX_VOICES = 64;
+    private static final int CLIP = 32000;
+
+    public volatile boolean running = false;
     public SourceDataLine dataLine;
     public GameSettings settings;
-    private List<Audio> audioQueue = new ArrayList<>();
+    private final Queue<Audio> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean clearPending = false;
+
+    // Owned by the mixing thread
+    private final Audio[] voices = new Audio[MAX_VOICES];
+    // When each voice started, counted in voices started
+    private final long[] voiceStarts = new long[MAX_VOICES];
+    private long voicesStarted;
+    private int voiceCount;
+    private final int[] left = new int[BUFFER_FRAMES];
+    private final int[] right = new int[BUFFER_FRAMES];
 
     public SoundPlayer(GameSettings var1) {
         settings = var1;
     }
 
+    /**
+     * Stops every sound, including any passed to play() before this call,
+     * from the next mixed buffer on.
+     */
     public void clear() {
-        audioQueue.clear();
+        clearPending = true;
     }
 
     public final void play(Audio var1) {
         if (running) {
-            synchronized (audioQueue) {
-                audioQueue.add(var1);
-            }
+            pending.offer(var1);
         }
     }
 
@@ -37,70 +64,92 @@ public final class SoundPlayer implements Runnable {
         this.play(new Sound(var1, var2));
     }
 
+    /**
+     * Returns the number of sounds being mixed, as of the last mix().
+     */
+    public int getVoiceCount() {
+        return voiceCount;
+    }
+
     @Override
     public final void run() {
-        int[] var1 = new int[4410];
-        int[] var2 = new int[4410];
-
-        for (byte[] var3 = new byte[17640]; running; dataLine.write(var3, 0, 17640)) {
-            try {
-                Thread.sleep(1L);
-            } catch (InterruptedException ex) {
-                LogUtil.logWarning("Error waiting to play a sound", ex);
-            }
+        byte[] buffer = new byte[BUFFER_BYTES];
+        while (running) {
+            mix(buffer);
+            // Blocks until the line has room, which paces the loop
+            dataLine.write(buffer, 0, BUFFER_BYTES);
+        }
+    }
 
-            Arrays.fill(var1, 0, 4410, 0);
-            Arrays.fill(var2, 0, 4410, 0);
-            int[] var5 = var2;
-            int[] var6 = var1;
-            synchronized (audioQueue) {
-                int i = 0;
-                while (true) {
-                    if (i >= audioQueue.size()) {
-                        break;
-                    }
-                    if (!audioQueue.get(i).play(var6, var5, 4410)) {
-                        audioQueue.remove(i--);
-                    }
-
-                    ++i;
-                }
+    /**
+     * Mixes the next BUFFER_FRAMES samples of every voice into out, which
+     * must hold BUFFER_BYTES bytes. Called by run(); it needs no audio device,
+     * so the mixer can also be driven without one. Only one thread may call
+     * it.
+     */
+    public void mix(byte[] out) {
+        if (clearPending) {
+            clearPending = false;
+            pending.clear();
+            Arrays.fill(voices, 0, voiceCount, null);
+            voiceCount = 0;
+        }
+        Audio audio;
+        while ((audio = pending.poll()) != null) {
+            int slot = voiceCount < MAX_VOICES ? voiceCount++ : findOldestSoundEffect();
+            if (slot >= 0) {
+                voices[slot] = audio;
+                voiceStarts[slot] = voicesStarted++;
             }
+        }
 
-            int i;
-            if (!settings.music && !settings.sound) {
-                for (i = 0; i < 4410; ++i) {
-                    var3[i << 2] = 0;
-                    var3[(i << 2) + 1] = 0;
-                    var3[(i << 2) + 2] = 0;
-                    var3[(i << 2) + 3] = 0;
-                }
+        Arrays.fill(left, 0);
+        Arrays.fill(right, 0);
+        int i = 0;
+        while (i < voiceCount) {
+            if (voices[i].play(left, right, BUFFER_FRAMES)) {
+                ++i;
             } else {
-                for (i = 0; i < 4410; ++i) {
-                    int var15 = var1[i];
-                    int var14 = var2[i];
-                    if (var15 < -32000) {
-                        var15 = -32000;
-                    }
-
-                    if (var14 < -32000) {
-                        var14 = -32000;
-                    }
-
-                    if (var15 >= 32000) {
-                        var15 = 32000;
-                    }
-
-                    if (var14 >= 32000) {
-                        var14 = 32000;
-                    }
-
-                    var3[i << 2] = (byte) (var15 >> 8);
-                    var3[(i << 2) + 1] = (byte) var15;
-                    var3[(i << 2) + 2] = (byte) (var14 >> 8);
-                    var3[(i << 2) + 3] = (byte) var14;
-                }
+                // Finished: move the last voice into its place
+                voices[i] = voices[--voiceCount];
+                voiceStarts[i] = voiceStarts[voiceCount];
+                voices[voiceCount] = null;
+            }
+        }
+
+        if (!settings.music && !settings.sound) {
+            Arrays.fill(out, 0, BUFFER_BYTES, (byte) 0);
+            return;
+        }
+        // Clip, then interleave; separate passes keep each loop simple enough
+        // for the JIT to unroll and vectorise
+        for (i = 0; i < BUFFER_FRAMES; ++i) {
+            left[i] = Math.max(-CLIP, Math.min(CLIP, left[i]));
+        }
+        for (i = 0; i < BUFFER_FRAMES; ++i) {
+            right[i] = Math.max(-CLIP, Math.min(CLIP, right[i]));
+        }
+        for (i = 0; i < BUFFER_FRAMES; ++i) {
+            int l = left[i];
+            int r = right[i];
+            int j = i << 2;
+            out[j] = (byte) (l >> 8);
+            out[j + 1] = (byte) l;
+            out[j + 2] = (byte) (r >> 8);
+            out[j + 3] = (byte) r;
+        }
+    }
+
+    // Returns the voice of the sound effect that started first, or -1 if
+    // every voice is music.
+    private int findOldestSoundEffect() {
+        int oldest = -1;
+        for (int i = 0; i < voiceCount; ++i) {
+            if (!(voices[i] instanceof Music)
+                    && (oldest < 0 || voiceStarts[i] < voiceStarts[oldest])) {
+                oldest = i;
             }
         }
+        return oldest;
     }
 }
@@ -0,0 +1,63 @@
+package com.mojang.minecraft.sound;
+
+import java.io.File;
+
+import com.mojang.util.LogUtil;
+
+/**
+ * A registered sound file, decoded the first time it is needed: either by
+ * SoundManager's warm-up workers or by whoever first plays it, whichever
+ * comes first. Decoded samples come from the sound cache when it is up to
+ * date, and are written to it otherwise.
+ */
+final class SoundSource {
+
+    private final File file;
+    // Null if decoded sounds are not cached
+    private final File cacheFile;
+    private volatile SoundData data;
+    private volatile boolean failed;
+
+    SoundSource(File file, File cacheFile) {
+        this.file = file;
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Returns the decoded sound, decoding it first if needed, or null if it
+     * could not be decoded.
+     */
+    SoundData get() {
+        SoundData result = data;
+        if (result == null && !failed) {
+            synchronized (this) {
+                result = data;
+                if (result == null && !failed) {
+                    result = decode();
+                    data = result;
+                    failed = result == null;
+                }
+            }
+        }
+        return result;
+    }
+
+    private SoundData decode() {
+        if (cacheFile != null) {
+            SoundData cached = SoundCache.load(cacheFile, file);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try {
+            SoundData decoded = SoundReader.read(file.toURI().toURL());
+            if (cacheFile != null) {
+                SoundCache.save(cacheFile, file, decoded);
+            }
+            return decoded;
+        } catch (Exception ex) {
+            LogUtil.logError("Error decoding sound " + file, ex);
+            return null;
+        }
+    }
+}
@@ -86,6 +86,21 @@ public interface LogicalOggStream {
 
     public byte[] getNextOggPacket() throws OggFormatException, IOException;
 
+    /**
+     * Like <code>getNextOggPacket()</code>, but reads the packet into the given
+     * buffer instead of a new array.
+     * 
+     * @param packet
+     *            the buffer to fill
+     * 
+     * @throws OggFormatException
+     *             if the ogg stream is corrupted
+     * @throws IOException
+     *             if some other IO error occurs
+     */
+
+    public void getNextOggPacket(OggPacket packet) throws OggFormatException, IOException;
+
     /**
      * <i>Note:</i> To read from the stream, you must use either this method or
      * the method <code>getNextOggPacket</code>. Mixing calls to the two methods
@@ -28,9 +28,9 @@
 
 package de.jarnbjo.ogg;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class LogicalOggStreamImpl implements LogicalOggStream {
 
@@ -91,7 +91,14 @@ public class LogicalOggStreamImpl implements LogicalOggStream {
 
     public synchronized byte[] getNextOggPacket() throws EndOfOggStreamException,
             OggFormatException, IOException {
-        ByteArrayOutputStream res = new ByteArrayOutputStream();
+        OggPacket packet = new OggPacket();
+        getNextOggPacket(packet);
+        return Arrays.copyOf(packet.getData(), packet.getLength());
+    }
+
+    public synchronized void getNextOggPacket(OggPacket packet) throws EndOfOggStreamException,
+            OggFormatException, IOException {
+        packet.clear();
         int segmentLength = 0;
 
         if (currentPage == null) {
@@ -113,7 +120,7 @@ public class LogicalOggStreamImpl implements LogicalOggStream {
                     }
                     currentPage = getNextOggPage();
 
-                    if (res.size() == 0 && currentPage.isContinued()) {
+                    if (packet.getLength() == 0 && currentPage.isContinued()) {
                         boolean done = false;
                         while (!done) {
                             if (currentPage.getSegmentLengths()[currentSegmentIndex++] != 255) {
@@ -129,12 +136,12 @@ public class LogicalOggStreamImpl implements LogicalOggStream {
                 }
             }
             segmentLength = currentPage.getSegmentLengths()[currentSegmentIndex];
-            res.write(currentPage.getData(), currentPage.getSegmentOffsets()[currentSegmentIndex],
+            packet.append(currentPage.getData(), currentPage.getSegmentOffsets()[currentSegmentIndex],
                     segmentLength);
             currentSegmentIndex++;
         } while (segmentLength == 255);
 
-        return res.toByteArray();
+        packet.finish();
     }
 
     public synchronized OggPage getNextOggPage() throws EndOfOggStreamException,
@@ -0,0 +1,57 @@
+package de.jarnbjo.ogg;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer for Ogg packets, filled by
+ * <code>LogicalOggStream.getNextOggPacket(OggPacket)</code> so that reading a
+ * stream does not allocate an array per packet. The buffer only grows.
+ * <p>
+ * Bytes past the packet's length are always zero, so a decoder reading
+ * beyond the end of a truncated packet sees zeros rather than data left over
+ * from a previous, longer packet.
+ */
+public final class OggPacket {
+
+    private byte[] data = new byte[4096];
+    private int length;
+    // Bytes past this index have never been written, or have been cleared
+    private int highWater;
+
+    /**
+     * @return the buffer holding the packet, at least <code>getLength()</code>
+     *         bytes long
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return the length of the packet, in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    void append(byte[] source, int offset, int count) {
+        if (length + count > data.length) {
+            byte[] grown = new byte[Math.max(data.length * 2, length + count)];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+        System.arraycopy(source, offset, data, length, count);
+        length += count;
+    }
+
+    // Clears what is left of a previous, longer packet.
+    void finish() {
+        if (highWater > length) {
+            Arrays.fill(data, length, highWater, (byte) 0);
+        }
+        highWater = length;
+    }
+}
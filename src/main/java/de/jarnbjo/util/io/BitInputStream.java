@@ -102,6 +102,22 @@ public interface BitInputStream {
 
     public int getInt(HuffmanNode root) throws IOException;
 
+    /**
+     * reads a huffman codeword using lookup tables built from a Huffman tree,
+     * returning the same value as <code>getInt(table.getRoot())</code>
+     * 
+     * @param table
+     *            the tables used to decode the codeword
+     * @return the decoded unsigned integer value read from the stream
+     * 
+     * @throws IOException
+     *             if an I/O error occurs
+     * @throws UnsupportedOperationException
+     *             if the method is not supported by the implementation
+     */
+
+    public int getInt(HuffmanTable table) throws IOException;
+
     /**
      * reads <code>bits</code> number of bits from the input stream
      * 
@@ -51,8 +51,21 @@ public class ByteArrayBitInputStream implements BitInputStream {
 
     public ByteArrayBitInputStream(byte[] source, int endian) {
         this.endian = endian;
+        reset(source);
+    }
+
+    /**
+     * Starts reading a new source from its beginning, so one instance can be
+     * reused for many arrays.
+     * 
+     * @param source
+     *            the new byte array to read from
+     */
+
+    public void reset(byte[] source) {
         this.source = source;
         currentByte = source[0];
+        byteIndex = 0;
         bitIndex = (endian == LITTLE_ENDIAN) ? 0 : 7;
     }
 
@@ -93,6 +106,61 @@ public class ByteArrayBitInputStream implements BitInputStream {
         return root.value;
     }
 
+    public int getInt(HuffmanTable table) {
+        final int startByteIndex = byteIndex;
+        final int startBitIndex = bitIndex;
+        final byte startByte = currentByte;
+        final int[] entries = table.entries;
+        int offset = 0;
+        int bits = table.rootBits;
+        while (true) {
+            int entry = entries[offset + peekBits(bits)];
+            if (entry > 0) {
+                skipBits(entry & 63);
+                return entry >>> 6;
+            } else if (entry < 0) {
+                skipBits(bits);
+                entry = -entry;
+                offset = entry >>> 5;
+                bits = entry & 31;
+            } else {
+                // Not a codeword; let the tree walk report it
+                byteIndex = startByteIndex;
+                bitIndex = startBitIndex;
+                currentByte = startByte;
+                return getInt(table.root);
+            }
+        }
+    }
+
+    // Returns the next bits (at most 24) without consuming them, least
+    // significant first. Bits past the end of the source read as zero.
+    private int peekBits(int bits) {
+        int index = byteIndex;
+        int value = (currentByte & 0xff) >>> bitIndex;
+        int available = 8 - bitIndex;
+        while (available < bits) {
+            if (++index < source.length) {
+                value |= (source[index] & 0xff) << available;
+            }
+            available += 8;
+        }
+        return value & ((1 << bits) - 1);
+    }
+
+    private void skipBits(int bits) {
+        int total = bitIndex + bits;
+        if (total > 8) {
+            // Stop on the byte holding the last bit skipped, as getBit() would
+            int bytes = (total - 1) >> 3;
+            byteIndex += bytes;
+            bitIndex = total - (bytes << 3);
+            currentByte = source[byteIndex];
+        } else {
+            bitIndex = total;
+        }
+    }
+
     public int getInt(int bits) throws IOException {
         if (bits > 32) {
             throw new IllegalArgumentException("Argument \"bits\" must be <= 32");
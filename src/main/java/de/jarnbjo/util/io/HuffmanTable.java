@@ -0,0 +1,98 @@
+package de.jarnbjo.util.io;
+
+/**
+ * Lookup tables for decoding the codewords of a Huffman tree several bits at
+ * a time, instead of one tree node per bit. Built once from a complete
+ * <code>HuffmanNode</code> tree.
+ * <p>
+ * Codewords are read least significant bit first, as in Vorbis. The root
+ * table is indexed by the next <code>rootBits</code> bits of the stream.
+ * Codewords longer than that continue in subtables, each indexed by the bits
+ * that follow. All tables are stored one after another in a single array,
+ * and each entry is one of:
+ * <ul>
+ * <li>positive: a codeword, as <code>value &lt;&lt; 6 | length</code>, where
+ * length counts only the bits consumed by the table holding the entry</li>
+ * <li>negative: a subtable, as <code>-(offset &lt;&lt; 5 | bits)</code></li>
+ * <li>zero: no codeword starts with these bits (the tree is not full)</li>
+ * </ul>
+ */
+
+final public class HuffmanTable {
+
+    // Bits looked up at once by each table
+    private static final int TABLE_BITS = 10;
+
+    final HuffmanNode root;
+    final int rootBits;
+    int[] entries;
+    private int size;
+
+    /**
+     * Builds the tables for the given tree.
+     *
+     * @param root
+     *            the root of the Huffman tree, which must not change later
+     */
+
+    public HuffmanTable(HuffmanNode root) {
+        this.root = root;
+        rootBits = Math.max(1, Math.min(TABLE_BITS, height(root)));
+        entries = new int[1 << rootBits];
+        size = entries.length;
+        fill(root, 0, 0, 0, rootBits);
+    }
+
+    private static int height(HuffmanNode node) {
+        if (node == null || node.value != null) {
+            return 0;
+        }
+        return 1 + Math.max(height(node.o0), height(node.o1));
+    }
+
+    // Fills in the entries for node, whose codeword so far is the given bits
+    // (depth of them) within the table at offset, indexed by tableBits bits.
+    private void fill(HuffmanNode node, int code, int depth, int offset, int tableBits) {
+        if (node == null) {
+            return;
+        }
+        if (node.value != null) {
+            if (depth == 0) {
+                // A tree with only a root codeword has no bits to read
+                return;
+            }
+            int entry = node.value << 6 | depth;
+            for (int i = code; i < 1 << tableBits; i += 1 << depth) {
+                entries[offset + i] = entry;
+            }
+        } else if (depth == tableBits) {
+            int subBits = Math.min(TABLE_BITS, height(node));
+            int subOffset = allocate(1 << subBits);
+            entries[offset + code] = -(subOffset << 5 | subBits);
+            fill(node.o0, 0, 1, subOffset, subBits);
+            fill(node.o1, 1, 1, subOffset, subBits);
+        } else {
+            fill(node.o0, code, depth + 1, offset, tableBits);
+            fill(node.o1, code | 1 << depth, depth + 1, offset, tableBits);
+        }
+    }
+
+    private int allocate(int count) {
+        if (size + count > entries.length) {
+            int[] grown = new int[Math.max(entries.length * 2, size + count)];
+            System.arraycopy(entries, 0, grown, 0, size);
+            entries = grown;
+        }
+        int offset = size;
+        size += count;
+        return offset;
+    }
+
+    /**
+     * @return the tree these tables were built from
+     */
+
+    public HuffmanNode getRoot() {
+        return root;
+    }
+}
@@ -24,9 +24,15 @@
 package de.jarnbjo.vorbis;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import de.jarnbjo.util.io.BitInputStream;
 
+/**
+ * One decoded audio packet. Instances are reusable: <code>decode</code>
+ * overwrites the previous packet, reusing the arrays allocated for the
+ * stream's two block sizes, so steady-state decoding does not allocate.
+ */
 class AudioPacket {
 
     private int modeNumber;
@@ -38,16 +44,44 @@ class AudioPacket {
     private int windowCenter, leftWindowStart, leftWindowEnd, leftN, rightWindowStart,
             rightWindowEnd, rightN;
     private float[] window;
+    // The arrays for the current block size, out of the two below
     private float[][] pcm;
     private int[][] pcmInt;
+    private final float[][][] pcmBySize;
+    private final int[][][] pcmIntBySize;
 
-    private Floor[] channelFloors;
-    private boolean[] noResidues;
+    private final Floor[] channelFloors;
+    // Floors decoded by earlier packets, for reuse
+    private final Floor[] floorStorage;
+    private final boolean[] noResidues;
+    private final boolean[] doNotDecodeFlags;
 
     private final static float[][] windows = new float[8][];
 
+    protected AudioPacket(final VorbisStream vorbis) {
+        final IdentificationHeader iHeader = vorbis.getIdentificationHeader();
+        final int channels = iHeader.getChannels();
+        pcmBySize = new float[][][] { new float[channels][iHeader.getBlockSize0()],
+                new float[channels][iHeader.getBlockSize1()] };
+        pcmIntBySize = new int[][][] { new int[channels][iHeader.getBlockSize0()],
+                new int[channels][iHeader.getBlockSize1()] };
+        channelFloors = new Floor[channels];
+        floorStorage = new Floor[channels];
+        noResidues = new boolean[channels];
+        doNotDecodeFlags = new boolean[channels];
+    }
+
     protected AudioPacket(final VorbisStream vorbis, final BitInputStream source)
             throws VorbisFormatException, IOException {
+        this(vorbis);
+        decode(vorbis, source);
+    }
+
+    /**
+     * Decodes the next packet from source into this instance.
+     */
+    protected void decode(final VorbisStream vorbis, final BitInputStream source)
+            throws VorbisFormatException, IOException {
 
         final SetupHeader sHeader = vorbis.getSetupHeader();
         final IdentificationHeader iHeader = vorbis.getIdentificationHeader();
@@ -84,6 +118,9 @@ class AudioPacket {
         if (blockFlag) {
             previousWindowFlag = source.getBit();
             nextWindowFlag = source.getBit();
+        } else {
+            previousWindowFlag = false;
+            nextWindowFlag = false;
         }
 
         windowCenter = n / 2;
@@ -110,26 +147,31 @@ class AudioPacket {
 
         window = getComputedWindow();// new double[n];
 
-        channelFloors = new Floor[channels];
-        noResidues = new boolean[channels];
-
-        pcm = new float[channels][n];
-        pcmInt = new int[channels][n];
+        pcm = pcmBySize[blockFlag ? 1 : 0];
+        pcmInt = pcmIntBySize[blockFlag ? 1 : 0];
+        for (int i = 0; i < channels; i++) {
+            Arrays.fill(pcm[i], 0F);
+        }
 
         boolean allFloorsEmpty = true;
 
         for (int i = 0; i < channels; i++) {
             int submapNumber = mapping.getMux()[i];
             int floorNumber = mapping.getSubmapFloors()[submapNumber];
-            Floor decodedFloor = sHeader.getFloors()[floorNumber].decodeFloor(vorbis, source);
+            Floor decodedFloor = sHeader.getFloors()[floorNumber].decodeFloor(vorbis, source,
+                    floorStorage[i]);
             channelFloors[i] = decodedFloor;
             noResidues[i] = decodedFloor == null;
             if (decodedFloor != null) {
+                floorStorage[i] = decodedFloor;
                 allFloorsEmpty = false;
             }
         }
 
         if (allFloorsEmpty) {
+            for (int i = 0; i < channels; i++) {
+                Arrays.fill(pcmInt[i], 0);
+            }
             return;
         }
 
@@ -143,7 +185,7 @@ class AudioPacket {
 
         for (int i = 0; i < mapping.getSubmaps(); i++) {
             int ch = 0;
-            boolean[] doNotDecodeFlags = new boolean[channels];
+            Arrays.fill(doNotDecodeFlags, false);
             for (int j = 0; j < channels; j++) {
                 if (mapping.getMux()[j] == i) {
                     doNotDecodeFlags[ch++] = noResidues[j];
@@ -31,10 +31,12 @@ import java.util.Arrays;
 
 import de.jarnbjo.util.io.BitInputStream;
 import de.jarnbjo.util.io.HuffmanNode;
+import de.jarnbjo.util.io.HuffmanTable;
 
 class CodeBook {
 
     private HuffmanNode huffmanRoot;
+    private HuffmanTable huffmanTable;
     private int dimensions, entries;
 
     private int[] entryLengths;
@@ -90,6 +92,7 @@ class CodeBook {
             throw new VorbisFormatException(
                     "An exception was thrown when building the codebook Huffman tree.");
         }
+        huffmanTable = new HuffmanTable(huffmanRoot);
 
         int codeBookLookupType = source.getInt(4);
 
@@ -176,7 +179,7 @@ class CodeBook {
     // }
 
     protected int readInt(final BitInputStream source) throws IOException {
-        return source.getInt(huffmanRoot);
+        return source.getInt(huffmanTable);
         /*
          * HuffmanNode node; for(node=huffmanRoot; node.value==null;
          * node=source.getBit()?node.o1:node.o0); return node.value.intValue();
@@ -197,7 +200,7 @@ class CodeBook {
         int lim = (offset + length) / ch;
 
         for (i = offset / ch; i < lim;) {
-            final float[] ve = valueVector[source.getInt(huffmanRoot)];
+            final float[] ve = valueVector[source.getInt(huffmanTable)];
             for (j = 0; j < dimensions; j++) {
                 a[chptr++][i] += ve[j];
                 if (chptr == ch) {
@@ -98,7 +98,15 @@ public abstract class Floor {
 
     abstract void computeFloor(float[] vector);
 
-    abstract Floor decodeFloor(VorbisStream vorbis, BitInputStream source)
+    /**
+     * Decodes the floor of one channel of an audio packet.
+     * 
+     * @param reuse
+     *            a floor returned by an earlier call, whose storage may be
+     *            reused for the result, or null
+     * @return the decoded floor, or null if the channel is unused
+     */
+    abstract Floor decodeFloor(VorbisStream vorbis, BitInputStream source, Floor reuse)
             throws VorbisFormatException, IOException;
 
     abstract int getType();
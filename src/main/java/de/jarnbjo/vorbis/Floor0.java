@@ -51,7 +51,7 @@ class Floor0 extends Floor {
         throw new UnsupportedOperationException();
     }
 
-    protected Floor decodeFloor(VorbisStream vorbis, BitInputStream source)
+    protected Floor decodeFloor(VorbisStream vorbis, BitInputStream source, Floor reuse)
             throws VorbisFormatException, IOException {
         /** @todo implement */
         throw new UnsupportedOperationException();
@@ -67,7 +67,9 @@ class Floor1 extends Floor implements Cloneable {
     private int[] yList;
 
     private int[] lowNeighbours, highNeighbours;
-    // private boolean[] step2Flags;
+    // Scratch space for computeFloor, owned by decoded floors
+    private boolean[] step2Flags;
+    private int[] xList2;
 
     private static final int[] RANGES = { 256, 128, 86, 64 };
 
@@ -169,7 +171,7 @@ class Floor1 extends Floor implements Cloneable {
 
         int n = vector.length;
         final int values = xList.length;
-        final boolean[] step2Flags = new boolean[values];
+        Arrays.fill(step2Flags, false);
 
         final int range = RANGES[multiplier - 1];
 
@@ -202,24 +204,16 @@ class Floor1 extends Floor implements Cloneable {
             }
         }
 
-        final int[] xList2 = new int[values];
-
         System.arraycopy(xList, 0, xList2, 0, values);
         sort(xList2, yList, step2Flags);
 
         int hx = 0, hy = 0, lx = 0, ly = yList[0] * multiplier;
 
-        float[] vector2 = new float[vector.length];
-        float[] vector3 = new float[vector.length];
-        Arrays.fill(vector2, 1F);
-        System.arraycopy(vector, 0, vector3, 0, vector.length);
-
         for (int i = 1; i < values; i++) {
             if (step2Flags[i]) {
                 hy = yList[i] * multiplier;
                 hx = xList2[i];
                 Util.renderLine(lx, ly, hx, hy, vector);
-                Util.renderLine(lx, ly, hx, hy, vector2);
                 lx = hx;
                 ly = hy;
             }
@@ -231,7 +225,7 @@ class Floor1 extends Floor implements Cloneable {
         }
     }
 
-    protected Floor decodeFloor(VorbisStream vorbis, BitInputStream source)
+    protected Floor decodeFloor(VorbisStream vorbis, BitInputStream source, Floor reuse)
             throws VorbisFormatException, IOException {
 
         // System.out.println("decodeFloor");
@@ -240,9 +234,16 @@ class Floor1 extends Floor implements Cloneable {
             return null;
         }
 
-        Floor1 clone = (Floor1) clone();
-
-        clone.yList = new int[xList.length];
+        Floor1 clone;
+        if (reuse instanceof Floor1 && ((Floor1) reuse).xList == xList) {
+            // Decoded from this floor before; its arrays are the right size
+            clone = (Floor1) reuse;
+        } else {
+            clone = (Floor1) clone();
+            clone.yList = new int[xList.length];
+            clone.step2Flags = new boolean[xList.length];
+            clone.xList2 = new int[xList.length];
+        }
 
         int range = RANGES[multiplier - 1];
 
@@ -257,8 +258,8 @@ class Floor1 extends Floor implements Cloneable {
             int csub = (1 << cbits) - 1;
             int cval = 0;
             if (cbits > 0) {
-                cval = source.getInt(vorbis.getSetupHeader().getCodeBooks()[classMasterbooks[cls]]
-                        .getHuffmanRoot());
+                cval = vorbis.getSetupHeader().getCodeBooks()[classMasterbooks[cls]]
+                        .readInt(source);
                 // cval=vorbis.getSetupHeader().getCodeBooks()[classMasterbooks[cls]].readInt(source);
                 // System.out.println("cval: "+cval);
             }
@@ -268,8 +269,8 @@ class Floor1 extends Floor implements Cloneable {
                 int book = subclassBooks[cls][cval & csub];
                 cval >>>= cbits;
                 if (book >= 0) {
-                    clone.yList[j + offset] = source
-                            .getInt(vorbis.getSetupHeader().getCodeBooks()[book].getHuffmanRoot());
+                    clone.yList[j + offset] = vorbis.getSetupHeader().getCodeBooks()[book]
+                            .readInt(source);
                     // clone.yList[j+offset]=vorbis.getSetupHeader().getCodeBooks()[book].readInt(source);
                     // System.out.println("b: "+(j+offset)+" "+book+" "+clone.yList[j+offset]);
                     // System.out.println("");
@@ -26,64 +26,100 @@
 
 package de.jarnbjo.vorbis;
 
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverse MDCT of one block size. The trig and bit reversal tables depend
+ * only on the block size, so they are computed once per size and shared by
+ * every instance (see Plan). Each instance has its own scratch space,
+ * allocated up front.
+ * <p>
+ * Instances are not thread-safe. Each belongs to one stream's
+ * IdentificationHeader, and a stream decodes on one thread at a time, so
+ * streams can decode in parallel without contending on a lock.
+ */
 class MdctFloat {
 
-    private int n;
-    private int log2n;
+    private final int n;
+    private final int log2n;
 
-    private float[] trig;
-    private int[] bitrev;
+    private final float[] trig;
+    private final int[] bitrev;
 
     private float[] equalizer;
 
-    private float dtmp1, dtmp2, dtmp3, dtmp4;
-
-    private float[] _x = new float[1024];
-
-    // void clear(){
-    // }
+    private final float[] _x;
+    private final float[] _w;
 
-    // void forward(float[] in, float[] out){
-    // }
+    protected MdctFloat(int n) {
+        Plan plan = Plan.forSize(n);
+        this.n = n;
+        log2n = plan.log2n;
+        trig = plan.trig;
+        bitrev = plan.bitrev;
+        _x = new float[n / 2];
+        _w = new float[n / 2];
+    }
 
-    private float[] _w = new float[1024];
+    /**
+     * The tables for one block size, which never change once computed.
+     */
+    private static final class Plan {
 
-    protected MdctFloat(int n) {
-        bitrev = new int[n / 4];
-        trig = new float[n + n / 4];
+        private static final ConcurrentHashMap<Integer, Plan> plans = new ConcurrentHashMap<>();
 
-        log2n = (int) Math.rint(Math.log(n) / Math.log(2));
-        this.n = n;
+        final int log2n;
+        final float[] trig;
+        final int[] bitrev;
 
-        int AE = 0;
-        int AO = 1;
-        int BE = AE + n / 2;
-        int BO = BE + 1;
-        int CE = BE + n / 2;
-        int CO = CE + 1;
-        // trig lookups...
-        for (int i = 0; i < n / 4; i++) {
-            trig[AE + i * 2] = (float) Math.cos((Math.PI / n) * (4 * i));
-            trig[AO + i * 2] = (float) -Math.sin((Math.PI / n) * (4 * i));
-            trig[BE + i * 2] = (float) Math.cos((Math.PI / (2 * n)) * (2 * i + 1));
-            trig[BO + i * 2] = (float) Math.sin((Math.PI / (2 * n)) * (2 * i + 1));
-        }
-        for (int i = 0; i < n / 8; i++) {
-            trig[CE + i * 2] = (float) Math.cos((Math.PI / n) * (4 * i + 2));
-            trig[CO + i * 2] = (float) -Math.sin((Math.PI / n) * (4 * i + 2));
+        static Plan forSize(int n) {
+            Plan plan = plans.get(n);
+            if (plan == null) {
+                plan = new Plan(n);
+                Plan existing = plans.putIfAbsent(n, plan);
+                if (existing != null) {
+                    plan = existing;
+                }
+            }
+            return plan;
         }
 
-        {
-            int mask = (1 << (log2n - 1)) - 1;
-            int msb = 1 << (log2n - 2);
+        private Plan(int n) {
+            bitrev = new int[n / 4];
+            trig = new float[n + n / 4];
+
+            log2n = (int) Math.rint(Math.log(n) / Math.log(2));
+
+            int AE = 0;
+            int AO = 1;
+            int BE = AE + n / 2;
+            int BO = BE + 1;
+            int CE = BE + n / 2;
+            int CO = CE + 1;
+            // trig lookups...
+            for (int i = 0; i < n / 4; i++) {
+                trig[AE + i * 2] = (float) Math.cos((Math.PI / n) * (4 * i));
+                trig[AO + i * 2] = (float) -Math.sin((Math.PI / n) * (4 * i));
+                trig[BE + i * 2] = (float) Math.cos((Math.PI / (2 * n)) * (2 * i + 1));
+                trig[BO + i * 2] = (float) Math.sin((Math.PI / (2 * n)) * (2 * i + 1));
+            }
             for (int i = 0; i < n / 8; i++) {
-                int acc = 0;
-                for (int j = 0; msb >>> j != 0; j++)
-                    if (((msb >>> j) & i) != 0)
-                        acc |= 1 << j;
-                bitrev[i * 2] = ((~acc) & mask);
-                // bitrev[i*2]=((~acc)&mask)-1;
-                bitrev[i * 2 + 1] = acc;
+                trig[CE + i * 2] = (float) Math.cos((Math.PI / n) * (4 * i + 2));
+                trig[CO + i * 2] = (float) -Math.sin((Math.PI / n) * (4 * i + 2));
+            }
+
+            {
+                int mask = (1 << (log2n - 1)) - 1;
+                int msb = 1 << (log2n - 2);
+                for (int i = 0; i < n / 8; i++) {
+                    int acc = 0;
+                    for (int j = 0; msb >>> j != 0; j++)
+                        if (((msb >>> j) & i) != 0)
+                            acc |= 1 << j;
+                    bitrev[i * 2] = ((~acc) & mask);
+                    // bitrev[i*2]=((~acc)&mask)-1;
+                    bitrev[i * 2 + 1] = acc;
+                }
             }
         }
     }
@@ -92,17 +128,13 @@ class MdctFloat {
         return equalizer;
     }
 
-    protected synchronized void imdct(final float[] frq, final float[] window, final int[] pcm) {// ,
-                                                                                                 // float[]
-                                                                                                 // out){
+    protected void imdct(final float[] frq, final float[] window, final int[] pcm) {// ,
+                                                                                    // float[]
+                                                                                    // out){
 
         float[] in = frq;// , out=buf;
-        if (_x.length < n / 2) {
-            _x = new float[n / 2];
-        }
-        if (_w.length < n / 2) {
-            _w = new float[n / 2];
-        }
+        final float[] trig = this.trig;
+        float dtmp1, dtmp2, dtmp3, dtmp4;
         final float[] x = _x;
         final float[] w = _w;
         int n2 = n >> 1;
@@ -197,6 +229,8 @@ class MdctFloat {
     }
 
     private float[] kernel(float[] x, float[] w, int n, int n2, int n4, int n8) {
+        final float[] trig = this.trig;
+
         // step 2
 
         int xA = n4;
@@ -219,12 +253,15 @@ class MdctFloat {
             i++;
         }
 
-        // step 3
-
+        // step 3: radix-2 butterflies, one pass per stage, ping-ponging
+        // between w and x. Each butterfly pair is loaded into locals once
+        // and the pointers step by a fixed stride, so the loop stays in
+        // registers.
         {
             for (int i = 0; i < log2n - 3; i++) {
-                int k0 = n >>> (i + 2);
-                int k1 = 1 << (i + 3);
+                final int k0 = n >>> (i + 2);
+                final int k1 = 1 << (i + 3);
+                final int butterflies = 2 << i;
                 int wbase = n2 - 2;
 
                 A = 0;
@@ -233,35 +270,25 @@ class MdctFloat {
                 for (int r = 0; r < (k0 >>> 2); r++) {
                     int w1 = wbase;
                     w2 = w1 - (k0 >> 1);
-                    float AEv = trig[A], wA;
-                    float AOv = trig[A + 1], wB;
+                    final float AEv = trig[A];
+                    final float AOv = trig[A + 1];
                     wbase -= 2;
 
-                    k0++;
-                    for (int s = 0; s < (2 << i); s++) {
-                        dtmp1 = w[w1];
-                        dtmp2 = w[w2];
-                        wB = dtmp1 - dtmp2;
-                        x[w1] = dtmp1 + dtmp2;
-                        dtmp1 = w[++w1];
-                        dtmp2 = w[++w2];
-                        wA = dtmp1 - dtmp2;
-                        x[w1] = dtmp1 + dtmp2;
-                        x[w2] = wA * AEv - wB * AOv;
-                        x[w2 - 1] = wB * AEv + wA * AOv;
-
-                        /*
-                         * wB =w[w1] -w[w2]; x[w1] =w[w1] +w[w2];
-                         * 
-                         * wA =w[++w1] -w[++w2]; x[w1] =w[w1] +w[w2];
-                         * 
-                         * x[w2] =wA*AEv - wB*AOv; x[w2-1]=wB*AEv + wA*AOv;
-                         */
+                    for (int s = 0; s < butterflies; s++) {
+                        final float a0 = w[w1];
+                        final float b0 = w[w2];
+                        final float a1 = w[w1 + 1];
+                        final float b1 = w[w2 + 1];
+                        final float wB = a0 - b0;
+                        final float wA = a1 - b1;
+                        x[w1] = a0 + b0;
+                        x[w1 + 1] = a1 + b1;
+                        x[w2 + 1] = wA * AEv - wB * AOv;
+                        x[w2] = wB * AEv + wA * AOv;
 
                         w1 -= k0;
                         w2 -= k0;
                     }
-                    k0--;
                     A += k1;
                 }
 
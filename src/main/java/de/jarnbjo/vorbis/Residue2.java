@@ -30,6 +30,9 @@ import de.jarnbjo.util.io.BitInputStream;
 class Residue2 extends Residue {
 
     private double[][] decodedVectors;
+    // Scratch space for decodeResidue
+    private float[][] realVectors = new float[0][];
+    private int[][] partword = new int[0][];
 
     private Residue2() {
     }
@@ -66,7 +69,9 @@ class Residue2 extends Residue {
             }
         }
 
-        float[][] realVectors = new float[realCh][];
+        if (realVectors.length != realCh) {
+            realVectors = new float[realCh][];
+        }
 
         realCh = 0;
         for (int i = 0; i < doNotDecodeFlags.length; i++) {
@@ -75,12 +80,14 @@ class Residue2 extends Residue {
             }
         }
 
-        int[][] partword = new int[partWords][];
+        if (partword.length < partWords) {
+            partword = new int[partWords][];
+        }
         for (int s = 0; s < look.getStages(); s++) {
             for (int i = 0, l = 0; i < partitionsToRead; l++) {
                 if (s == 0) {
                     // int temp=look.getPhraseBook().readInt(source);
-                    int temp = source.getInt(look.getPhraseBook().getHuffmanRoot());
+                    int temp = look.getPhraseBook().readInt(source);
                     if (temp == -1) {
                         throw new VorbisFormatException("");
                     }
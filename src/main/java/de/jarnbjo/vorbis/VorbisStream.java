@@ -32,6 +32,7 @@ package de.jarnbjo.vorbis;
 import java.io.IOException;
 
 import de.jarnbjo.ogg.LogicalOggStream;
+import de.jarnbjo.ogg.OggPacket;
 import de.jarnbjo.util.io.BitInputStream;
 import de.jarnbjo.util.io.ByteArrayBitInputStream;
 
@@ -46,6 +47,10 @@ public class VorbisStream {
     private SetupHeader setupHeader;
 
     private AudioPacket lastAudioPacket;
+    // Storage reused by readPcm: the packet being decoded, and its source
+    private AudioPacket spareAudioPacket;
+    private final OggPacket oggPacket = new OggPacket();
+    private ByteArrayBitInputStream packetSource;
     private byte[] currentPcm;
     private int currentPcmIndex;
     private int currentPcmLimit;
@@ -123,17 +128,27 @@ public class VorbisStream {
     }
 
     private AudioPacket getNextAudioPacket() throws VorbisFormatException, IOException {
-        byte[] data = oggStream.getNextOggPacket();
-        AudioPacket res = null;
-        while (res == null) {
+        AudioPacket res = spareAudioPacket;
+        if (res == null) {
+            res = new AudioPacket(this);
+        }
+        while (true) {
+            oggStream.getNextOggPacket(oggPacket);
+            if (packetSource == null) {
+                packetSource = new ByteArrayBitInputStream(oggPacket.getData());
+            } else {
+                packetSource.reset(oggPacket.getData());
+            }
             try {
-                res = new AudioPacket(this, new ByteArrayBitInputStream(data));
+                res.decode(this, packetSource);
+                break;
             } catch (ArrayIndexOutOfBoundsException e) {
                 // ignore and continue with next packet
             }
         }
+        spareAudioPacket = null;
         currentGranulePosition += res.getNumberOfSamples();
-        currentBitRate = data.length * 8 * identificationHeader.getSampleRate()
+        currentBitRate = oggPacket.getLength() * 8 * identificationHeader.getSampleRate()
                 / res.getNumberOfSamples();
         return res;
     }
@@ -212,16 +227,13 @@ public class VorbisStream {
                     return 0;
                 }
                 currentPcmIndex = 0;
+                // The packet before last is no longer needed; decode the next into it
+                spareAudioPacket = lastAudioPacket;
                 lastAudioPacket = ap;
             }
-            int written = 0;
-            int i = 0;
-            int arrIx = 0;
-            for (i = currentPcmIndex; i < currentPcmLimit && arrIx < length; i++) {
-                buffer[offset + arrIx++] = currentPcm[i];
-                written++;
-            }
-            currentPcmIndex = i;
+            int written = Math.min(length, currentPcmLimit - currentPcmIndex);
+            System.arraycopy(currentPcm, currentPcmIndex, buffer, offset, written);
+            currentPcmIndex += written;
             return written;
         }
     }
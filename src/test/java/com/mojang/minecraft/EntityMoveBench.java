@@ -0,0 +1,105 @@
+package com.mojang.minecraft;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import com.mojang.minecraft.level.Level;
+import com.mojang.minecraft.level.tile.Block;
+
+/**
+ * Times Entity.move for a crowd of entities walking over uneven terrain,
+ * with every entity filed in the level's BlockMap, and reports the bytes
+ * allocated per move. Once warmed up, a move should allocate nothing.
+ *
+ * A standalone program rather than a JMH benchmark, as the build has no
+ * benchmark harness: run it with the game classes on the class path.
+ * Allocation is measured through com.sun.management.ThreadMXBean where the
+ * JVM provides it.
+ *
+ * Arguments: [entities] [rounds]
+ */
+public final class EntityMoveBench {
+
+    private static final int WIDTH = 256;
+    private static final int HEIGHT = 64;
+    private static final int LENGTH = 256;
+    private static final int GROUND = 32;
+
+    public static void main(String[] args) {
+        int entityCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        Random random = new Random(1);
+        Level level = new Level();
+        level.setData(WIDTH, HEIGHT, LENGTH, terrain(random));
+        Entity[] entities = new Entity[entityCount];
+        for (int i = 0; i < entityCount; ++i) {
+            Entity entity = new Entity(level) {
+            };
+            entity.setPos(8 + random.nextFloat() * (WIDTH - 16), GROUND + 4,
+                    8 + random.nextFloat() * (LENGTH - 16));
+            level.addEntity(entity);
+            entities[i] = entity;
+        }
+
+        // Warm up, and let everyone land
+        run(level, entities, random, rounds / 4);
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        run(level, entities, random, rounds);
+        long time = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        long moves = (long) entityCount * rounds;
+        System.out.printf("%d entities, %d moves: %.1f ns/move%n", entityCount, moves,
+                (double) time / moves);
+        if (allocatedBefore >= 0) {
+            System.out.printf("allocated: %d bytes, %.3f bytes/move%n", allocated,
+                    (double) allocated / moves);
+        } else {
+            System.out.println("allocated: not measurable on this JVM");
+        }
+    }
+
+    // Stone up to GROUND, with scattered pillars and slabs to walk into.
+    private static byte[] terrain(Random random) {
+        byte[] blocks = new byte[WIDTH * HEIGHT * LENGTH];
+        for (int y = 0; y < GROUND; ++y) {
+            for (int i = 0; i < WIDTH * LENGTH; ++i) {
+                blocks[y * WIDTH * LENGTH + i] = (byte) Block.STONE.id;
+            }
+        }
+        for (int i = 0; i < WIDTH * LENGTH / 16; ++i) {
+            int column = random.nextInt(WIDTH * LENGTH);
+            int top = 1 + random.nextInt(3);
+            for (int y = GROUND; y < GROUND + top; ++y) {
+                blocks[y * WIDTH * LENGTH + column] = (byte) (top == 1 ? Block.SLAB.id : Block.LOG.id);
+            }
+        }
+        return blocks;
+    }
+
+    // Each round, every entity walks a step and falls, as in a tick.
+    private static void run(Level level, Entity[] entities, Random random, int rounds) {
+        for (int round = 0; round < rounds; ++round) {
+            for (Entity entity : entities) {
+                entity.move((random.nextFloat() - 0.5F) * 0.4F, -0.08F,
+                        (random.nextFloat() - 0.5F) * 0.4F);
+                level.blockMap.moved(entity);
+            }
+        }
+    }
+
+    // Bytes allocated so far by this thread, or -1 if the JVM cannot tell.
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
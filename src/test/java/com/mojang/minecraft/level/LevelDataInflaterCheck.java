@@ -0,0 +1,95 @@
+package com.mojang.minecraft.level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Feeds gzip-compressed maps to LevelDataInflater in pieces of random size,
+ * as LEVEL_DATA packets would bring them, and checks that the blocks come
+ * out intact. Also checks that a stream with a damaged trailer, a cut-off
+ * trailer or the wrong block count is rejected.
+ *
+ * A standalone program rather than a unit test, as the build has no test
+ * framework: run it with the game classes on the class path.
+ */
+public final class LevelDataInflaterCheck {
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; ++round) {
+            byte[] blocks = randomBlocks(random, random.nextInt(200000));
+            byte[] stream = compress(blocks, blocks.length);
+            // Up to 1024 bytes per packet; sometimes single bytes, to split
+            // the header and trailer across packets
+            int maxPiece = round % 4 == 0 ? 1 : 1024;
+            if (!Arrays.equals(blocks, inflate(stream, stream.length, random, maxPiece))) {
+                throw new AssertionError("Round " + round + ": blocks differ");
+            }
+
+            byte[] damaged = stream.clone();
+            damaged[damaged.length - 8 + random.nextInt(8)] ^= 1 << random.nextInt(8);
+            expectFailure(damaged, damaged.length, random, maxPiece, "mismatch");
+            expectFailure(stream, stream.length - 1 - random.nextInt(8), random, maxPiece,
+                    "ended early");
+            if (blocks.length > 0) {
+                byte[] longer = compress(blocks, blocks.length - 1);
+                expectFailure(longer, longer.length, random, maxPiece, "longer");
+            }
+        }
+        System.out.println("OK");
+    }
+
+    private static byte[] randomBlocks(Random random, int count) {
+        byte[] blocks = new byte[count];
+        // Runs of a few block types, so it compresses like a map
+        for (int i = 0; i < count;) {
+            int run = Math.min(count - i, 1 + random.nextInt(64));
+            Arrays.fill(blocks, i, i + run, (byte) random.nextInt(50));
+            i += run;
+        }
+        return blocks;
+    }
+
+    // Gzips the blocks behind the given block count, as servers send maps.
+    private static byte[] compress(byte[] blocks, int count) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+        out.writeInt(count);
+        out.write(blocks);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] stream, int length, Random random, int maxPiece)
+            throws IOException {
+        LevelDataInflater inflater = new LevelDataInflater();
+        try {
+            for (int offset = 0; offset < length;) {
+                int piece = Math.min(length - offset, 1 + random.nextInt(maxPiece));
+                inflater.write(stream, offset, piece);
+                offset += piece;
+            }
+        } catch (IOException ex) {
+            inflater.dispose();
+            throw ex;
+        }
+        return inflater.finish();
+    }
+
+    private static void expectFailure(byte[] stream, int length, Random random, int maxPiece,
+            String message) {
+        try {
+            inflate(stream, length, random, maxPiece);
+        } catch (IOException ex) {
+            if (ex.getMessage().contains(message)) {
+                return;
+            }
+            throw new AssertionError("Expected \"" + message + "\"", ex);
+        }
+        throw new AssertionError("Expected \"" + message + "\", but the stream was accepted");
+    }
+}
@@ -0,0 +1,99 @@
+package com.mojang.minecraft.level;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.mojang.minecraft.level.tile.Block;
+
+/**
+ * Floods a cave with water and lava and times the level ticks it takes.
+ * The scenario is fixed: a stone floor riddled with holes, scattered stone
+ * and sand above it, two water sources, a lava source, and a sponge that is
+ * removed halfway through. It prints a hash of the resulting blocks, so two
+ * builds can be checked to flood alike, and checks that the light heights
+ * kept up to date during the flood match those of a fresh level.
+ *
+ * A standalone program rather than a JMH benchmark, as the build has no
+ * benchmark harness: run it with the game classes on the class path.
+ *
+ * Arguments: [ticks] [runs]
+ */
+public final class LiquidFloodBench {
+
+    private static final int WIDTH = 128;
+    private static final int HEIGHT = 64;
+    private static final int LENGTH = 128;
+
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        for (int run = 0; run < runs; ++run) {
+            Level level = createCave();
+            long start = System.nanoTime();
+            for (int tick = 0; tick < ticks; ++tick) {
+                level.tick();
+                if (tick == ticks / 2) {
+                    level.setTile(30, 25, 30, 0);
+                }
+            }
+            long time = (System.nanoTime() - start) / 1000000;
+
+            int water = 0;
+            int lava = 0;
+            for (byte block : level.blocks) {
+                if (block == Block.WATER.id || block == Block.STATIONARY_WATER.id) {
+                    ++water;
+                } else if (block == Block.LAVA.id || block == Block.STATIONARY_LAVA.id) {
+                    ++lava;
+                }
+            }
+            System.out.printf("%d ticks in %d ms: %d water, %d lava, blocks hash %08x%n", ticks,
+                    time, water, lava, Arrays.hashCode(level.blocks));
+            checkLight(level);
+        }
+    }
+
+    private static Level createCave() throws Exception {
+        byte[] blocks = new byte[WIDTH * HEIGHT * LENGTH];
+        Random random = new Random(42);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int z = 0; z < LENGTH; ++z) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    int i = (y * LENGTH + z) * WIDTH + x;
+                    if (y < 20) {
+                        blocks[i] = (byte) (random.nextInt(6) == 0 ? 0 : Block.STONE.id);
+                    } else if (y < 40 && random.nextInt(12) == 0) {
+                        blocks[i] = (byte) (random.nextBoolean() ? Block.STONE.id : Block.SAND.id);
+                    }
+                }
+            }
+        }
+        Level level = new Level();
+        level.setData(WIDTH, HEIGHT, LENGTH, blocks);
+        // Random block ticks must repeat from run to run
+        level.random = new Random(7);
+        Field randId = Level.class.getDeclaredField("randId");
+        randId.setAccessible(true);
+        randId.setInt(level, 123);
+
+        level.setTile(64, 45, 64, Block.WATER.id);
+        level.setTile(20, 45, 100, Block.WATER.id);
+        level.setTile(100, 30, 20, Block.LAVA.id);
+        level.setTile(30, 25, 30, Block.SPONGE.id);
+        return level;
+    }
+
+    private static void checkLight(Level level) {
+        Level fresh = new Level();
+        fresh.setData(WIDTH, HEIGHT, LENGTH, level.blocks.clone());
+        for (int z = 0; z < LENGTH; ++z) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (level.getLightDepth(x, z) != fresh.getLightDepth(x, z)) {
+                    throw new AssertionError("Light height at " + x + ", " + z + " is stale");
+                }
+            }
+        }
+    }
+}
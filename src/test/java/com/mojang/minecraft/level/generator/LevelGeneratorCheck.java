@@ -0,0 +1,63 @@
+package com.mojang.minecraft.level.generator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import com.mojang.minecraft.level.Level;
+
+/**
+ * Checks that LevelGenerator is deterministic: the same seed and size give
+ * the same blocks whether the parallel stages run on one thread or many, and
+ * when generated twice on the same pool. Different seeds must give different
+ * levels. Sizes include tiny and non-square levels.
+ *
+ * A standalone program rather than a unit test, as the build has no test
+ * framework: run it with the game classes on the class path.
+ */
+public final class LevelGeneratorCheck {
+
+    // Width, depth and height of each level checked
+    private static final int[][] SIZES = {
+        {16, 16, 16}, {64, 32, 64}, {128, 128, 64}, {256, 256, 64}, {96, 200, 80}
+    };
+    private static final long[] SEEDS = {0L, 1L, 0x5DEECE66DL, -42L};
+
+    public static void main(String[] args) {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ForkJoinPool serial = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(threads);
+        try {
+            for (int[] size : SIZES) {
+                byte[] previous = null;
+                for (long seed : SEEDS) {
+                    byte[] serialBlocks = generate(serial, size, seed);
+                    byte[] parallelBlocks = generate(parallel, size, seed);
+                    byte[] again = generate(parallel, size, seed);
+                    String name = size[0] + "x" + size[1] + "x" + size[2] + ", seed " + seed;
+                    if (!Arrays.equals(serialBlocks, parallelBlocks)) {
+                        throw new AssertionError(name + ": 1 and " + threads
+                                + " threads give different levels");
+                    }
+                    if (!Arrays.equals(parallelBlocks, again)) {
+                        throw new AssertionError(name + ": generating twice gives different levels");
+                    }
+                    if (previous != null && Arrays.equals(previous, serialBlocks)) {
+                        throw new AssertionError(name + ": same level as the previous seed");
+                    }
+                    previous = serialBlocks;
+                    System.out.printf("%s: %08x%n", name, Arrays.hashCode(serialBlocks));
+                }
+            }
+        } finally {
+            serial.shutdown();
+            parallel.shutdown();
+        }
+        System.out.println("OK: 1 and " + threads + " threads agree");
+    }
+
+    private static byte[] generate(ForkJoinPool pool, int[] size, long seed) {
+        Level level = new LevelGenerator(null, pool).generate("check", size[0], size[1], size[2],
+                seed);
+        return level.blocks;
+    }
+}
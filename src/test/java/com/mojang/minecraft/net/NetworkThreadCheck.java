@@ -0,0 +1,194 @@
+package com.mojang.minecraft.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Connects NetworkManager to a server on the loopback interface that floods
+ * it with packets, then disconnects, from either side. Checks that every
+ * packet arrives whole and in order, that a server disconnect is reported
+ * once the packets before it are handled, and that closing mid-flood stops
+ * the reader thread without an exception escaping it.
+ *
+ * A standalone program rather than a unit test, as the build has no test
+ * framework: run it with the game classes on the class path.
+ */
+public final class NetworkThreadCheck {
+
+    private static final int ROUNDS = 50;
+    // Packets the server sends before closing, in the server-disconnect rounds
+    private static final int PACKETS = 100000;
+
+    private static final List<Throwable> uncaught =
+            Collections.synchronizedList(new ArrayList<Throwable>());
+
+    public static void main(String[] args) throws Exception {
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable ex) {
+                uncaught.add(ex);
+            }
+        });
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        NetworkManager manager = new NetworkManager(null);
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; ++round) {
+            serverDisconnect(server, port, manager);
+            clientClose(server, port, manager);
+        }
+        server.close();
+        long time = (System.nanoTime() - start) / 1000000;
+
+        if (!uncaught.isEmpty()) {
+            for (Throwable ex : uncaught) {
+                ex.printStackTrace();
+            }
+            throw new AssertionError(uncaught.size() + " uncaught exceptions");
+        }
+        System.out.println("OK: " + ROUNDS * 2 + " connections in " + time + " ms");
+    }
+
+    // The server sends PACKETS block changes and closes; all must arrive.
+    private static void serverDisconnect(ServerSocketChannel server, int port,
+            NetworkManager manager) throws Exception {
+        manager.connect("127.0.0.1", port);
+        final SocketChannel client = server.accept();
+        Thread sender = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    flood(client, PACKETS);
+                    client.close();
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+        sender.start();
+
+        int received = 0;
+        IOException failure = null;
+        while (failure == null) {
+            received += drain(manager, received);
+            try {
+                manager.checkReceiveError();
+            } catch (IOException ex) {
+                failure = ex;
+            }
+            Thread.yield();
+        }
+        sender.join();
+        if (received != PACKETS) {
+            throw new AssertionError("Received " + received + " of " + PACKETS + " packets");
+        }
+        if (!"Connection closed by server".equals(failure.getMessage())) {
+            throw new AssertionError("Unexpected failure", failure);
+        }
+        manager.close();
+        awaitReaderExit();
+    }
+
+    // The client closes while the server is still sending.
+    private static void clientClose(ServerSocketChannel server, int port,
+            NetworkManager manager) throws Exception {
+        manager.connect("127.0.0.1", port);
+        final SocketChannel client = server.accept();
+        Thread sender = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    flood(client, Integer.MAX_VALUE);
+                } catch (IOException ex) {
+                    // Expected once the client has gone
+                } finally {
+                    try {
+                        client.close();
+                    } catch (IOException ex) {
+                    }
+                }
+            }
+        };
+        sender.start();
+
+        int received = 0;
+        while (received < 1000) {
+            received += drain(manager, received);
+            Thread.yield();
+        }
+        manager.close();
+        awaitReaderExit();
+        sender.join();
+        manager.received.clear();
+    }
+
+    // Writes count block changes, numbered through their coordinates.
+    private static void flood(SocketChannel channel, int count) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(8 * 1024);
+        for (int i = 0; i < count; ++i) {
+            if (out.remaining() < 8) {
+                write(channel, out);
+            }
+            out.put(PacketType.BLOCK_CHANGE.opcode);
+            out.putShort((short) i);
+            out.putShort((short) (i >> 16));
+            out.putShort((short) 0);
+            out.put((byte) 1);
+        }
+        write(channel, out);
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    // Takes every queued packet, checking each is the next block change.
+    private static int drain(NetworkManager manager, int next) {
+        int count = 0;
+        ByteBuffer packet;
+        while ((packet = manager.received.peek()) != null) {
+            int expected = next + count;
+            if (packet.get(0) != PacketType.BLOCK_CHANGE.opcode
+                    || packet.remaining() != PacketType.BLOCK_CHANGE.length + 1
+                    || (packet.getShort(1) & 0xFFFF) != (expected & 0xFFFF)
+                    || packet.getShort(3) != (short) (expected >> 16)) {
+                throw new AssertionError("Packet " + expected + " corrupted");
+            }
+            manager.received.release();
+            ++count;
+        }
+        return count;
+    }
+
+    private static void awaitReaderExit() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (readerAlive()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Network thread did not stop");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static boolean readerAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("Network-Reader".equals(thread.getName()) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package com.mojang.minecraft.sound;
+
+import java.io.File;
+import java.util.Random;
+
+import com.mojang.minecraft.GameSettings;
+
+/**
+ * Times SoundPlayer.mix without an audio device, with various numbers of
+ * sound effects playing at once, and reports how much of each 100 ms buffer
+ * the mixing takes. Half the voices move while playing, so both the fixed
+ * gain and the ramped gain paths are covered. Then checks that when every
+ * voice is busy, a new sound still plays in place of the oldest.
+ *
+ * A standalone program rather than a JMH benchmark, as the build has no
+ * benchmark harness: run it with the game classes on the class path.
+ *
+ * Arguments: [buffers per voice count]
+ */
+public final class SoundMixerBench {
+
+    private static final int[] VOICE_COUNTS = {1, 8, 32, SoundPlayer.MAX_VOICES};
+
+    public static void main(String[] args) {
+        int buffers = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        // Four minutes, long enough that no sound ends during a default run
+        Random random = new Random(1);
+        short[] samples = new short[44100 * 60 * 4];
+        for (int i = 0; i < samples.length; ++i) {
+            samples[i] = (short) (random.nextGaussian() * 4000);
+        }
+        SoundData data = new SoundData(samples, 44100F);
+        GameSettings settings = new GameSettings(null, new File(System.getProperty("java.io.tmpdir")));
+        byte[] out = new byte[SoundPlayer.BUFFER_BYTES];
+
+        for (int voices : VOICE_COUNTS) {
+            SoundPlayer player = new SoundPlayer(settings);
+            player.running = true;
+            for (int i = 0; i < voices; ++i) {
+                player.play(new SoundInfo(data, 0.8F + random.nextFloat() * 0.4F, 0.5F),
+                        new Position(random, i % 2 == 0));
+            }
+            // Warm up
+            for (int i = 0; i < buffers / 4; ++i) {
+                player.mix(out);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < buffers; ++i) {
+                player.mix(out);
+            }
+            long perBuffer = (System.nanoTime() - start) / buffers;
+            if (player.getVoiceCount() != voices) {
+                throw new AssertionError(player.getVoiceCount() + " of " + voices + " voices left");
+            }
+            System.out.printf("%2d voices: %6d ns/buffer, %.3f%% of real time%n", voices,
+                    perBuffer, perBuffer / 1e6);
+        }
+
+        checkVoiceStealing(settings, data, out);
+    }
+
+    // Fills every voice, then plays one more sound: it must be mixed.
+    private static void checkVoiceStealing(GameSettings settings, SoundData data, byte[] out) {
+        SoundPlayer player = new SoundPlayer(settings);
+        player.running = true;
+        Random random = new Random(2);
+        for (int i = 0; i < SoundPlayer.MAX_VOICES; ++i) {
+            player.play(new SoundInfo(data, 1F, 0.5F), new Position(random, false));
+        }
+        player.mix(out);
+        final boolean[] played = new boolean[1];
+        player.play(new Audio() {
+            @Override
+            public boolean isFootStep(boolean really) {
+                return false;
+            }
+
+            @Override
+            public boolean play(int[] left, int[] right, int frames) {
+                played[0] = true;
+                return true;
+            }
+        });
+        player.mix(out);
+        if (!played[0] || player.getVoiceCount() != SoundPlayer.MAX_VOICES) {
+            throw new AssertionError("A new sound was dropped with every voice busy");
+        }
+        System.out.println("OK: a new sound replaces the oldest when every voice is busy");
+    }
+
+    // A source either fixed in place or circling the listener.
+    private static final class Position implements SoundPos {
+
+        private final boolean moving;
+        private float angle;
+        private final float distance;
+
+        Position(Random random, boolean moving) {
+            this.moving = moving;
+            angle = random.nextFloat() * 2F - 1F;
+            distance = 0.2F + random.nextFloat() * 0.8F;
+        }
+
+        @Override
+        public float getDistanceSq() {
+            return distance;
+        }
+
+        @Override
+        public float getRotationDiff() {
+            if (moving) {
+                angle = angle >= 1F ? -1F : angle + 0.01F;
+            }
+            return angle;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package de.jarnbjo.vorbis;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import de.jarnbjo.util.io.ByteArrayBitInputStream;
+import de.jarnbjo.util.io.HuffmanNode;
+import de.jarnbjo.util.io.HuffmanTable;
+
+/**
+ * Measures how fast codewords are decoded by walking the Huffman tree and
+ * through a HuffmanTable, over every codebook of the given .ogg files (or
+ * random codebooks; see CodeBookDecodeCheck), reading random bits.
+ *
+ * A standalone program rather than a JMH benchmark, as the build has no
+ * benchmark harness: run it with the game classes on the class path.
+ *
+ * Arguments: .ogg files or directories, as for CodeBookDecodeCheck.
+ */
+public final class CodeBookDecodeBench {
+
+    private static final int STREAM_BYTES = 1 << 16;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        List<HuffmanNode> trees = CodeBookDecodeCheck.loadTrees(args);
+        HuffmanTable[] tables = new HuffmanTable[trees.size()];
+        for (int i = 0; i < tables.length; ++i) {
+            tables[i] = new HuffmanTable(trees.get(i));
+        }
+        byte[] data = new byte[STREAM_BYTES];
+        new Random(1).nextBytes(data);
+
+        for (int round = 0; round < ROUNDS; ++round) {
+            long treeCount = 0;
+            long tableCount = 0;
+            long start = System.nanoTime();
+            for (HuffmanNode root : trees) {
+                treeCount += decodeAll(new ByteArrayBitInputStream(data), root);
+            }
+            long treeTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (HuffmanTable table : tables) {
+                tableCount += decodeAll(new ByteArrayBitInputStream(data), table);
+            }
+            long tableTime = System.nanoTime() - start;
+            // The first rounds are warm-up
+            if (round >= ROUNDS / 2) {
+                System.out.printf("tree: %.1f M codewords/s, table: %.1f M codewords/s%n",
+                        treeCount * 1e3 / treeTime, tableCount * 1e3 / tableTime);
+            }
+        }
+    }
+
+    // Decodes codewords until the stream runs out or hits a non-codeword.
+    private static int decodeAll(ByteArrayBitInputStream source, HuffmanNode root) {
+        int count = 0;
+        try {
+            while (true) {
+                source.getInt(root);
+                ++count;
+            }
+        } catch (RuntimeException ex) {
+            return count;
+        }
+    }
+
+    private static int decodeAll(ByteArrayBitInputStream source, HuffmanTable table) {
+        int count = 0;
+        try {
+            while (true) {
+                source.getInt(table);
+                ++count;
+            }
+        } catch (RuntimeException ex) {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package de.jarnbjo.vorbis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import de.jarnbjo.ogg.FileStream;
+import de.jarnbjo.ogg.LogicalOggStream;
+import de.jarnbjo.util.io.ByteArrayBitInputStream;
+import de.jarnbjo.util.io.HuffmanNode;
+import de.jarnbjo.util.io.HuffmanTable;
+
+/**
+ * Checks that decoding codewords through a HuffmanTable gives the same
+ * values, consumes the same bits and fails in the same way as walking the
+ * Huffman tree, for every codebook of the given .ogg files, over random bit
+ * streams with plain reads mixed in.
+ *
+ * Arguments are .ogg files or directories to search for them, such as the
+ * game's resources directory; the sounds are downloaded at run time, so
+ * none ship with the source. With no arguments, or no codebooks found,
+ * random codebooks are checked instead, some of them incomplete.
+ *
+ * A standalone program rather than a unit test, as the build has no test
+ * framework: run it with the game classes on the class path.
+ */
+public final class CodeBookDecodeCheck {
+
+    private static final int STREAM_BYTES = 4096;
+
+    public static void main(String[] args) throws IOException {
+        List<HuffmanNode> trees = loadTrees(args);
+        Random random = new Random(1);
+        long codewords = 0;
+        for (int i = 0; i < trees.size(); ++i) {
+            HuffmanNode root = trees.get(i);
+            HuffmanTable table = new HuffmanTable(root);
+            for (int stream = 0; stream < 4; ++stream) {
+                codewords += compare(root, table, random, "codebook " + i);
+            }
+        }
+        System.out.println("OK: " + trees.size() + " codebooks, " + codewords
+                + " codewords decoded alike");
+    }
+
+    /**
+     * Returns the Huffman trees of every codebook in the given .ogg files and
+     * directories, or of random codebooks if there are none.
+     */
+    static List<HuffmanNode> loadTrees(String[] paths) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String path : paths) {
+            findOggFiles(new File(path), files);
+        }
+        List<HuffmanNode> trees = new ArrayList<>();
+        for (File file : files) {
+            try (RandomAccessFile source = new RandomAccessFile(file, "r")) {
+                FileStream oggFile = new FileStream(source);
+                for (LogicalOggStream oggStream : oggFile.getLogicalStreams()) {
+                    for (CodeBook codeBook : new VorbisStream(oggStream).getSetupHeader()
+                            .getCodeBooks()) {
+                        trees.add(codeBook.getHuffmanRoot());
+                    }
+                }
+            }
+        }
+        if (trees.isEmpty()) {
+            System.out.println("No .ogg files given; using random codebooks");
+            Random random = new Random(2);
+            for (int i = 0; i < 300; ++i) {
+                trees.add(randomTree(random, i % 10 != 0));
+            }
+        } else {
+            System.out.println(files.size() + " .ogg files");
+        }
+        return trees;
+    }
+
+    private static void findOggFiles(File file, List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    findOggFiles(child, files);
+                }
+            }
+        } else if (file.getName().endsWith(".ogg")) {
+            files.add(file);
+        }
+    }
+
+    // A tree of random shape with codewords of up to 24 bits, as Vorbis
+    // allows; an incomplete one has a codeword missing.
+    private static HuffmanNode randomTree(Random random, boolean complete) {
+        List<Integer> lengths = new ArrayList<>();
+        addLengths(random, 0, lengths);
+        Collections.shuffle(lengths, random);
+        if (!complete && lengths.size() > 2) {
+            lengths.remove(lengths.size() - 1);
+        }
+        HuffmanNode root = new HuffmanNode();
+        for (int i = 0; i < lengths.size(); ++i) {
+            root.setNewValue(lengths.get(i), i);
+        }
+        return root;
+    }
+
+    private static void addLengths(Random random, int depth, List<Integer> lengths) {
+        if (depth > 0 && (depth >= 24 || random.nextInt(3) == 0)) {
+            lengths.add(depth);
+        } else {
+            addLengths(random, depth + 1, lengths);
+            addLengths(random, depth + 1, lengths);
+        }
+    }
+
+    // Decodes a random stream both ways until it runs out, and returns the
+    // number of codewords decoded.
+    private static int compare(HuffmanNode root, HuffmanTable table, Random random, String name)
+            throws IOException {
+        byte[] data = new byte[STREAM_BYTES + random.nextInt(64)];
+        random.nextBytes(data);
+        ByteArrayBitInputStream tree = new ByteArrayBitInputStream(data);
+        ByteArrayBitInputStream lookup = new ByteArrayBitInputStream(data);
+        int count = 0;
+        while (true) {
+            int treeValue = -1;
+            int tableValue = -1;
+            String treeError = null;
+            String tableError = null;
+            try {
+                treeValue = tree.getInt(root);
+            } catch (RuntimeException ex) {
+                treeError = ex.getClass().getName();
+            }
+            try {
+                tableValue = lookup.getInt(table);
+            } catch (RuntimeException ex) {
+                tableError = ex.getClass().getName();
+            }
+            if (treeValue != tableValue
+                    || (treeError == null ? tableError != null : !treeError.equals(tableError))) {
+                throw new AssertionError(name + ", codeword " + count + ": tree gave "
+                        + (treeError == null ? treeValue : treeError) + ", table gave "
+                        + (tableError == null ? tableValue : tableError));
+            }
+            if (treeError != null) {
+                return count;
+            }
+            ++count;
+            // Both streams must be left at the same bit
+            if (random.nextInt(5) == 0) {
+                int bits = 1 + random.nextInt(7);
+                try {
+                    if (tree.getInt(bits) != lookup.getInt(bits)) {
+                        throw new AssertionError(name + ", codeword " + count
+                                + ": streams out of step");
+                    }
+                } catch (ArrayIndexOutOfBoundsException ex) {
+                    return count;
+                }
+            }
+        }
+    }
+}